@@ -1,10 +1,12 @@
 package com.bank.yanki.application.dto;
 
-import com.bank.yanki.domain.model.YankiWallet;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO que representa una transacción pendiente en el sistema Yanki.
@@ -13,14 +15,24 @@ import lombok.Data;
  * que están siendo procesadas, especialmente durante validaciones de saldo
  * o autorizaciones pendientes.</p>
  *
+ * <p>Solo guarda identificadores e importe, no las billeteras: al completarse, el pago
+ * vuelve a leerlas. {@code toWalletId} es null si el destinatario no tenía billetera al
+ * iniciar el pago. {@code deadline} es el instante en que la validación caduca.</p>
+ *
  */
 @Data
+@Builder
+@NoArgsConstructor
 @AllArgsConstructor
 public class PendingTransaction {
-  private YankiWallet fromWallet;
+  private String inquiryId;
+  private String transactionId;
+  private String fromWalletId;
+  private String toWalletId;
+  private String fromPhoneNumber;
   private String toPhoneNumber;
   private BigDecimal amount;
   private String description;
   private LocalDateTime createdAt;
-  private String transactionId;
-}
\ No newline at end of file
+  private Instant deadline;
+}
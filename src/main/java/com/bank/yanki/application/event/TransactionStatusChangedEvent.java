@@ -0,0 +1,23 @@
+package com.bank.yanki.application.event;
+
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de cambio de estado de un pago.
+ *
+ * <p>Lo publica la instancia que guarda el estado y lo consumen todas las demás, para
+ * entregarlo a las suscripciones de estado abiertas en ellas.</p>
+ *
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatusChangedEvent {
+  private TransactionStatusRecord status;
+  private String sourceNode;
+}
@@ -0,0 +1,26 @@
+package com.bank.yanki.application.event;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de actualización de billetera Yanki.
+ *
+ * <p>Este evento se publica cada vez que una instancia del servicio modifica una
+ * billetera. Las demás instancias lo consumen para invalidar su caché local en
+ * memoria, manteniendo la coherencia entre nodos.</p>
+ *
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletUpdatedEvent {
+  private String walletId;
+  private String phoneNumber;
+  private String sourceNode;
+  private LocalDateTime updatedAt;
+}
@@ -1,11 +1,13 @@
 package com.bank.yanki.application.mapper;
 
 import com.bank.yanki.domain.model.Transaction;
+import com.bank.yanki.domain.model.YankiTransaction;
 import com.bank.yanki.domain.model.YankiWallet;
 import com.bank.yanki.model.CardAssociationResponse;
 import com.bank.yanki.model.CardAssociationStatusEnum;
 import com.bank.yanki.model.DocumentTypeEnum;
 import com.bank.yanki.model.TransactionResponse;
+import com.bank.yanki.model.TransactionTypeEnum;
 import com.bank.yanki.model.WalletStatusEnum;
 import com.bank.yanki.model.YankiWalletRequest;
 import com.bank.yanki.model.YankiWalletResponse;
@@ -13,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -47,6 +50,7 @@ public interface YankiWalletMapper {
   @Mapping(target = "status", ignore = true)
   @Mapping(target = "createdAt", ignore = true)
   @Mapping(target = "updatedAt", ignore = true)
+  @Mapping(target = "version", ignore = true)
   YankiWallet toDomain(YankiWalletRequest request);
 
   /**
@@ -81,7 +85,7 @@ public interface YankiWalletMapper {
    * <ul>
    *   <li>BigDecimal amount → Double amount</li>
    *   <li>TransactionType por defecto: SEND</li>
-   *   <li>TransactionStatus por defecto: COMPLETED</li>
+   *   <li>TransactionStatus: el de la transacción (COMPLETED o PENDING)</li>
    *   <li>LocalDateTime → OffsetDateTime</li>
    * </ul>
    * </p>
@@ -91,10 +95,39 @@ public interface YankiWalletMapper {
    */
   @Mapping(target = "amount", expression = "java(toDouble(transaction.getAmount()))")
   @Mapping(target = "transactionType", expression = "java(com.bank.yanki.model.TransactionTypeEnum.SEND)")
-  @Mapping(target = "status", expression = "java(com.bank.yanki.model.TransactionStatusEnum.COMPLETED)")
   @Mapping(target = "transactionDate", expression = "java(toOffsetDateTime(transaction.getTransactionDate()))")
   TransactionResponse toTransactionResponse(Transaction transaction);
 
+  /**
+   * Convierte una transacción del historial a un TransactionResponse visto desde una
+   * billetera.
+   *
+   * <p>El tipo es SEND si la billetera es la remitente y RECEIVE en caso contrario. El
+   * identificador es el de la transacción de negocio, el mismo que devuelve el envío
+   * del pago.</p>
+   *
+   * @param transaction transacción registrada
+   * @param phoneNumber teléfono de la billetera cuyo historial se consulta
+   * @return DTO de respuesta de transacción
+   */
+  @Mapping(target = "id", source = "transactionId")
+  @Mapping(target = "amount", expression = "java(toDouble(transaction.getAmount()))")
+  @Mapping(target = "transactionType", expression = "java(historyType(transaction, phoneNumber))")
+  @Mapping(target = "transactionDate", expression = "java(toOffsetDateTime(transaction.getTransactionDate()))")
+  TransactionResponse toHistoryResponse(YankiTransaction transaction, @Context String phoneNumber);
+
+  /**
+   * Determina si una transacción del historial es un envío o una recepción.
+   *
+   * @param transaction transacción registrada
+   * @param phoneNumber teléfono de la billetera cuyo historial se consulta
+   * @return SEND si la billetera es la remitente, RECEIVE en caso contrario
+   */
+  default TransactionTypeEnum historyType(YankiTransaction transaction, String phoneNumber) {
+    return phoneNumber.equals(transaction.getFromPhoneNumber())
+      ? TransactionTypeEnum.SEND : TransactionTypeEnum.RECEIVE;
+  }
+
   /**
    * Determina el estado de asociación de tarjeta basado en la billetera.
    *
@@ -0,0 +1,20 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada cuando llega una petición con una clave de idempotencia cuya
+ * petición original todavía se está procesando.
+ *
+ * <p>Cuando la petición original termina, las repeticiones reciben su resultado.</p>
+ *
+ */
+public class DuplicateRequestException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción para la clave indicada.
+   *
+   * @param key la clave de idempotencia repetida
+   */
+  public DuplicateRequestException(String key) {
+    super("Request already in progress with idempotency key: " + key);
+  }
+}
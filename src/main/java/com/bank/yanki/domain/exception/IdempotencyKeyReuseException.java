@@ -0,0 +1,18 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada cuando una clave de idempotencia ya usada llega con una petición
+ * distinta de la original, por ejemplo con otro importe o destinatario.
+ *
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción para la clave indicada.
+   *
+   * @param key la clave de idempotencia reutilizada
+   */
+  public IdempotencyKeyReuseException(String key) {
+    super("Idempotency key already used with a different request: " + key);
+  }
+}
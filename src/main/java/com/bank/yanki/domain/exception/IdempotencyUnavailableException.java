@@ -0,0 +1,21 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada cuando no puede comprobarse una clave de idempotencia porque el
+ * registro de claves no responde.
+ *
+ * <p>La operación no se ejecuta: sin el registro no puede saberse si ya se ejecutó.</p>
+ *
+ */
+public class IdempotencyUnavailableException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción para la clave indicada.
+   *
+   * @param key la clave de idempotencia
+   * @param cause el error del registro de claves
+   */
+  public IdempotencyUnavailableException(String key, Throwable cause) {
+    super("Idempotency store unavailable for key: " + key, cause);
+  }
+}
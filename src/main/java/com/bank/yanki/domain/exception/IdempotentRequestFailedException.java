@@ -0,0 +1,21 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada al repetir una petición idempotente cuya ejecución original falló
+ * después de poder modificar las billeteras.
+ *
+ * <p>La operación no se vuelve a ejecutar: el mensaje es el del error original, de modo
+ * que la repetición recibe la misma respuesta que la petición original.</p>
+ *
+ */
+public class IdempotentRequestFailedException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción con el mensaje del error original.
+   *
+   * @param message el mensaje del error original
+   */
+  public IdempotentRequestFailedException(String message) {
+    super(message);
+  }
+}
@@ -24,4 +24,14 @@ public class InsufficientBalanceException extends RuntimeException {
     super(String.format("Insufficient balance. Current: %s, Required: %s", currentBalance,
       requiredAmount));
   }
+
+  /**
+   * Crea una nueva excepción cuando no se conoce el saldo, por ejemplo porque el descuento
+   * condicionado al saldo no se aplicó.
+   *
+   * @param requiredAmount monto requerido para la operación
+   */
+  public InsufficientBalanceException(BigDecimal requiredAmount) {
+    super(String.format("Insufficient balance. Required: %s", requiredAmount));
+  }
 }
\ No newline at end of file
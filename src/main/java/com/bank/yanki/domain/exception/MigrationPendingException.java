@@ -0,0 +1,20 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada cuando una operación depende de migraciones de datos que aún no han
+ * terminado.
+ *
+ * <p>La operación no se ejecuta y puede reintentarse más tarde.</p>
+ *
+ */
+public class MigrationPendingException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción para la operación indicada.
+   *
+   * @param operation la operación rechazada
+   */
+  public MigrationPendingException(String operation) {
+    super("Data migrations still pending, " + operation + " disabled");
+  }
+}
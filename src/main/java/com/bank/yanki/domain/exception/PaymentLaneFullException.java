@@ -0,0 +1,20 @@
+package com.bank.yanki.domain.exception;
+
+/**
+ * Excepción lanzada cuando un pago no puede encolarse porque el carril de su billetera
+ * ya tiene el máximo de pagos en espera.
+ *
+ * <p>El pago no se ejecuta y puede reintentarse más tarde.</p>
+ *
+ */
+public class PaymentLaneFullException extends RuntimeException {
+
+  /**
+   * Crea una nueva excepción para la billetera indicada.
+   *
+   * @param phoneNumber el número de teléfono de la billetera que paga
+   */
+  public PaymentLaneFullException(String phoneNumber) {
+    super("Payment lane is full for wallet: " + phoneNumber);
+  }
+}
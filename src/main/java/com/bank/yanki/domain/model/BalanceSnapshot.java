@@ -0,0 +1,55 @@
+package com.bank.yanki.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Saldo de una billetera en una versión, en {@code yanki_balance_snapshots}.
+ *
+ * <p>El identificador es {@code {phone}:{version}}, por lo que guardar dos veces la misma
+ * instantánea no la duplica. {@code asOf} es el {@code updatedAt} de la billetera en esa
+ * versión.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_balance_snapshots")
+@CompoundIndex(name = "phone_as_of", def = "{'phoneNumber': 1, 'asOf': -1}")
+public class BalanceSnapshot {
+  @Id
+  private String id;
+  private String walletId;
+  private String phoneNumber;
+  private long version;
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal balance;
+  private LocalDateTime asOf;
+
+  /**
+   * Construye la instantánea del saldo actual de una billetera.
+   *
+   * @param wallet la billetera
+   * @return la instantánea
+   */
+  public static BalanceSnapshot of(YankiWallet wallet) {
+    return BalanceSnapshot.builder()
+      .id(wallet.getPhoneNumber() + ":" + wallet.currentVersion())
+      .walletId(wallet.getId())
+      .phoneNumber(wallet.getPhoneNumber())
+      .version(wallet.currentVersion())
+      .balance(wallet.getBalance())
+      .asOf(wallet.getUpdatedAt())
+      .build();
+  }
+}
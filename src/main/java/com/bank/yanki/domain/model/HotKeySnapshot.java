@@ -0,0 +1,29 @@
+package com.bank.yanki.domain.model;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Copia en {@code yanki_hot_keys} de la lista de teléfonos más consultados.
+ *
+ * <p>La lista vive en Redis; esta copia permite recuperarla si Redis la pierde, por
+ * ejemplo tras un reinicio sin persistencia o un {@code FLUSHALL}.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_hot_keys")
+public class HotKeySnapshot {
+  @Id
+  private String id;
+  private List<String> phoneNumbers;
+  private Instant updatedAt;
+}
@@ -0,0 +1,47 @@
+package com.bank.yanki.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Movimiento de saldo de una billetera en el libro mayor {@code yanki_ledger}.
+ *
+ * <p>Las entradas solo se insertan, nunca se modifican. {@code amount} lleva signo: negativo
+ * para los cargos y positivo para los abonos. {@code version} es la versión de la billetera
+ * tras el movimiento y {@code createdAt} su {@code updatedAt}, de modo que el saldo en un
+ * instante es el de una instantánea anterior más las entradas posteriores a ella.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_ledger")
+@CompoundIndex(name = "phone_version", def = "{'phoneNumber': 1, 'version': 1}", unique = true)
+public class LedgerEntry {
+  @Id
+  private String id;
+  private String walletId;
+  private String phoneNumber;
+  private long version;
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal amount;
+  private String transactionId;
+  private Reason reason;
+  private LocalDateTime createdAt;
+
+  public enum Reason {
+    DEBIT,     // Cargo por un envío
+    CREDIT,    // Abono por una recepción
+    REVERSAL   // Devolución de un cargo cuya transferencia falló
+  }
+}
@@ -0,0 +1,33 @@
+package com.bank.yanki.domain.model;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Avance de una migración de datos que recorre una colección por lotes.
+ *
+ * <p>{@code lastId} es el último {@code _id} procesado, desde donde continúa la siguiente
+ * ejecución. {@code completedAt} marca la migración como terminada: a partir de entonces
+ * no vuelve a ejecutarse. {@code leaseOwner} y {@code leaseUntil} evitan que dos
+ * instancias la ejecuten a la vez.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_migrations")
+public class MigrationCheckpoint {
+  @Id
+  private String id;
+  private String lastId;
+  private long processed;
+  private String leaseOwner;
+  private Instant leaseUntil;
+  private Instant completedAt;
+}
@@ -0,0 +1,36 @@
+package com.bank.yanki.domain.model;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Evento de Kafka pendiente de publicar, en {@code yanki_event_outbox}.
+ *
+ * <p>Se guarda cuando la publicación de un evento falla después de confirmar los cambios
+ * que lo originan. {@code nextAttemptAt} es el instante a partir del cual puede
+ * reenviarse; al reclamarlo para un reenvío se mueve al final de la concesión, de modo que
+ * dos instancias no lo envían a la vez.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_event_outbox")
+public class OutboxEvent {
+  @Id
+  private String id;
+  private String topic;
+  private String key;
+  private Object payload;
+  private int attempts;
+  private Instant createdAt;
+  @Indexed(name = "next_attempt_at")
+  private Instant nextAttemptAt;
+}
@@ -0,0 +1,39 @@
+package com.bank.yanki.domain.model;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entradas del libro mayor pendientes de escribir, en {@code yanki_ledger_retry}.
+ *
+ * <p>Se guardan cuando las entradas de un cambio de saldo ya aplicado no pudieron
+ * insertarse, junto con las instantáneas que correspondían. {@code record} es el registro
+ * de una transferencia confirmada que no pudo insertarse en el historial; en ese caso
+ * {@code entries} puede estar vacía. {@code nextAttemptAt} es el
+ * instante a partir del cual puede reintentarse; al reclamarlas se mueve al final de la
+ * concesión, de modo que dos instancias no las escriben a la vez.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_ledger_retry")
+public class PendingLedgerWrite {
+  @Id
+  private String id;
+  private List<LedgerEntry> entries;
+  private List<BalanceSnapshot> snapshots;
+  private YankiTransaction record;
+  private int attempts;
+  private Instant createdAt;
+  @Indexed(name = "next_attempt_at")
+  private Instant nextAttemptAt;
+}
@@ -0,0 +1,36 @@
+package com.bank.yanki.domain.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Estado del archivado de transacciones, compartido por todas las instancias.
+ *
+ * <p>{@code cutoff} es la fecha antes de la cual las transacciones están archivadas o en
+ * proceso de archivarse. {@code lastId} es el último {@code _id} archivado de una pasada
+ * sin terminar, desde donde continúa la siguiente ejecución; es null cuando la pasada
+ * terminó. {@code leaseOwner} y {@code leaseUntil} evitan que dos instancias archiven a la
+ * vez.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_transactions_archive_state")
+public class TransactionArchiveCheckpoint {
+  @Id
+  private String id;
+  private LocalDateTime cutoff;
+  private String lastId;
+  private long archived;
+  private String leaseOwner;
+  private Instant leaseUntil;
+  private Instant completedAt;
+}
@@ -0,0 +1,42 @@
+package com.bank.yanki.domain.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Bloque comprimido de transacciones archivadas de un teléfono en un mes.
+ *
+ * <p>{@code records} contiene los documentos de {@code yanki_transactions} del bloque,
+ * serializados en BSON y comprimidos con gzip. Una transferencia se archiva en el bloque
+ * del remitente y en el del destinatario. El identificador es
+ * {@code {phone}:{yyyy-MM}:{primer _id del lote}}, de modo que volver a archivar el mismo
+ * lote reemplaza el bloque en lugar de duplicarlo. {@code transactionIds} lista los
+ * identificadores de negocio del bloque para buscar una transacción archivada sin
+ * descomprimir los demás.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_transactions_archive")
+@CompoundIndex(name = "phone_month", def = "{'phoneNumber': 1, 'month': -1}")
+@CompoundIndex(name = "transaction_ids", def = "{'transactionIds': 1}")
+public class TransactionArchiveChunk {
+  @Id
+  private String id;
+  private String phoneNumber;
+  private String month;
+  private LocalDateTime fromDate;
+  private LocalDateTime toDate;
+  private int count;
+  private List<String> transactionIds;
+  private byte[] records;
+}
@@ -0,0 +1,70 @@
+package com.bank.yanki.domain.model;
+
+import com.bank.yanki.model.TransactionStatusEnum;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Transacciones de una billetera en un día, en el layout por buckets de
+ * {@code yanki_transactions}.
+ *
+ * <p>Un día puede ocupar varios buckets: {@code count} lleva las entradas de cada uno y,
+ * al llegar al máximo configurado, las siguientes van a un bucket nuevo. Cada
+ * transferencia añade una entrada al bucket del remitente y otra al del destinatario; la
+ * entrada solo guarda el sentido y los datos de la contraparte, porque los de la
+ * billetera propia están en el bucket.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_transaction_buckets")
+@CompoundIndex(name = "phone_day", def = "{'phoneNumber': 1, 'day': -1}")
+@CompoundIndex(name = "wallet_day", def = "{'walletId': 1, 'day': -1}")
+@CompoundIndex(name = "entry_transaction_id", def = "{'entries.transactionId': 1}")
+public class TransactionBucket {
+  @Id
+  private String id;
+  private String phoneNumber;
+  private String walletId;
+  private String day;
+  private int count;
+  private List<Entry> entries;
+
+  /**
+   * Transacción dentro de un bucket, vista desde la billetera del bucket.
+   */
+  @Builder
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Entry {
+    private String id;
+    private String transactionId;
+    private Direction direction;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+    private String counterpartPhoneNumber;
+    private String counterpartWalletId;
+    private String description;
+    private YankiTransaction.TransactionType type;
+    private TransactionStatusEnum status;
+    private LocalDateTime transactionDate;
+  }
+
+  public enum Direction {
+    SENT,
+    RECEIVED
+  }
+}
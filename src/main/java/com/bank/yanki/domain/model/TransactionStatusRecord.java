@@ -0,0 +1,109 @@
+package com.bank.yanki.domain.model;
+
+import com.bank.yanki.model.TransactionStatusEnum;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Estado de un pago, en {@code yanki_transaction_status}.
+ *
+ * <p>El identificador es el {@code transactionId} devuelto al enviar el pago. El estado
+ * de un pago con validación de crédito empieza en PENDING y pasa a COMPLETED o FAILED,
+ * con el motivo en {@code reason}; el de un pago inmediato se guarda ya COMPLETED. Los
+ * registros caducan 30 días después de su último cambio; el resultado final queda en el
+ * historial de transacciones.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "yanki_transaction_status")
+public class TransactionStatusRecord {
+  @Id
+  private String id;
+  private String fromWalletId;
+  private String toWalletId;
+  private String fromPhoneNumber;
+  private String toPhoneNumber;
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal amount;
+  private String description;
+  private TransactionStatusEnum status;
+  private String reason;
+  private LocalDateTime transactionDate;
+  @Indexed(name = "updated_at_ttl", expireAfter = "30d")
+  private LocalDateTime updatedAt;
+
+  /**
+   * Construye el registro del estado de una transacción.
+   *
+   * @param transaction la transacción
+   * @param reason motivo del estado, o null
+   * @return el registro
+   */
+  public static TransactionStatusRecord of(Transaction transaction, String reason) {
+    return TransactionStatusRecord.builder()
+      .id(transaction.getId())
+      .fromWalletId(transaction.getFromWalletId())
+      .toWalletId(transaction.getToWalletId())
+      .fromPhoneNumber(transaction.getFromPhoneNumber())
+      .toPhoneNumber(transaction.getToPhoneNumber())
+      .amount(transaction.getAmount())
+      .description(transaction.getDescription())
+      .status(transaction.getStatus())
+      .reason(reason)
+      .transactionDate(transaction.getTransactionDate())
+      .updatedAt(LocalDateTime.now())
+      .build();
+  }
+
+  /**
+   * Construye el registro del estado de un pago a partir de su registro en el historial.
+   *
+   * @param transaction el registro del historial
+   * @return el registro del estado, identificado por el {@code transactionId}
+   */
+  public static TransactionStatusRecord of(YankiTransaction transaction) {
+    return TransactionStatusRecord.builder()
+      .id(transaction.getTransactionId())
+      .fromWalletId(transaction.getFromWalletId())
+      .toWalletId(transaction.getToWalletId())
+      .fromPhoneNumber(transaction.getFromPhoneNumber())
+      .toPhoneNumber(transaction.getToPhoneNumber())
+      .amount(transaction.getAmount())
+      .description(transaction.getDescription())
+      .status(transaction.getStatus())
+      .transactionDate(transaction.getTransactionDate())
+      .updatedAt(LocalDateTime.now())
+      .build();
+  }
+
+  /**
+   * Convierte el registro en la transacción de dominio que representa.
+   *
+   * @return la transacción con el estado del registro
+   */
+  public Transaction toTransaction() {
+    return Transaction.builder()
+      .id(id)
+      .fromWalletId(fromWalletId)
+      .toWalletId(toWalletId)
+      .fromPhoneNumber(fromPhoneNumber)
+      .toPhoneNumber(toPhoneNumber)
+      .amount(amount)
+      .description(description)
+      .status(status)
+      .transactionDate(transactionDate)
+      .build();
+  }
+}
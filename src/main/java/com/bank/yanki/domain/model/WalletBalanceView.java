@@ -0,0 +1,52 @@
+package com.bank.yanki.domain.model;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vista reducida de una billetera Yanki con los datos necesarios para validar saldo.
+ *
+ * <p>Se lee de MongoDB con una proyección de estos campos y se cachea aparte de la
+ * billetera completa, de modo que las validaciones no transfieren los datos personales
+ * del titular.</p>
+ *
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceView {
+  private String id;
+  private String phoneNumber;
+  private YankiWallet.YankiWalletStatus status;
+  private BigDecimal balance;
+  private Long version;
+
+  /**
+   * Construye la vista a partir de la billetera completa.
+   *
+   * @param wallet la billetera
+   * @return la vista de saldo de la billetera
+   */
+  public static WalletBalanceView of(YankiWallet wallet) {
+    return WalletBalanceView.builder()
+      .id(wallet.getId())
+      .phoneNumber(wallet.getPhoneNumber())
+      .status(wallet.getStatus())
+      .balance(wallet.getBalance())
+      .version(wallet.currentVersion())
+      .build();
+  }
+
+  /**
+   * Devuelve la versión de la vista, tratando la ausencia de versión como cero.
+   *
+   * @return la versión de la billetera
+   */
+  public long currentVersion() {
+    return version != null ? version : 0L;
+  }
+}
@@ -8,6 +8,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -16,15 +18,25 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * <p>Esta clase representa el modelo de datos que se persiste en la base de datos
  * MongoDB para el registro histórico de todas las transacciones del sistema Yanki.</p>
  *
+ * <p>Los índices compuestos cubren las búsquedas de {@code YankiTransactionRepository}
+ * por teléfono o billetera, ordenadas de la transacción más reciente a la más antigua.</p>
+ *
  */
 @Builder
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "yanki_transactions")
+@CompoundIndex(name = "from_phone_date",
+  def = "{'fromPhoneNumber': 1, 'transactionDate': -1, '_id': -1}")
+@CompoundIndex(name = "to_phone_date",
+  def = "{'toPhoneNumber': 1, 'transactionDate': -1, '_id': -1}")
+@CompoundIndex(name = "from_wallet_date", def = "{'fromWalletId': 1, 'transactionDate': -1}")
+@CompoundIndex(name = "to_wallet_date", def = "{'toWalletId': 1, 'transactionDate': -1}")
 public class YankiTransaction {
   @Id
   private String id;
+  @Indexed
   private String transactionId;
   private BigDecimal amount;
   private String fromWalletId;
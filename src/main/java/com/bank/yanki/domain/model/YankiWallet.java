@@ -7,7 +7,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 /**
  * Entidad de dominio que representa una billetera digital Yanki.
@@ -16,8 +20,14 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * incluyendo información personal, saldo, estado y métodos de negocio para
  * operaciones financieras.</p>
  *
+ * <p>{@code version} se incrementa con cada cambio del documento: {@code save()} falla con
+ * {@code OptimisticLockingFailureException} si la versión guardada ya no es la leída, y
+ * los cambios de saldo la incrementan con {@code $inc}. Los métodos de negocio no la
+ * modifican: la asigna Spring Data al guardar, y la billetera devuelta por
+ * {@code save()} trae la versión nueva.</p>
+ *
  */
-@Builder
+@Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,25 +35,30 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class YankiWallet {
   @Id
   private String id;
+  @Indexed(unique = true)
   private String documentNumber;
   private DocumentType documentType;
+  @Indexed(unique = true)
   private String phoneNumber;
   private String imei;
   private String email;
+  @Field(targetType = FieldType.DECIMAL128)
   private BigDecimal balance;
   private String associatedCreditId;
   private YankiWalletStatus status;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
+  @Version
+  private Long version;
 
   public void activate() {
     this.status = YankiWalletStatus.ACTIVE;
-    this.updatedAt = LocalDateTime.now();
+    touch();
   }
 
   public void associateCard(String creditId) {
     this.associatedCreditId = creditId;
-    this.updatedAt = LocalDateTime.now();
+    touch();
   }
 
   public void updateBalance(BigDecimal amount, boolean isAddition) {
@@ -52,6 +67,19 @@ public class YankiWallet {
     } else {
       this.balance = this.balance.subtract(amount);
     }
+    touch();
+  }
+
+  /**
+   * Versión de la billetera, tratando como cero los documentos anteriores al campo.
+   *
+   * @return la versión actual
+   */
+  public long currentVersion() {
+    return version == null ? 0L : version;
+  }
+
+  private void touch() {
     this.updatedAt = LocalDateTime.now();
   }
 
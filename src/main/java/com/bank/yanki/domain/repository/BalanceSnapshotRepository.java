@@ -0,0 +1,24 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.BalanceSnapshot;
+import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repositorio reactivo de instantáneas de saldo.
+ *
+ */
+public interface BalanceSnapshotRepository
+  extends ReactiveMongoRepository<BalanceSnapshot, String> {
+
+  /**
+   * Busca la instantánea más reciente tomada antes o en un instante.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param at instante consultado
+   * @return un {@link Mono} con la instantánea, o vacío si no hay ninguna
+   */
+  Mono<BalanceSnapshot> findFirstByPhoneNumberAndAsOfLessThanEqualOrderByAsOfDesc(
+    String phoneNumber, LocalDateTime at);
+}
@@ -0,0 +1,28 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.LedgerEntry;
+import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Repositorio reactivo del libro mayor de billeteras.
+ *
+ * <p>Las consultas recorren el índice {@code (phoneNumber, version)} a partir de la versión
+ * de una instantánea, por lo que solo leen las entradas entre la instantánea y el instante
+ * consultado.</p>
+ *
+ */
+public interface LedgerEntryRepository extends ReactiveMongoRepository<LedgerEntry, String> {
+
+  /**
+   * Busca las entradas posteriores a una versión y anteriores o iguales a un instante.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param version versión de la instantánea de partida
+   * @param at instante consultado
+   * @return un {@link Flux} con las entradas
+   */
+  Flux<LedgerEntry> findByPhoneNumberAndVersionGreaterThanAndCreatedAtLessThanEqual(
+    String phoneNumber, long version, LocalDateTime at);
+}
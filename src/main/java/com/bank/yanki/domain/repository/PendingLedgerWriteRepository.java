@@ -0,0 +1,12 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.PendingLedgerWrite;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Repositorio reactivo de las entradas del libro mayor pendientes de escribir.
+ *
+ */
+public interface PendingLedgerWriteRepository
+  extends ReactiveMongoRepository<PendingLedgerWrite, String> {
+}
@@ -0,0 +1,15 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Repositorio reactivo de los estados de pagos con validación de crédito.
+ *
+ * <p>Los registros se leen y escriben por {@code transactionId}, que es su
+ * identificador.</p>
+ *
+ */
+public interface TransactionStatusRepository
+  extends ReactiveMongoRepository<TransactionStatusRecord, String> {
+}
@@ -0,0 +1,98 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consultas e inserciones de transacciones Yanki independientes del layout de
+ * almacenamiento, incluido el historial con paginación por cursor.
+ *
+ * <p>La implementación delega en el {@code TransactionStore} del layout configurado en
+ * {@code app.transactions.layout}, de modo que estos métodos funcionan igual con un
+ * documento por transacción o con buckets por billetera y día.</p>
+ *
+ * <p>El historial se ordena por {@code transactionDate} descendente y, a igual fecha,
+ * por {@code _id} descendente. Cada página continúa después de la última transacción
+ * de la anterior, por lo que su costo no crece con la profundidad como con
+ * {@code skip}.</p>
+ *
+ */
+public interface YankiTransactionRepositoryCustom {
+
+  /**
+   * Inserta un registro de transacción.
+   *
+   * @param transaction el registro a insertar
+   * @return un {@link Mono} con el registro insertado
+   */
+  Mono<YankiTransaction> insertRecord(YankiTransaction transaction);
+
+  /**
+   * Inserta varios registros de transacción en una sola operación bulk no ordenada.
+   *
+   * @param transactions los registros a insertar
+   * @return un {@link Mono} con el motivo de fallo de cada registro no insertado,
+   *     indexado por su posición en la lista; vacío si se insertaron todos
+   */
+  Mono<Map<Integer, String>> insertRecords(List<YankiTransaction> transactions);
+
+  /**
+   * Busca todas las transacciones donde el número de teléfono especificado es el remitente.
+   *
+   * @param fromPhoneNumber número de teléfono del remitente
+   * @return un {@link Flux} que emite todas las transacciones enviadas por ese teléfono
+   */
+  Flux<YankiTransaction> findByFromPhoneNumber(String fromPhoneNumber);
+
+  /**
+   * Busca todas las transacciones donde el número de teléfono especificado es el destinatario.
+   *
+   * @param toPhoneNumber número de teléfono del destinatario
+   * @return un {@link Flux} que emite todas las transacciones recibidas por ese teléfono
+   */
+  Flux<YankiTransaction> findByToPhoneNumber(String toPhoneNumber);
+
+  /**
+   * Busca todas las transacciones originadas desde una billetera específica.
+   *
+   * @param fromWalletId identificador único de la billetera de origen
+   * @return un {@link Flux} que emite todas las transacciones enviadas desde esa billetera
+   */
+  Flux<YankiTransaction> findByFromWalletId(String fromWalletId);
+
+  /**
+   * Busca todas las transacciones destinadas a una billetera específica.
+   *
+   * @param toWalletId identificador único de la billetera de destino
+   * @return un {@link Flux} que emite todas las transacciones recibidas por esa billetera
+   */
+  Flux<YankiTransaction> findByToWalletId(String toWalletId);
+
+  /**
+   * Busca una transacción por su identificador único de negocio.
+   *
+   * @param transactionId identificador único de la transacción (no el ID de MongoDB)
+   * @return un {@link Mono} que contiene la transacción si existe, o Mono.empty() si no se encuentra
+   */
+  Mono<YankiTransaction> findByTransactionId(String transactionId);
+
+
+  /**
+   * Busca las transacciones enviadas y recibidas por un teléfono.
+   *
+   * <p>Con {@code limit} cero o negativo se recorre todo el historial leyendo el cursor
+   * de MongoDB a medida que se consume.</p>
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param beforeDate fecha de la última transacción ya leída, o null desde el inicio
+   * @param beforeId identificador de la última transacción ya leída, o null desde el inicio
+   * @param limit máximo de transacciones a emitir
+   * @return un {@link Flux} con las transacciones de la más reciente a la más antigua
+   */
+  Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                     String beforeId, int limit);
+}
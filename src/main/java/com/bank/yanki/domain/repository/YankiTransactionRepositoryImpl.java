@@ -0,0 +1,62 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.infrastructure.persistence.store.TransactionStore;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementación de {@link YankiTransactionRepositoryCustom} que delega en el
+ * {@link TransactionStore} del layout configurado.
+ *
+ */
+@RequiredArgsConstructor
+public class YankiTransactionRepositoryImpl implements YankiTransactionRepositoryCustom {
+
+  private final TransactionStore transactionStore;
+
+  @Override
+  public Mono<YankiTransaction> insertRecord(YankiTransaction transaction) {
+    return transactionStore.insert(transaction);
+  }
+
+  @Override
+  public Mono<Map<Integer, String>> insertRecords(List<YankiTransaction> transactions) {
+    return transactionStore.insertAll(transactions);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromPhoneNumber(String fromPhoneNumber) {
+    return transactionStore.findByFromPhoneNumber(fromPhoneNumber);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToPhoneNumber(String toPhoneNumber) {
+    return transactionStore.findByToPhoneNumber(toPhoneNumber);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromWalletId(String fromWalletId) {
+    return transactionStore.findByFromWalletId(fromWalletId);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToWalletId(String toWalletId) {
+    return transactionStore.findByToWalletId(toWalletId);
+  }
+
+  @Override
+  public Mono<YankiTransaction> findByTransactionId(String transactionId) {
+    return transactionStore.findByTransactionId(transactionId);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                            String beforeId, int limit) {
+    return transactionStore.findHistory(phoneNumber, beforeDate, beforeId, limit);
+  }
+}
@@ -1,7 +1,11 @@
 package com.bank.yanki.domain.repository;
 
+import com.bank.yanki.domain.model.WalletBalanceView;
 import com.bank.yanki.domain.model.YankiWallet;
+import java.util.Collection;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -9,10 +13,12 @@ import reactor.core.publisher.Mono;
  *
  * <p>Este repositorio proporciona operaciones de acceso a datos reactivas para
  * la entidad {@link YankiWallet}. Incluye métodos para búsqueda por diferentes
- * criterios y validación de existencia de billeteras.</p>
+ * criterios y validación de existencia de billeteras, y las operaciones atómicas de saldo
+ * de {@link YankiWalletRepositoryCustom}.</p>
  *
  */
-public interface YankiWalletRepository extends ReactiveMongoRepository<YankiWallet, String> {
+public interface YankiWalletRepository extends ReactiveMongoRepository<YankiWallet, String>,
+  YankiWalletRepositoryCustom {
 
   /**
    * Busca una billetera Yanki por número de teléfono.
@@ -22,6 +28,24 @@ public interface YankiWalletRepository extends ReactiveMongoRepository<YankiWall
    */
   Mono<YankiWallet> findByPhoneNumber(String phoneNumber);
 
+  /**
+   * Lee solo el estado, el saldo y la versión de una billetera Yanki.
+   *
+   * @param phoneNumber número de teléfono asociado a la billetera
+   * @return un {@link Mono} con la vista de saldo si existe, o Mono.empty() si no se encuentra
+   */
+  @Query(value = "{ 'phoneNumber': ?0 }",
+    fields = "{ 'phoneNumber': 1, 'status': 1, 'balance': 1, 'version': 1 }")
+  Mono<WalletBalanceView> findBalanceViewByPhoneNumber(String phoneNumber);
+
+  /**
+   * Busca las billeteras Yanki de varios números de teléfono en una sola consulta.
+   *
+   * @param phoneNumbers números de teléfono a buscar
+   * @return un {@link Flux} que emite las billeteras encontradas, sin orden garantizado
+   */
+  Flux<YankiWallet> findByPhoneNumberIn(Collection<String> phoneNumbers);
+
   /**
    * Busca una billetera Yanki por número de documento de identidad.
    *
@@ -45,4 +69,18 @@ public interface YankiWalletRepository extends ReactiveMongoRepository<YankiWall
    * @return un {@link Mono} que emite true si existe, false en caso contrario
    */
   Mono<Boolean> existsByDocumentNumber(String documentNumber);
-}
\ No newline at end of file
+
+  /**
+   * Busca las billeteras que ya usan el número de teléfono o el número de documento,
+   * en una sola consulta que se resuelve con los índices únicos de ambos campos.
+   *
+   * <p>Solo se leen el teléfono y el documento de cada billetera.</p>
+   *
+   * @param phoneNumber número de teléfono a verificar
+   * @param documentNumber número de documento a verificar
+   * @return un {@link Flux} que emite como máximo dos billeteras coincidentes
+   */
+  @Query(value = "{ '$or': [ { 'phoneNumber': ?0 }, { 'documentNumber': ?1 } ] }",
+    fields = "{ 'phoneNumber': 1, 'documentNumber': 1 }")
+  Flux<YankiWallet> findByPhoneNumberOrDocumentNumber(String phoneNumber, String documentNumber);
+}
@@ -0,0 +1,38 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.math.BigDecimal;
+import reactor.core.publisher.Mono;
+
+/**
+ * Operaciones atómicas sobre el saldo de billeteras Yanki.
+ *
+ * <p>Cada operación modifica el saldo directamente en MongoDB con {@code findAndModify}
+ * y {@code $inc}, sin leer y reescribir el documento completo, de modo que los pagos
+ * concurrentes sobre la misma billetera no pierden actualizaciones. También incrementan
+ * la versión y actualizan {@code updatedAt}, igual que los métodos de dominio.</p>
+ *
+ */
+public interface YankiWalletRepositoryCustom {
+
+  /**
+   * Descuenta un monto del saldo solo si la billetera tiene saldo suficiente.
+   *
+   * <p>La verificación y el descuento se realizan en una única operación.</p>
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param amount monto a descontar
+   * @return un {@link Mono} con la billetera actualizada, o Mono.empty() si no existe o
+   *     su saldo es insuficiente
+   */
+  Mono<YankiWallet> debitIfSufficient(String phoneNumber, BigDecimal amount);
+
+  /**
+   * Suma un monto al saldo de la billetera.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param amount monto a abonar
+   * @return un {@link Mono} con la billetera actualizada, o Mono.empty() si no existe
+   */
+  Mono<YankiWallet> credit(String phoneNumber, BigDecimal amount);
+}
@@ -0,0 +1,48 @@
+package com.bank.yanki.domain.repository;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementación de {@link YankiWalletRepositoryCustom} con {@link ReactiveMongoTemplate}.
+ *
+ */
+@RequiredArgsConstructor
+public class YankiWalletRepositoryImpl implements YankiWalletRepositoryCustom {
+
+  private static final FindAndModifyOptions RETURN_NEW =
+    FindAndModifyOptions.options().returnNew(true);
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<YankiWallet> debitIfSufficient(String phoneNumber, BigDecimal amount) {
+    Query query = Query.query(Criteria.where("phoneNumber").is(phoneNumber)
+      .and("balance").gte(new Decimal128(amount)));
+    return mongoTemplate.findAndModify(query, balanceUpdate(amount.negate()), RETURN_NEW,
+      YankiWallet.class);
+  }
+
+  @Override
+  public Mono<YankiWallet> credit(String phoneNumber, BigDecimal amount) {
+    Query query = Query.query(Criteria.where("phoneNumber").is(phoneNumber));
+    return mongoTemplate.findAndModify(query, balanceUpdate(amount), RETURN_NEW,
+      YankiWallet.class);
+  }
+
+  private static Update balanceUpdate(BigDecimal delta) {
+    return new Update()
+      .inc("balance", new Decimal128(delta))
+      .inc("version", 1)
+      .set("updatedAt", LocalDateTime.now());
+  }
+}
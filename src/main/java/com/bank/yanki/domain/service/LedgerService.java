@@ -0,0 +1,250 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.model.BalanceSnapshot;
+import com.bank.yanki.domain.model.LedgerEntry;
+import com.bank.yanki.domain.model.PendingLedgerWrite;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.domain.repository.BalanceSnapshotRepository;
+import com.bank.yanki.domain.repository.LedgerEntryRepository;
+import com.bank.yanki.domain.repository.PendingLedgerWriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Servicio del libro mayor de saldos de billeteras.
+ *
+ * <p>Cada cambio de saldo añade una entrada con signo en {@code yanki_ledger}. Cada
+ * {@code app.ledger.snapshot-interval} versiones de una billetera, y al crearla, se guarda
+ * una instantánea de su saldo. El saldo en un instante se obtiene de la instantánea
+ * anterior más cercana sumando solo las entradas entre ambos, sin recorrer todo el
+ * historial.</p>
+ *
+ * <p>Fuera de una transacción de MongoDB, {@link #recordDurably} reintenta las entradas
+ * que no pudieron escribirse y, si siguen fallando, las guarda en
+ * {@link PendingLedgerWrite} para que {@code LedgerRetryJob} las escriba más tarde. Solo
+ * falla si tampoco pueden guardarse; mientras tanto, el saldo en un instante posterior al
+ * cambio no las incluye. {@link #deferRecord} aplaza del mismo modo el registro de una
+ * transferencia confirmada.</p>
+ *
+ * <p>Métricas: escrituras del libro mayor aplazadas ({@code yanki.ledger.deferred}).</p>
+ *
+ */
+@Slf4j
+@Service
+public class LedgerService {
+
+  private final LedgerEntryRepository ledgerRepository;
+  private final BalanceSnapshotRepository snapshotRepository;
+  private final PendingLedgerWriteRepository pendingRepository;
+  private final Counter deferredCounter;
+  private final long snapshotInterval;
+  private final int writeRetries;
+
+  /**
+   * Construye el servicio con la frecuencia de instantáneas configurada.
+   *
+   * @param ledgerRepository repositorio del libro mayor
+   * @param snapshotRepository repositorio de instantáneas
+   * @param pendingRepository repositorio de escrituras aplazadas
+   * @param meterRegistry registro de métricas
+   * @param snapshotInterval versiones de una billetera entre dos instantáneas
+   * @param writeRetries reintentos inmediatos antes de aplazar una escritura
+   */
+  public LedgerService(LedgerEntryRepository ledgerRepository,
+                       BalanceSnapshotRepository snapshotRepository,
+                       PendingLedgerWriteRepository pendingRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.ledger.snapshot-interval:100}") long snapshotInterval,
+                       @Value("${app.ledger.write-retries:3}") int writeRetries) {
+    this.ledgerRepository = ledgerRepository;
+    this.snapshotRepository = snapshotRepository;
+    this.pendingRepository = pendingRepository;
+    this.deferredCounter = meterRegistry.counter("yanki.ledger.deferred");
+    this.snapshotInterval = snapshotInterval;
+    this.writeRetries = writeRetries;
+  }
+
+  /**
+   * Construye la entrada de un cambio de saldo ya aplicado.
+   *
+   * @param wallet la billetera tras el cambio
+   * @param amount el importe con signo del cambio
+   * @param transactionId identificador de la transacción, o null
+   * @param reason motivo del cambio
+   * @return la entrada
+   */
+  public static LedgerEntry entryFor(YankiWallet wallet, BigDecimal amount,
+                                     String transactionId, LedgerEntry.Reason reason) {
+    return LedgerEntry.builder()
+      .walletId(wallet.getId())
+      .phoneNumber(wallet.getPhoneNumber())
+      .version(wallet.currentVersion())
+      .amount(amount)
+      .transactionId(transactionId)
+      .reason(reason)
+      .createdAt(wallet.getUpdatedAt())
+      .build();
+  }
+
+  /**
+   * Inserta las entradas de los cambios de saldo y las instantáneas que correspondan.
+   *
+   * <p>Las entradas se insertan con una sola operación. Dentro de una transacción de
+   * MongoDB, entradas e instantáneas se confirman junto con los cambios de saldo.</p>
+   *
+   * @param wallets las billeteras tras cada cambio, en el orden de {@code entries}
+   * @param entries las entradas a insertar
+   * @return Mono que completa cuando todo queda guardado
+   */
+  public Mono<Void> record(List<YankiWallet> wallets, List<LedgerEntry> entries) {
+    List<BalanceSnapshot> snapshots = snapshotsOf(wallets);
+    Mono<Void> inserted = ledgerRepository.insert(entries).then();
+    return snapshots.isEmpty() ? inserted
+      : inserted.then(snapshotRepository.saveAll(snapshots).then());
+  }
+
+  /**
+   * Inserta las entradas de cambios de saldo ya confirmados sin transacción, sin perderlas
+   * si MongoDB falla.
+   *
+   * <p>Reintenta la escritura hasta {@code app.ledger.write-retries} veces y, si sigue
+   * fallando, la guarda en {@link PendingLedgerWrite} para reintentarla más tarde.</p>
+   *
+   * @param wallets las billeteras tras cada cambio, en el orden de {@code entries}
+   * @param entries las entradas a insertar
+   * @return Mono que completa cuando las entradas quedan escritas o aplazadas, o con el
+   *     error de la escritura si tampoco pudieron aplazarse
+   */
+  public Mono<Void> recordDurably(List<YankiWallet> wallets, List<LedgerEntry> entries) {
+    List<BalanceSnapshot> snapshots = snapshotsOf(wallets);
+    return write(entries, snapshots)
+      .retryWhen(Retry.backoff(writeRetries, Duration.ofMillis(50))
+        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+      .onErrorResume(error -> defer(entries, snapshots, error));
+  }
+
+  /**
+   * Guarda en {@link PendingLedgerWrite} el registro de una transferencia ya confirmada
+   * que no pudo insertarse, para que {@code LedgerRetryJob} lo inserte más tarde.
+   *
+   * @param record el registro de la transacción
+   * @param cause el error de la inserción
+   * @return Mono que completa cuando el registro queda aplazado, o con {@code cause} si
+   *     no pudo aplazarse
+   */
+  public Mono<Void> deferRecord(YankiTransaction record, Throwable cause) {
+    Instant now = Instant.now();
+    PendingLedgerWrite pending = PendingLedgerWrite.builder()
+      .entries(List.of())
+      .snapshots(List.of())
+      .record(record)
+      .createdAt(now)
+      .nextAttemptAt(now)
+      .build();
+    return pendingRepository.insert(pending)
+      .doOnSuccess(saved -> {
+        deferredCounter.increment();
+        log.warn("Transaction record {} deferred: {}", record.getTransactionId(),
+          cause.getMessage());
+      })
+      .onErrorMap(error -> cause)
+      .then();
+  }
+
+  /**
+   * Escribe entradas e instantáneas de forma que repetir la escritura no las duplica: una
+   * entrada cuya versión ya está en el libro mayor se da por escrita.
+   *
+   * @param entries las entradas a insertar
+   * @param snapshots las instantáneas a guardar
+   * @return Mono que completa cuando todo queda guardado
+   */
+  public Mono<Void> write(List<LedgerEntry> entries, List<BalanceSnapshot> snapshots) {
+    Mono<Void> inserted = Flux.fromIterable(entries)
+      .concatMap(entry -> ledgerRepository.insert(entry)
+        // Un intento anterior ya la insertó
+        .onErrorResume(DuplicateKeyException.class, error -> Mono.empty()))
+      .then();
+    return snapshots.isEmpty() ? inserted
+      : inserted.then(snapshotRepository.saveAll(snapshots).then());
+  }
+
+  /**
+   * Guarda la instantánea del saldo actual de una billetera.
+   *
+   * @param wallet la billetera
+   * @return Mono con la instantánea guardada
+   */
+  public Mono<BalanceSnapshot> snapshot(YankiWallet wallet) {
+    return snapshotRepository.save(BalanceSnapshot.of(wallet));
+  }
+
+  /**
+   * Calcula el saldo de una billetera en un instante.
+   *
+   * <p>Parte de la instantánea más reciente anterior al instante y suma las entradas
+   * posteriores a ella. El libro mayor empieza en la primera instantánea de la billetera
+   * (su creación o la línea base de la migración), de modo que antes de ella no hay
+   * saldo conocido.</p>
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param at instante consultado
+   * @return Mono con el saldo, o vacío si no hay instantáneas anteriores al instante
+   */
+  public Mono<BigDecimal> balanceAt(String phoneNumber, LocalDateTime at) {
+    return snapshotRepository
+      .findFirstByPhoneNumberAndAsOfLessThanEqualOrderByAsOfDesc(phoneNumber, at)
+      .flatMap(snapshot -> amounts(ledgerRepository
+          .findByPhoneNumberAndVersionGreaterThanAndCreatedAtLessThanEqual(phoneNumber,
+            snapshot.getVersion(), at))
+        .reduce(snapshot.getBalance(), BigDecimal::add))
+      .doOnSuccess(balance -> log.debug("Balance of {} at {}: {}", phoneNumber, at, balance));
+  }
+
+  private List<BalanceSnapshot> snapshotsOf(List<YankiWallet> wallets) {
+    return wallets.stream()
+      .filter(wallet -> wallet.currentVersion() % snapshotInterval == 0)
+      .map(BalanceSnapshot::of)
+      .toList();
+  }
+
+  private Mono<Void> defer(List<LedgerEntry> entries, List<BalanceSnapshot> snapshots,
+                           Throwable cause) {
+    Instant now = Instant.now();
+    PendingLedgerWrite pending = PendingLedgerWrite.builder()
+      .entries(entries)
+      .snapshots(snapshots)
+      .createdAt(now)
+      .nextAttemptAt(now)
+      .build();
+    return pendingRepository.insert(pending)
+      .doOnSuccess(saved -> {
+        deferredCounter.increment();
+        log.warn("Ledger entries deferred for transaction {}: {}",
+          entries.get(0).getTransactionId(), cause.getMessage());
+      })
+      .onErrorMap(error -> {
+        log.error("Ledger entries for transaction {} neither written nor deferred: {}",
+          entries.get(0).getTransactionId(), error.getMessage());
+        return cause;
+      })
+      .then();
+  }
+
+  private static Flux<BigDecimal> amounts(Flux<LedgerEntry> entries) {
+    return entries.map(LedgerEntry::getAmount);
+  }
+}
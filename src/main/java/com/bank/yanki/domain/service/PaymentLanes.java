@@ -0,0 +1,173 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.exception.PaymentLaneFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Carriles de ejecución de pagos por billetera.
+ *
+ * <p>Cada pago se encola en el carril de la billetera que paga, elegido por su teléfono
+ * entre {@code app.payments.lanes.count} carriles. Un carril ejecuta sus pagos de uno en
+ * uno y en orden de llegada, sin bloqueos, de modo que dos pagos de la misma billetera
+ * nunca leen ni descuentan su saldo a la vez; carriles distintos se ejecutan en
+ * paralelo.</p>
+ *
+ * <p>Cada carril admite hasta {@code app.payments.lanes.capacity} pagos en espera,
+ * redondeado a la siguiente potencia de dos (como mínimo 8); con el carril lleno el pago
+ * se rechaza con {@link PaymentLaneFullException} en lugar de ejecutarse fuera de orden.
+ * Un pago no debe esperar a otro pago encolado, que podría estar detrás de él en el
+ * mismo carril.</p>
+ *
+ * <p>Un carril espera a cada pago como mucho {@code app.payments.lanes.payment-timeout}.
+ * Pasado ese plazo sigue con el siguiente pago sin cancelar el que tarda, que podría
+ * estar entre el descuento y el abono: ese pago termina por su cuenta y entrega su
+ * resultado igualmente. Mientras tanto dos pagos de la billetera pueden solaparse, lo
+ * que no compromete el saldo porque el descuento es condicional.</p>
+ *
+ * <p>Métricas: pagos en espera por carril ({@code yanki.payment.lane.depth}), pagos
+ * rechazados por carril lleno ({@code yanki.payment.lane.rejected}) y pagos que
+ * superaron el plazo del carril ({@code yanki.payment.lane.timeouts}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class PaymentLanes {
+
+  private final MeterRegistry meterRegistry;
+  private final Lane[] lanes;
+  private final Duration paymentTimeout;
+
+  /**
+   * Construye los carriles con la configuración indicada.
+   *
+   * @param meterRegistry registro de métricas
+   * @param count número de carriles
+   * @param capacity máximo de pagos en espera por carril
+   * @param paymentTimeout tiempo máximo que un carril espera a un pago
+   */
+  public PaymentLanes(MeterRegistry meterRegistry,
+                      @Value("${app.payments.lanes.count:32}") int count,
+                      @Value("${app.payments.lanes.capacity:1000}") int capacity,
+                      @Value("${app.payments.lanes.payment-timeout:10s}")
+                      Duration paymentTimeout) {
+    this.meterRegistry = meterRegistry;
+    this.paymentTimeout = paymentTimeout;
+    this.lanes = new Lane[count];
+    for (int index = 0; index < count; index++) {
+      Lane lane = new Lane(capacity);
+      Gauge.builder("yanki.payment.lane.depth", lane.depth, AtomicInteger::get)
+        .tag("lane", String.valueOf(index))
+        .register(meterRegistry);
+      lanes[index] = lane;
+    }
+  }
+
+  /**
+   * Inicia el consumo de los carriles.
+   */
+  @PostConstruct
+  public void start() {
+    for (Lane lane : lanes) {
+      lane.queue.asFlux()
+        // Sin prefetch: los pagos en espera quedan en la cola, que es la que tiene límite
+        .concatMap(pending -> pending.run(paymentTimeout)
+          .onErrorResume(TimeoutException.class, error -> {
+            meterRegistry.counter("yanki.payment.lane.timeouts").increment();
+            log.warn("Payment lane released after {} with a payment still running",
+              paymentTimeout);
+            return Mono.empty();
+          }), 0)
+        .subscribe();
+    }
+  }
+
+  /**
+   * Ejecuta un pago en el carril de la billetera, después de los pagos ya encolados en
+   * él.
+   *
+   * @param phoneNumber número de teléfono de la billetera que paga
+   * @param payment proveedor del pago; se invoca cuando le toca su turno
+   * @param <T> tipo del resultado
+   * @return Mono con el resultado del pago, o error {@link PaymentLaneFullException} si
+   *     el carril está lleno
+   */
+  public <T> Mono<T> submit(String phoneNumber, Supplier<Mono<T>> payment) {
+    return Mono.defer(() -> {
+      Lane lane = lanes[Math.floorMod(phoneNumber.hashCode(), lanes.length)];
+      PendingPayment<T> pending = new PendingPayment<>(payment, lane.depth);
+      lane.depth.incrementAndGet();
+      Sinks.EmitResult result = emit(lane.queue, pending);
+      if (result.isFailure()) {
+        lane.depth.decrementAndGet();
+        meterRegistry.counter("yanki.payment.lane.rejected").increment();
+        log.warn("Payment lane full for wallet {}", phoneNumber);
+        return Mono.error(new PaymentLaneFullException(phoneNumber));
+      }
+      return pending.completion.asMono();
+    });
+  }
+
+  /**
+   * Emite en la cola reintentando solo mientras otro hilo está emitiendo a la vez.
+   */
+  private static Sinks.EmitResult emit(Sinks.Many<PendingPayment<?>> queue,
+                                       PendingPayment<?> pending) {
+    Sinks.EmitResult result;
+    do {
+      result = queue.tryEmitNext(pending);
+    } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    return result;
+  }
+
+  private static final class Lane {
+    private final Sinks.Many<PendingPayment<?>> queue;
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private Lane(int capacity) {
+      this.queue = Sinks.many().unicast()
+        .onBackpressureBuffer(Queues.<PendingPayment<?>>get(capacity).get());
+    }
+  }
+
+  private static final class PendingPayment<T> {
+    private final Supplier<Mono<T>> payment;
+    private final AtomicInteger depth;
+    private final Sinks.One<T> completion = Sinks.one();
+
+    private PendingPayment(Supplier<Mono<T>> payment, AtomicInteger depth) {
+      this.payment = payment;
+      this.depth = depth;
+    }
+
+    /**
+     * Ejecuta el pago y entrega su resultado; los errores no detienen el carril.
+     *
+     * <p>El pago se suscribe aparte del carril, de modo que agotar el plazo libera el
+     * carril con {@link TimeoutException} sin cancelar el pago.</p>
+     */
+    private Mono<Void> run(Duration timeout) {
+      return Mono.defer(() -> {
+        Mono.defer(payment)
+          .doFinally(signal -> depth.decrementAndGet())
+          .subscribe(completion::tryEmitValue, completion::tryEmitError,
+            completion::tryEmitEmpty);
+        return completion.asMono()
+          .onErrorResume(error -> Mono.empty())
+          .then()
+          .timeout(timeout);
+      });
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Servicio de consulta del historial de transacciones de una billetera.
+ *
+ * <p>Une las transacciones enviadas y recibidas, de la más reciente a la más antigua.
+ * Las páginas se recorren con un cursor opaco que codifica la fecha y el identificador
+ * de la última transacción entregada; la exportación recorre el historial completo sin
+ * acumularlo en memoria.</p>
+ *
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryService {
+
+  private static final String CURSOR_SEPARATOR = "|";
+
+  private final YankiTransactionRepository transactionRepository;
+
+  /**
+   * Obtiene una página del historial.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param cursor cursor devuelto por la página anterior, o null para la primera
+   * @param limit máximo de transacciones de la página
+   * @return Mono con la página, o error {@link IllegalArgumentException} si el cursor no
+   *     es válido
+   */
+  public Mono<Page> findPage(String phoneNumber, String cursor, int limit) {
+    return Mono.fromCallable(() -> decodeCursor(cursor))
+      .flatMap(position -> transactionRepository.findHistory(phoneNumber,
+          position != null ? position.date : null,
+          position != null ? position.id : null,
+          limit + 1)
+        .collectList())
+      .map(transactions -> {
+        if (transactions.size() <= limit) {
+          return new Page(transactions, null);
+        }
+        List<YankiTransaction> items = transactions.subList(0, limit);
+        return new Page(items, encodeCursor(items.get(limit - 1)));
+      })
+      .doOnError(error -> log.error("Error retrieving transaction history: {}",
+        error.getMessage()));
+  }
+
+  /**
+   * Recorre el historial completo a medida que se consume.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @return Flux con todas las transacciones de la billetera
+   */
+  public Flux<YankiTransaction> exportHistory(String phoneNumber) {
+    return transactionRepository.findHistory(phoneNumber, null, null, 0);
+  }
+
+  private static String encodeCursor(YankiTransaction last) {
+    String position = last.getTransactionDate() + CURSOR_SEPARATOR + last.getId();
+    return Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Position decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String position = new String(Base64.getUrlDecoder().decode(cursor),
+        StandardCharsets.UTF_8);
+      int separator = position.indexOf(CURSOR_SEPARATOR);
+      return new Position(LocalDateTime.parse(position.substring(0, separator)),
+        position.substring(separator + 1));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException
+             | DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid transaction history cursor", e);
+    }
+  }
+
+  private static final class Position {
+    private final LocalDateTime date;
+    private final String id;
+
+    private Position(LocalDateTime date, String id) {
+      this.date = date;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Página del historial.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Page {
+    private final List<YankiTransaction> items;
+    private final String nextCursor;
+  }
+}
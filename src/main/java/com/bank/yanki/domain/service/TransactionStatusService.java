@@ -0,0 +1,175 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.application.event.TransactionStatusChangedEvent;
+import com.bank.yanki.domain.model.Transaction;
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.repository.TransactionStatusRepository;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.infrastructure.messaging.KafkaEventProducer;
+import com.bank.yanki.model.TransactionStatusEnum;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Servicio de estado de los pagos.
+ *
+ * <p>Los pagos guardan su estado en {@code yanki_transaction_status}: los que requieren
+ * validación de crédito, PENDING al enviar la consulta y COMPLETED o FAILED al
+ * resolverse; los inmediatos, COMPLETED al confirmarse. Los pagos anteriores a estos
+ * registros se consultan en el historial de transacciones.</p>
+ *
+ * <p>Cada cambio de estado se publica en un sink multicast compartido por todas las
+ * suscripciones de la instancia. Cada suscripción almacena hasta
+ * {@code app.transactions.status.stream-buffer} cambios y, si no los consume a tiempo,
+ * descarta los más antiguos sin frenar a las demás. Los cambios se difunden además por
+ * Kafka a las demás instancias ({@link #onRemoteStatusChanged}), de modo que una
+ * suscripción recibe también los pagos resueltos en otra instancia.</p>
+ *
+ * <p>Métricas: suscripciones activas ({@code yanki.transactions.status.subscribers}).</p>
+ *
+ */
+@Slf4j
+@Service
+public class TransactionStatusService {
+
+  private final TransactionStatusRepository statusRepository;
+  private final YankiTransactionRepository transactionRepository;
+  private final KafkaEventProducer eventProducer;
+  private final Sinks.Many<TransactionStatusRecord> changes =
+    Sinks.many().multicast().directBestEffort();
+  private final String nodeId = UUID.randomUUID().toString();
+
+  @Value("${app.transactions.status.stream-buffer:256}")
+  private int streamBuffer;
+
+  /**
+   * Construye el servicio.
+   *
+   * @param statusRepository repositorio de estados
+   * @param transactionRepository repositorio del historial de transacciones
+   * @param eventProducer productor de eventos Kafka
+   * @param meterRegistry registro de métricas
+   */
+  public TransactionStatusService(TransactionStatusRepository statusRepository,
+                                  YankiTransactionRepository transactionRepository,
+                                  KafkaEventProducer eventProducer,
+                                  MeterRegistry meterRegistry) {
+    this.statusRepository = statusRepository;
+    this.transactionRepository = transactionRepository;
+    this.eventProducer = eventProducer;
+    Gauge.builder("yanki.transactions.status.subscribers", changes,
+        Sinks.Many::currentSubscriberCount)
+      .register(meterRegistry);
+  }
+
+  /**
+   * Guarda el estado de un pago y lo publica.
+   *
+   * <p>Un estado PENDING solo se guarda si el pago aún no tiene estado, de modo que nunca
+   * reemplaza a un resultado que llegó antes. Los fallos se registran sin propagarse: el
+   * pago no depende de su estado.</p>
+   *
+   * <p>El cambio se difunde a las demás instancias sin esperar a Kafka; si no llega, sus
+   * suscripciones no lo reciben, pero el estado guardado sigue disponible para
+   * consultarlo.</p>
+   *
+   * @param record el estado del pago
+   * @return Mono que completa cuando el estado queda guardado
+   */
+  public Mono<Void> record(TransactionStatusRecord record) {
+    Mono<TransactionStatusRecord> saved = record.getStatus() == TransactionStatusEnum.PENDING
+      ? statusRepository.insert(record)
+        .onErrorResume(DuplicateKeyException.class, error -> Mono.empty())
+      : statusRepository.save(record);
+    return saved
+      .doOnNext(this::publish)
+      .doOnNext(this::broadcast)
+      .onErrorResume(error -> {
+        log.error("Status of transaction {} not saved: {}", record.getId(),
+          error.getMessage());
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  /**
+   * Busca un pago por el identificador devuelto al enviarlo.
+   *
+   * @param transactionId identificador de la transacción
+   * @return Mono con la transacción y su estado, o vacío si no existe
+   */
+  public Mono<Transaction> findTransaction(String transactionId) {
+    return statusRepository.findById(transactionId)
+      .map(TransactionStatusRecord::toTransaction)
+      .switchIfEmpty(Mono.defer(() -> transactionRepository.findByTransactionId(transactionId)
+        .map(TransactionStatusService::toTransaction)));
+  }
+
+  /**
+   * Cambios de estado de los pagos de una billetera, desde la suscripción.
+   *
+   * @param phoneNumber número de teléfono de la billetera, remitente o destinataria
+   * @return Flux infinito con cada pago de la billetera que cambia de estado
+   */
+  public Flux<Transaction> changes(String phoneNumber) {
+    return changes.asFlux()
+      .filter(record -> phoneNumber.equals(record.getFromPhoneNumber())
+        || phoneNumber.equals(record.getToPhoneNumber()))
+      .map(TransactionStatusRecord::toTransaction)
+      .onBackpressureBuffer(streamBuffer,
+        dropped -> log.debug("Status change dropped for slow subscriber: {}", dropped.getId()),
+        BufferOverflowStrategy.DROP_OLDEST);
+  }
+
+  /**
+   * Entrega a las suscripciones de esta instancia un cambio de estado guardado en otra.
+   *
+   * @param event el cambio de estado recibido por Kafka
+   */
+  public void onRemoteStatusChanged(TransactionStatusChangedEvent event) {
+    if (nodeId.equals(event.getSourceNode()) || event.getStatus() == null) {
+      return;
+    }
+    publish(event.getStatus());
+  }
+
+  private void broadcast(TransactionStatusRecord record) {
+    eventProducer.sendTransactionStatusChanged(TransactionStatusChangedEvent.builder()
+        .status(record)
+        .sourceNode(nodeId)
+        .build())
+      .onErrorResume(error -> Mono.empty())
+      .subscribe();
+  }
+
+  private void publish(TransactionStatusRecord record) {
+    Sinks.EmitResult result;
+    do {
+      result = changes.tryEmitNext(record);
+    } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+  }
+
+  private static Transaction toTransaction(YankiTransaction transaction) {
+    return Transaction.builder()
+      .id(transaction.getTransactionId())
+      .fromWalletId(transaction.getFromWalletId())
+      .toWalletId(transaction.getToWalletId())
+      .fromPhoneNumber(transaction.getFromPhoneNumber())
+      .toPhoneNumber(transaction.getToPhoneNumber())
+      .amount(transaction.getAmount())
+      .description(transaction.getDescription())
+      .status(transaction.getStatus())
+      .transactionDate(transaction.getTransactionDate())
+      .build();
+  }
+}
@@ -0,0 +1,293 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.exception.MigrationPendingException;
+import com.bank.yanki.domain.exception.WalletNotFoundException;
+import com.bank.yanki.domain.model.LedgerEntry;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.domain.repository.YankiWalletRepository;
+import com.bank.yanki.infrastructure.persistence.MigrationStatus;
+import com.bank.yanki.infrastructure.persistence.TransactionBatchWriter;
+import com.mongodb.MongoException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Confirma en MongoDB los cambios de una transferencia: descuento al remitente, abono al
+ * destinatario, registro en {@code yanki_transactions} y entradas del libro mayor
+ * ({@link LedgerService}).
+ *
+ * <p>Con {@code app.payments.transactional-commit=true} todos los cambios se aplican en
+ * una única transacción multi-documento: o se confirman todos o ninguno. Los errores
+ * transitorios de transacción se reintentan. Requiere que MongoDB se ejecute como
+ * replica set.</p>
+ *
+ * <p>Por defecto los cambios se aplican en secuencia y, si el abono falla tras el
+ * descuento, el descuento se revierte. Una vez aplicados descuento y abono la
+ * transferencia queda confirmada y ya no falla: el registro se inserta con
+ * {@link TransactionBatchWriter}, agrupado con los de otras transferencias, y si falla se
+ * aplaza con {@link LedgerService#deferRecord}; las entradas del libro mayor se escriben a
+ * la vez con {@link LedgerService#recordDurably}, que las reintenta más tarde si MongoDB
+ * falla. Si tampoco pueden aplazarse, el fallo solo se registra en el log.</p>
+ *
+ * <p>Las transferencias con descuento se rechazan con {@link MigrationPendingException}
+ * hasta que terminan las migraciones de datos ({@link MigrationStatus}): antes, los saldos
+ * guardados como texto no cumplirían el filtro de saldo suficiente.</p>
+ *
+ * <p>La caché no se actualiza aquí: el llamador debe escribir las billeteras devueltas
+ * una vez confirmados los cambios.</p>
+ *
+ */
+@Slf4j
+@Component
+public class TransferCommitter {
+
+  private static final String TRANSIENT_TRANSACTION_ERROR = "TransientTransactionError";
+
+  private final YankiWalletRepository walletRepository;
+  private final YankiTransactionRepository transactionRepository;
+  private final TransactionBatchWriter batchWriter;
+  private final LedgerService ledgerService;
+  private final TransactionalOperator transactionalOperator;
+  private final MigrationStatus migrationStatus;
+  private final boolean transactional;
+  private final int transactionRetries;
+
+  /**
+   * Construye el componente con el modo de confirmación configurado.
+   *
+   * @param walletRepository repositorio de billeteras
+   * @param transactionRepository repositorio de transacciones
+   * @param batchWriter escritor por lotes de registros de transacción
+   * @param ledgerService servicio del libro mayor
+   * @param transactionalOperator operador de transacciones reactivas de MongoDB
+   * @param migrationStatus estado de las migraciones de datos
+   * @param transactional si los cambios se aplican en una transacción multi-documento
+   * @param transactionRetries reintentos ante errores transitorios de transacción
+   */
+  public TransferCommitter(
+    YankiWalletRepository walletRepository,
+    YankiTransactionRepository transactionRepository,
+    TransactionBatchWriter batchWriter,
+    LedgerService ledgerService,
+    TransactionalOperator transactionalOperator,
+    MigrationStatus migrationStatus,
+    @Value("${app.payments.transactional-commit:false}") boolean transactional,
+    @Value("${app.payments.transaction-retries:3}") int transactionRetries) {
+    this.walletRepository = walletRepository;
+    this.transactionRepository = transactionRepository;
+    this.batchWriter = batchWriter;
+    this.ledgerService = ledgerService;
+    this.transactionalOperator = transactionalOperator;
+    this.migrationStatus = migrationStatus;
+    this.transactional = transactional;
+    this.transactionRetries = transactionRetries;
+  }
+
+  /**
+   * Aplica los cambios de la transferencia.
+   *
+   * @param transfer los cambios a aplicar
+   * @return Mono con las billeteras y el registro resultantes, vacío si el remitente no
+   *     tiene saldo suficiente (en cuyo caso no se aplica ningún cambio), o error
+   *     {@link WalletNotFoundException} si no existe la billetera a abonar o
+   *     {@link MigrationPendingException} si hay descuento y las migraciones no terminaron
+   */
+  public Mono<Result> commit(Transfer transfer) {
+    if (transfer.getDebitPhoneNumber() != null && !migrationStatus.isCompleted()) {
+      return Mono.error(new MigrationPendingException("debits"));
+    }
+    if (!transactional) {
+      return applySequentially(transfer);
+    }
+    return transactionalOperator.transactional(applyInTransaction(transfer))
+      .retryWhen(Retry.backoff(transactionRetries, Duration.ofMillis(20))
+        .filter(TransferCommitter::isTransientTransactionError))
+      .doOnError(error -> log.error("Transfer transaction aborted: {}", error.getMessage()));
+  }
+
+  /**
+   * Indica si los cambios se aplican en una transacción multi-documento.
+   *
+   * @return true si la confirmación es transaccional
+   */
+  public boolean isTransactional() {
+    return transactional;
+  }
+
+  private Mono<Result> applyInTransaction(Transfer transfer) {
+    return debit(transfer)
+      .flatMap(debited -> credit(transfer)
+        .flatMap(credited -> insertRecord(transfer)
+          .flatMap(record -> recordLedger(transfer, debited.orElse(null),
+              credited.orElse(null), false)
+            .thenReturn(new Result(debited.orElse(null), credited.orElse(null), record)))));
+  }
+
+  private Mono<Result> applySequentially(Transfer transfer) {
+    return debit(transfer)
+      .flatMap(debited -> credit(transfer)
+        .onErrorResume(error -> revertDebit(transfer, debited.orElse(null))
+          .then(Mono.error(error)))
+        .flatMap(credited -> recordCommitted(transfer, debited.orElse(null),
+            credited.orElse(null))
+          .thenReturn(new Result(debited.orElse(null), credited.orElse(null),
+            Optional.ofNullable(transfer.getRecord())))));
+  }
+
+  /**
+   * Escribe el registro y las entradas del libro mayor de una transferencia cuyo saldo ya
+   * cambió. Nunca falla: cada escritura se aplaza o, si tampoco es posible, se registra
+   * en el log, de modo que el llamador no trate como fallida una transferencia aplicada.
+   */
+  private Mono<Void> recordCommitted(Transfer transfer, YankiWallet debited,
+                                     YankiWallet credited) {
+    YankiTransaction record = transfer.getRecord();
+    Mono<Void> recorded = record == null ? Mono.empty()
+      : batchWriter.write(record)
+        .then()
+        .onErrorResume(error -> ledgerService.deferRecord(record, error))
+        .onErrorResume(error -> {
+          log.error("Transaction record {} lost: {}", record.getTransactionId(),
+            error.getMessage());
+          return Mono.empty();
+        });
+    Mono<Void> ledger = recordLedger(transfer, debited, credited, true)
+      .onErrorResume(error -> {
+        log.error("Ledger entries for transaction {} lost: {}", transactionIdOf(transfer),
+          error.getMessage());
+        return Mono.empty();
+      });
+    return Mono.when(recorded, ledger);
+  }
+
+  private Mono<Optional<YankiWallet>> debit(Transfer transfer) {
+    if (transfer.getDebitPhoneNumber() == null) {
+      return Mono.just(Optional.empty());
+    }
+    return walletRepository.debitIfSufficient(transfer.getDebitPhoneNumber(),
+        transfer.getAmount())
+      .map(Optional::of);
+  }
+
+  private Mono<Optional<YankiWallet>> credit(Transfer transfer) {
+    if (transfer.getCreditPhoneNumber() == null) {
+      return Mono.just(Optional.empty());
+    }
+    return walletRepository.credit(transfer.getCreditPhoneNumber(), transfer.getAmount())
+      .map(Optional::of)
+      .switchIfEmpty(Mono.error(() -> new WalletNotFoundException(
+        "Wallet not found with phone number: " + transfer.getCreditPhoneNumber())));
+  }
+
+  private Mono<Optional<YankiTransaction>> insertRecord(Transfer transfer) {
+    if (transfer.getRecord() == null) {
+      return Mono.just(Optional.empty());
+    }
+    // Dentro de una transacción el registro debe insertarse en la misma sesión
+    return transactionRepository.insertRecord(transfer.getRecord()).map(Optional::of);
+  }
+
+  /**
+   * Inserta las entradas del libro mayor. Fuera de una transacción se escriben con
+   * {@link LedgerService#recordDurably}: el saldo ya cambió y las entradas no pueden
+   * perderse.
+   */
+  private Mono<Void> recordLedger(Transfer transfer, YankiWallet debited,
+                                  YankiWallet credited, boolean durably) {
+    List<YankiWallet> wallets = new ArrayList<>(2);
+    List<LedgerEntry> entries = new ArrayList<>(2);
+    if (debited != null) {
+      wallets.add(debited);
+      entries.add(LedgerService.entryFor(debited, transfer.getAmount().negate(),
+        transactionIdOf(transfer), LedgerEntry.Reason.DEBIT));
+    }
+    if (credited != null) {
+      wallets.add(credited);
+      entries.add(LedgerService.entryFor(credited, transfer.getAmount(),
+        transactionIdOf(transfer), LedgerEntry.Reason.CREDIT));
+    }
+    if (entries.isEmpty()) {
+      return Mono.empty();
+    }
+    return durably ? ledgerService.recordDurably(wallets, entries)
+      : ledgerService.record(wallets, entries);
+  }
+
+  private Mono<Void> revertDebit(Transfer transfer, YankiWallet debited) {
+    if (debited == null) {
+      return Mono.empty();
+    }
+    log.warn("Reverting debit of {} for phone: {}", transfer.getAmount(),
+      debited.getPhoneNumber());
+    return walletRepository.credit(debited.getPhoneNumber(), transfer.getAmount())
+      .flatMap(reverted -> ledgerService.recordDurably(List.of(debited, reverted), List.of(
+          LedgerService.entryFor(debited, transfer.getAmount().negate(),
+            transactionIdOf(transfer), LedgerEntry.Reason.DEBIT),
+          LedgerService.entryFor(reverted, transfer.getAmount(),
+            transactionIdOf(transfer), LedgerEntry.Reason.REVERSAL)))
+        .onErrorResume(error -> {
+          log.error("Ledger reversal not recorded for phone {}: {}",
+            debited.getPhoneNumber(), error.getMessage());
+          return Mono.empty();
+        }));
+  }
+
+  private static String transactionIdOf(Transfer transfer) {
+    return transfer.getRecord() != null ? transfer.getRecord().getTransactionId() : null;
+  }
+
+  private static boolean isTransientTransactionError(Throwable error) {
+    Throwable cause = error;
+    while (cause != null) {
+      if (cause instanceof MongoException mongoException
+        && mongoException.hasErrorLabel(TRANSIENT_TRANSACTION_ERROR)) {
+        return true;
+      }
+      cause = cause.getCause();
+    }
+    return false;
+  }
+
+  /**
+   * Cambios de una transferencia. Cualquiera de las partes puede omitirse, por ejemplo
+   * cuando el destinatario recibe el dinero en su tarjeta en lugar de en la billetera.
+   */
+  @Getter
+  @Builder
+  public static class Transfer {
+    private final String debitPhoneNumber;
+    private final String creditPhoneNumber;
+    private final BigDecimal amount;
+    private final YankiTransaction record;
+  }
+
+  /**
+   * Resultado de una transferencia confirmada. Las partes omitidas son null.
+   */
+  @Getter
+  public static class Result {
+    private final YankiWallet debited;
+    private final YankiWallet credited;
+    private final YankiTransaction record;
+
+    Result(YankiWallet debited, YankiWallet credited,
+           Optional<YankiTransaction> record) {
+      this.debited = debited;
+      this.credited = credited;
+      this.record = record.orElse(null);
+    }
+  }
+}
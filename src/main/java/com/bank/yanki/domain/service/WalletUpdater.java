@@ -0,0 +1,127 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.exception.WalletNotFoundException;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.domain.repository.YankiWalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Aplica cambios a una billetera con control de concurrencia optimista.
+ *
+ * <p>{@link YankiWallet#getVersion()} es la versión del documento: {@code save()} solo
+ * escribe si la versión en MongoDB sigue siendo la leída y, si otra operación la cambió
+ * antes, falla con {@link OptimisticLockingFailureException}. En ese caso la billetera se
+ * vuelve a leer de MongoDB, el cambio se aplica de nuevo y se guarda, hasta
+ * {@code app.wallets.update.max-retries} veces con espera exponencial y aleatoria.</p>
+ *
+ * <p>Métricas: conflictos ({@code yanki.wallet.update.conflicts}) y reintentos
+ * ({@code yanki.wallet.update.retries}), por operación y billetera. Solo las primeras
+ * {@code app.wallets.update.max-tagged-wallets} billeteras con conflictos llevan su
+ * teléfono como etiqueta; el resto se agrupa en {@code other}.</p>
+ *
+ */
+@Slf4j
+@Component
+public class WalletUpdater {
+
+  private static final String OTHER_WALLETS = "other";
+
+  private final YankiWalletRepository walletRepository;
+  private final MeterRegistry meterRegistry;
+  private final Set<String> taggedWallets = ConcurrentHashMap.newKeySet();
+
+  @Value("${app.wallets.update.max-retries:5}")
+  private int maxRetries;
+
+  @Value("${app.wallets.update.min-backoff:10ms}")
+  private Duration minBackoff;
+
+  @Value("${app.wallets.update.max-backoff:200ms}")
+  private Duration maxBackoff;
+
+  @Value("${app.wallets.update.max-tagged-wallets:100}")
+  private int maxTaggedWallets;
+
+  /**
+   * Construye el componente.
+   *
+   * @param walletRepository repositorio de billeteras
+   * @param meterRegistry registro de métricas
+   */
+  public WalletUpdater(YankiWalletRepository walletRepository, MeterRegistry meterRegistry) {
+    this.walletRepository = walletRepository;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Aplica un cambio a la billetera y la guarda, reintentando ante conflictos.
+   *
+   * <p>El primer intento usa la billetera recibida, que puede venir de caché; los
+   * reintentos la leen de MongoDB.</p>
+   *
+   * @param operation nombre de la operación, para las métricas
+   * @param wallet la billetera leída, que se modifica en el primer intento
+   * @param change el cambio a aplicar; debe poder aplicarse más de una vez
+   * @return Mono con la billetera guardada, o el último conflicto si se agotan los
+   *     reintentos
+   */
+  public Mono<YankiWallet> update(String operation, YankiWallet wallet,
+                                  Consumer<YankiWallet> change) {
+    AtomicBoolean firstAttempt = new AtomicBoolean(true);
+    return Mono.defer(() -> current(wallet, firstAttempt.getAndSet(false)))
+      .flatMap(current -> {
+        change.accept(current);
+        return walletRepository.save(current);
+      })
+      .doOnError(OptimisticLockingFailureException.class, error -> {
+        meterRegistry.counter("yanki.wallet.update.conflicts",
+          "operation", operation, "wallet", walletTag(wallet.getPhoneNumber())).increment();
+        log.debug("Version conflict on wallet {} during {}", wallet.getPhoneNumber(),
+          operation);
+      })
+      .retryWhen(Retry.backoff(maxRetries, minBackoff)
+        .maxBackoff(maxBackoff)
+        .jitter(0.5)
+        .filter(OptimisticLockingFailureException.class::isInstance)
+        .doBeforeRetry(signal -> meterRegistry.counter("yanki.wallet.update.retries",
+          "operation", operation, "wallet", walletTag(wallet.getPhoneNumber())).increment())
+        .onRetryExhaustedThrow((spec, signal) -> {
+          log.warn("Wallet {} update {} gave up after {} conflicts", wallet.getPhoneNumber(),
+            operation, signal.totalRetries() + 1);
+          return signal.failure();
+        }));
+  }
+
+  private Mono<YankiWallet> current(YankiWallet wallet, boolean firstAttempt) {
+    if (firstAttempt) {
+      return Mono.just(wallet);
+    }
+    return walletRepository.findByPhoneNumber(wallet.getPhoneNumber())
+      .switchIfEmpty(Mono.error(() -> new WalletNotFoundException(
+        "Wallet not found with phone number: " + wallet.getPhoneNumber())));
+  }
+
+  /**
+   * Etiqueta de billetera de las métricas, con la cardinalidad acotada.
+   */
+  private String walletTag(String phoneNumber) {
+    if (taggedWallets.contains(phoneNumber)) {
+      return phoneNumber;
+    }
+    if (taggedWallets.size() < maxTaggedWallets && taggedWallets.add(phoneNumber)) {
+      return phoneNumber;
+    }
+    return OTHER_WALLETS;
+  }
+}
@@ -7,24 +7,51 @@ import com.bank.yanki.application.event.CreditBalanceResponseEvent;
 import com.bank.yanki.application.event.TransactionConsumptionRequestEvent;
 import com.bank.yanki.application.event.TransactionPaymentRequestEvent;
 import com.bank.yanki.application.event.WalletCreatedEvent;
+import com.bank.yanki.domain.exception.DuplicateRequestException;
+import com.bank.yanki.domain.exception.DuplicateWalletException;
+import com.bank.yanki.domain.exception.IdempotencyKeyReuseException;
+import com.bank.yanki.domain.exception.IdempotencyUnavailableException;
+import com.bank.yanki.domain.exception.IdempotentRequestFailedException;
+import com.bank.yanki.domain.exception.InsufficientBalanceException;
+import com.bank.yanki.domain.exception.MigrationPendingException;
+import com.bank.yanki.domain.exception.PaymentLaneFullException;
 import com.bank.yanki.domain.exception.WalletNotFoundException;
 import com.bank.yanki.domain.model.Transaction;
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import com.bank.yanki.domain.model.WalletBalanceView;
 import com.bank.yanki.domain.model.YankiTransaction;
 import com.bank.yanki.domain.model.YankiWallet;
 import com.bank.yanki.domain.repository.YankiTransactionRepository;
 import com.bank.yanki.domain.repository.YankiWalletRepository;
+import com.bank.yanki.infrastructure.cache.HotKeyTracker;
+import com.bank.yanki.infrastructure.cache.IdempotencyStore;
 import com.bank.yanki.infrastructure.cache.RedisCacheService;
+import com.bank.yanki.infrastructure.cache.RequestCoalescer;
+import com.bank.yanki.infrastructure.messaging.EventOutbox;
 import com.bank.yanki.infrastructure.messaging.KafkaEventProducer;
+import com.bank.yanki.infrastructure.pending.PendingTransactionReplies;
+import com.bank.yanki.infrastructure.pending.PendingTransactionStore;
+import com.bank.yanki.infrastructure.pending.PendingTransactionTimeouts;
 import com.bank.yanki.model.TransactionStatusEnum;
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -41,34 +68,52 @@ import reactor.core.publisher.Mono;
 public class YankiWalletService {
 
   private final YankiWalletRepository walletRepository;
-  private final YankiTransactionRepository yankiTransactionRepository;
   private final KafkaEventProducer eventProducer;
+  private final EventOutbox eventOutbox;
   private final RedisCacheService cacheService;
-  private final ConcurrentHashMap<String, PendingTransaction> pendingTransactions =
-    new ConcurrentHashMap<>();
+  private final RequestCoalescer requestCoalescer;
+  private final HotKeyTracker hotKeyTracker;
+  private final TransferCommitter transferCommitter;
+  private final LedgerService ledgerService;
+  private final WalletUpdater walletUpdater;
+  private final PaymentLanes paymentLanes;
+  private final IdempotencyStore idempotencyStore;
+  private final YankiTransactionRepository transactionRepository;
+  private final PendingTransactionStore pendingStore;
+  private final PendingTransactionTimeouts pendingTimeouts;
+  private final PendingTransactionReplies pendingReplies;
+  private final TransactionStatusService statusService;
+
+  /**
+   * Marca como fallidas las transacciones cuya validación de crédito caduca.
+   */
+  @PostConstruct
+  public void failExpiredTransactions() {
+    pendingTimeouts.expirations()
+      .flatMap(pending -> markFailed(pending, "Credit validation timed out"))
+      .subscribe();
+  }
 
   /**
    * Crea una nueva billetera Yanki.
    *
-   * <p>Este método valida que no existan billeteras con el mismo número de teléfono o documento,
-   * establece valores por defecto para el balance y estado, y publica un evento de creación
-   * via Kafka. Además, almacena la billetera en caché Redis.</p>
+   * <p>Este método valida con una sola consulta que no existan billeteras con el mismo número
+   * de teléfono o documento, establece valores por defecto para el balance y estado, y
+   * publica un evento de creación via Kafka. Además, almacena la billetera en caché
+   * Redis.</p>
    *
    * @param wallet La billetera a crear
    * @return Mono que emite la billetera creada
-   * @throws RuntimeException si ya existe una billetera con el mismo número de teléfono o documento
+   * @throws DuplicateWalletException si ya existe una billetera con el mismo número de teléfono
+   *     o documento
    */
   public Mono<YankiWallet> createWallet(YankiWallet wallet) {
-    return walletRepository.existsByPhoneNumber(wallet.getPhoneNumber())
-      .flatMap(exists -> {
-        if (exists) {
-          return Mono.error(new RuntimeException("Wallet with phone number already exists"));
-        }
-        return walletRepository.existsByDocumentNumber(wallet.getDocumentNumber());
-      })
-      .flatMap(exists -> {
-        if (exists) {
-          return Mono.error(new RuntimeException("Wallet with document number already exists"));
+    return walletRepository.findByPhoneNumberOrDocumentNumber(wallet.getPhoneNumber(),
+        wallet.getDocumentNumber())
+      .collectList()
+      .flatMap(existing -> {
+        if (!existing.isEmpty()) {
+          return Mono.error(duplicateOf(wallet, existing));
         }
         if (wallet.getBalance() == null) {
           wallet.setBalance(BigDecimal.valueOf(0.00)); // Valor por defecto
@@ -77,8 +122,19 @@ public class YankiWalletService {
         wallet.setCreatedAt(LocalDateTime.now());
         wallet.setUpdatedAt(LocalDateTime.now());
 
-        return walletRepository.save(wallet);
+        // Los índices únicos resuelven las altas concurrentes que pasaron la verificación
+        return walletRepository.save(wallet)
+          .onErrorMap(DuplicateKeyException.class, error -> duplicateOf(wallet, error));
       })
+      // Saldo inicial del libro mayor; sin él, la migración lo crea en el siguiente arranque
+      .flatMap(savedWallet -> ledgerService.snapshot(savedWallet)
+        .then()
+        .onErrorResume(error -> {
+          log.warn("Initial balance snapshot not saved for wallet {}: {}",
+            savedWallet.getId(), error.getMessage());
+          return Mono.empty();
+        })
+        .thenReturn(savedWallet))
       .flatMap(savedWallet -> {
         // Publicar evento Kafka
         WalletCreatedEvent event = WalletCreatedEvent.builder()
@@ -90,14 +146,12 @@ public class YankiWalletService {
           .createdAt(savedWallet.getCreatedAt())
           .build();
 
-        return eventProducer.sendWalletCreatedEvent(event)
+        // Cachear en Redis antes de responder: reemplaza una posible marca de ausencia
+        return cacheService.writeThrough(savedWallet)
+          .then(eventProducer.sendWalletCreatedEvent(event))
           .thenReturn(savedWallet);
       })
-      .doOnSuccess(w -> {
-        log.info("Wallet created successfully: {}", w.getId());
-        // Cachear en Redis
-        cacheService.cacheWallet(w.getPhoneNumber(), w).subscribe();
-      })
+      .doOnSuccess(w -> log.info("Wallet created successfully: {}", w.getId()))
       .doOnError(error -> log.error("Error creating wallet: {}", error.getMessage()));
   }
 
@@ -107,25 +161,150 @@ public class YankiWalletService {
    * <p>Este método implementa un patrón cache-aside, buscando primero en Redis cache
    * y luego en la base de datos MongoDB si no se encuentra en caché.</p>
    *
+   * <p>Las búsquedas concurrentes que fallan en caché para el mismo teléfono comparten
+   * una única lectura a MongoDB y una única escritura en caché; cada suscriptor recibe
+   * su propia copia de la billetera. Los teléfonos sin billetera se registran en caché
+   * durante un tiempo corto para no repetir la consulta.</p>
+   *
+   * <p>Cada billetera encontrada cuenta como acceso en {@link HotKeyTracker}, que
+   * determina qué billeteras se precargan al arrancar.</p>
+   *
    * @param phoneNumber El número de teléfono asociado a la billetera
    * @return Mono que emite la billetera encontrada
    * @throws WalletNotFoundException si no se encuentra la billetera
    */
   public Mono<YankiWallet> findByPhoneNumber(String phoneNumber) {
     // Primero buscar en Redis cache
-    return cacheService.getCachedWallet(phoneNumber)
+    return cacheService.getCachedWallet(phoneNumber,
+        () -> walletRepository.findByPhoneNumber(phoneNumber))
       .cast(YankiWallet.class)
       .switchIfEmpty(
-        // Si no está en cache, buscar en MongoDB
-        walletRepository.findByPhoneNumber(phoneNumber)
-          .switchIfEmpty(Mono.error(
-            new WalletNotFoundException("Wallet not found with phone number: " + phoneNumber)))
-          .flatMap(wallet ->
-            // Guardar en cache para próximas consultas
-            cacheService.cacheWallet(phoneNumber, wallet)
-              .thenReturn(wallet)
-          )
-      );
+        // Si no está en cache, buscar en MongoDB (una sola carga por teléfono)
+        requestCoalescer.execute(walletLookupKey(phoneNumber), () ->
+            walletRepository.findByPhoneNumber(phoneNumber)
+              .flatMap(wallet ->
+                // Guardar en cache para próximas consultas
+                cacheService.cacheWallet(phoneNumber, wallet)
+                  .onErrorResume(error -> Mono.just(false))
+                  .thenReturn(wallet)
+              )
+              // Registrar la ausencia para no volver a consultar MongoDB
+              .switchIfEmpty(cacheService.cacheMissingWallet(phoneNumber)
+                .onErrorResume(error -> Mono.just(false))
+                .then(Mono.empty())))
+          .map(wallet -> wallet.toBuilder().build())
+          .switchIfEmpty(Mono.error(() -> walletNotFound(phoneNumber)))
+      )
+      .doOnNext(wallet -> hotKeyTracker.record(phoneNumber));
+  }
+
+  /**
+   * Obtiene solo el estado y el saldo de una billetera.
+   *
+   * <p>Pensado para validaciones de saldo: lee la entrada compacta de saldo en caché y,
+   * si no está, consulta MongoDB con una proyección de esos campos, sin leer ni cachear
+   * la billetera completa. Un teléfono sin billetera deja una marca de ausencia de vida
+   * corta, que la creación de la billetera reemplaza con su vista.</p>
+   *
+   * @param phoneNumber El número de teléfono asociado a la billetera
+   * @return Mono que emite la vista de saldo de la billetera
+   * @throws WalletNotFoundException si no se encuentra la billetera
+   */
+  public Mono<WalletBalanceView> findBalanceView(String phoneNumber) {
+    return cacheService.getCachedBalanceView(phoneNumber)
+      .switchIfEmpty(requestCoalescer.execute("balance:" + phoneNumber, () ->
+          walletRepository.findBalanceViewByPhoneNumber(phoneNumber)
+            .flatMap(view -> cacheService.cacheBalanceView(view)
+              .onErrorResume(error -> Mono.just(false))
+              .thenReturn(view))
+            // Registrar la ausencia para no volver a consultar MongoDB
+            .switchIfEmpty(cacheService.cacheMissingBalanceView(phoneNumber)
+              .onErrorResume(error -> Mono.just(false))
+              .then(Mono.empty())))
+        .switchIfEmpty(Mono.error(() -> walletNotFound(phoneNumber))));
+  }
+
+  /**
+   * Busca varias billeteras por número de teléfono en un solo viaje a cada almacén.
+   *
+   * <p>Las billeteras se leen de la caché con un único {@code MGET} y las que faltan se
+   * resuelven con una sola consulta {@code $in} a MongoDB, guardándolas en caché. Los
+   * teléfonos que tampoco existen en base de datos se registran como ausentes. Cada
+   * teléfono pasa por el {@link RequestCoalescer}: los que ya se están cargando, por
+   * {@link #findByPhoneNumber} o por otro lote, esperan esa carga en lugar de consultarse
+   * de nuevo.</p>
+   *
+   * @param phoneNumbers Los números de teléfono a buscar
+   * @return Mono que emite un mapa de teléfono a billetera con las billeteras encontradas;
+   *     los teléfonos sin billetera no aparecen en el mapa
+   */
+  public Mono<Map<String, YankiWallet>> findByPhoneNumbers(Collection<String> phoneNumbers) {
+    Set<String> phones = new LinkedHashSet<>(phoneNumbers);
+    return cacheService.getCachedWallets(phones)
+      .flatMap(cached -> {
+        Map<String, YankiWallet> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String phone : phones) {
+          Optional<YankiWallet> entry = cached.get(phone);
+          if (entry == null) {
+            misses.add(phone);
+          } else {
+            entry.ifPresent(wallet -> found.put(phone, wallet));
+          }
+        }
+        if (misses.isEmpty()) {
+          return Mono.just(found);
+        }
+        // Resolver los fallos de caché sin carga en curso con una sola consulta a MongoDB
+        return requestCoalescer.executeAll(misses, YankiWalletService::walletLookupKey,
+            this::loadWallets)
+          .map(loaded -> {
+            loaded.forEach((phone, wallet) -> found.put(phone, wallet.toBuilder().build()));
+            return found;
+          });
+      })
+      .doOnNext(found -> found.keySet().forEach(hotKeyTracker::record));
+  }
+
+  /**
+   * Carga de MongoDB las billeteras de los teléfonos, las guarda en caché y registra como
+   * ausentes los teléfonos sin billetera.
+   */
+  private Mono<Map<String, YankiWallet>> loadWallets(List<String> phones) {
+    return walletRepository.findByPhoneNumberIn(phones)
+      .flatMap(wallet -> cacheService.cacheWallet(wallet.getPhoneNumber(), wallet)
+        .onErrorResume(error -> Mono.just(false))
+        .thenReturn(wallet))
+      .collectMap(YankiWallet::getPhoneNumber)
+      .flatMap(loaded -> Flux.fromIterable(phones)
+        .filter(phone -> !loaded.containsKey(phone))
+        .flatMap(phone -> cacheService.cacheMissingWallet(phone)
+          .onErrorResume(error -> Mono.just(false)))
+        .then(Mono.just(loaded)));
+  }
+
+  /**
+   * Clave de deduplicación compartida por todas las lecturas de billetera por teléfono.
+   *
+   * @param phoneNumber El número de teléfono de la billetera
+   * @return la clave usada en el {@link RequestCoalescer}
+   */
+  public static String walletLookupKey(String phoneNumber) {
+    return "wallet:" + phoneNumber;
+  }
+
+  /**
+   * Indica si un error de pago ocurre siempre antes de modificar las billeteras, de modo
+   * que la clave de idempotencia del pago puede liberarse y reintentarse.
+   *
+   * @param error el error del pago
+   * @return true si el pago no llegó a aplicar ningún cambio
+   */
+  public static boolean failedBeforeCommit(Throwable error) {
+    return error instanceof WalletNotFoundException
+      || error instanceof InsufficientBalanceException
+      || error instanceof PaymentLaneFullException
+      || error instanceof MigrationPendingException;
   }
 
   /**
@@ -134,6 +313,9 @@ public class YankiWalletService {
    * <p>Este método busca la billetera por número de teléfono, asocia la tarjeta especificada
    * y publica un evento de asociación via Kafka. Actualiza la caché Redis con la billetera modificada.</p>
    *
+   * <p>La billetera se guarda con {@link WalletUpdater}: si otra operación la modificó
+   * mientras tanto, se vuelve a leer y se repite la asociación.</p>
+   *
    * @param phoneNumber El número de teléfono de la billetera
    * @param creditId El identificador de la tarjeta a asociar
    * @return Mono que emite la billetera actualizada
@@ -141,10 +323,9 @@ public class YankiWalletService {
    */
   public Mono<YankiWallet> associateDebitCard(String phoneNumber, String creditId) {
     return findByPhoneNumber(phoneNumber)
-      .flatMap(wallet -> {
-        wallet.associateCard(creditId);
-        return walletRepository.save(wallet);
-      })
+      .flatMap(wallet -> walletUpdater.update("associateCard", wallet,
+          current -> current.associateCard(creditId))
+        .flatMap(cacheService::writeThrough))
       .flatMap(updatedWallet -> {
         // Publicar evento Kafka
         CardAssociatedEvent event = CardAssociatedEvent.builder()
@@ -157,16 +338,30 @@ public class YankiWalletService {
         return eventProducer.sendCardAssociatedEvent(event)
           .thenReturn(updatedWallet);
       })
-      .doOnSuccess(wallet -> {
-        log.info("Credit card associated to wallet: {}", wallet.getId());
-        // Actualizar cache
-        cacheService.cacheWallet(phoneNumber, wallet).subscribe();
-      });
+      .doOnSuccess(wallet -> log.info("Credit card associated to wallet: {}", wallet.getId()));
   }
 
   /**
    * Procesa un pago entre dos billeteras Yanki.
    *
+   * <p>Ambas billeteras se cargan juntas con {@link #findByPhoneNumbers(Collection)}.</p>
+   *
+   * <p>El pago se ejecuta en el carril de {@link PaymentLanes} del remitente, en orden con
+   * los demás pagos de su billetera. La consulta de crédito de un pago con tarjeta se
+   * envía a Kafka después de salir del carril.</p>
+   *
+   * <p>Con {@code app.payments.sync-reply.enabled}, el pago con tarjeta espera la
+   * respuesta de crédito hasta {@code app.payments.sync-reply.timeout} y devuelve la
+   * transacción final; si no llega a tiempo devuelve la transacción PENDING
+   * ({@link PendingTransactionReplies}).</p>
+   *
+   * <p>Con clave de idempotencia, el pago se ejecuta una sola vez por remitente y clave:
+   * las repeticiones reciben la transacción original de {@link IdempotencyStore} sin
+   * modificar las billeteras. La clave queda asociada al destinatario, el importe y la
+   * descripción del pago original. Solo los errores de {@link #failedBeforeCommit} liberan
+   * la clave; tras cualquier otro, las repeticiones reciben
+   * {@link IdempotentRequestFailedException} con el mismo mensaje.</p>
+   *
    * <p>Este método maneja dos escenarios:
    * <ul>
    *   <li>Si el remitente tiene tarjeta asociada: valida el balance via Kafka y crea transacción pendiente</li>
@@ -178,74 +373,98 @@ public class YankiWalletService {
    * @param toPhoneNumber Número de teléfono del destinatario
    * @param amount Monto del pago
    * @param description Descripción de la transacción
+   * @param idempotencyKey Clave de idempotencia del cliente, o null
    * @return Mono que emite la transacción creada (COMPLETED o PENDING)
    * @throws WalletNotFoundException si no se encuentra alguna de las billeteras
    * @throws RuntimeException si el remitente no tiene balance suficiente
+   * @throws DuplicateRequestException si el pago con la misma clave sigue en curso
+   * @throws IdempotencyKeyReuseException si la clave se usó con otro pago
+   * @throws IdempotencyUnavailableException si no puede comprobarse la clave
    */
   public Mono<Transaction> processPayment(String fromPhoneNumber, String toPhoneNumber,
-                                          Double amount, String description) {
+                                          Double amount, String description,
+                                          String idempotencyKey) {
     BigDecimal paymentAmount = BigDecimal.valueOf(amount);
+    String paymentKey = idempotencyKey != null ? fromPhoneNumber + ":" + idempotencyKey : null;
+
+    String fingerprint = String.join("|", toPhoneNumber,
+      paymentAmount.stripTrailingZeros().toPlainString(), String.valueOf(description));
+
+    return idempotencyStore.execute("send", paymentKey, fingerprint, Transaction.class,
+        () -> paymentLanes.submit(fromPhoneNumber,
+            () -> startPayment(fromPhoneNumber, toPhoneNumber, paymentAmount, description))
+          // Fuera del carril: la consulta de crédito no retiene el carril mientras Kafka
+          // responde, y el pago validado se ejecuta después en el mismo carril
+          .flatMap(started -> started.getInquiry() == null
+            ? Mono.just(started.getTransaction())
+            : sendCreditBalanceInquiry(started.getInquiry())
+              .then(Mono.defer(() -> pendingReplies.await(started.getTransaction())))),
+        YankiWalletService::failedBeforeCommit)
+      .doOnSuccess(transaction -> {
+        if (transaction.getStatus() == TransactionStatusEnum.COMPLETED) {
+          log.info("Payment processed immediately: {} from {} to {}", amount, fromPhoneNumber,
+            toPhoneNumber);
+        } else {
+          log.info("Payment validation in progress - TransactionId: {}", transaction.getId());
+        }
+      })
+      .doOnError(error -> log.error("Payment failed: {}", error.getMessage()));
+  }
 
-    return findByPhoneNumber(fromPhoneNumber)
-      .flatMap(fromWallet -> {
+  private Mono<StartedPayment> startPayment(String fromPhoneNumber, String toPhoneNumber,
+                                            BigDecimal paymentAmount, String description) {
+    return findByPhoneNumbers(List.of(fromPhoneNumber, toPhoneNumber))
+      .flatMap(wallets -> {
+        YankiWallet fromWallet = wallets.get(fromPhoneNumber);
+        if (fromWallet == null) {
+          return Mono.error(walletNotFound(fromPhoneNumber));
+        }
         if (fromWallet.getAssociatedCreditId() != null &&
           !fromWallet.getAssociatedCreditId().isEmpty()) {
           // Para tarjetas, iniciamos validación y retornamos una transacción pendiente
-          return validateCreditBalanceViaKafka(fromWallet, toPhoneNumber, paymentAmount,
-            description)
-            .flatMap(transactionId -> {
+          YankiWallet toWallet = wallets.get(toPhoneNumber);
+          String toWalletId = toWallet != null ? toWallet.getId() : null;
+          return validateCreditBalanceViaKafka(fromWallet, toWalletId, toPhoneNumber,
+            paymentAmount, description)
+            .map(inquiry -> {
               // Retornar una transacción con estado PENDING
               Transaction pendingTransaction = Transaction.builder()
-                .id(transactionId)
+                .id(inquiry.getTransactionId())
                 .amount(paymentAmount)
                 .fromWalletId(fromWallet.getId())
-                .toWalletId(null) // Se completará después
+                .toWalletId(toWalletId)
                 .fromPhoneNumber(fromWallet.getPhoneNumber())
                 .toPhoneNumber(toPhoneNumber)
                 .description(description)
                 .transactionDate(LocalDateTime.now())
                 .status(TransactionStatusEnum.PENDING)
                 .build();
-              return Mono.just(pendingTransaction);
+              return new StartedPayment(pendingTransaction, inquiry);
             });
         } else {
           // Sin tarjeta, procesar inmediatamente
           if (!fromWallet.hasSufficientBalance(paymentAmount)) {
-            return Mono.error(new RuntimeException("Insufficient balance in Yanki wallet"));
+            return Mono.error(new InsufficientBalanceException(fromWallet.getBalance(),
+              paymentAmount));
           }
-          return proceedWithYankiPayment(fromWallet, toPhoneNumber, paymentAmount, description);
-        }
-      })
-      .doOnSuccess(transaction -> {
-        if (transaction.getStatus() == TransactionStatusEnum.COMPLETED) {
-          log.info("Payment processed immediately: {} from {} to {}", amount, fromPhoneNumber,
-            toPhoneNumber);
-          cacheService.evictWalletCache(fromPhoneNumber).subscribe();
-          cacheService.evictWalletCache(toPhoneNumber).subscribe();
-        } else {
-          log.info("Payment validation in progress - TransactionId: {}", transaction.getId());
+          YankiWallet toWallet = wallets.get(toPhoneNumber);
+          if (toWallet == null) {
+            return Mono.error(walletNotFound(toPhoneNumber));
+          }
+          return proceedWithYankiPayment(fromWallet, toWallet, paymentAmount, description)
+            .map(transaction -> new StartedPayment(transaction, null));
         }
-      })
-      .doOnError(error -> log.error("Payment failed: {}", error.getMessage()));
+      });
   }
 
-  private Mono<Transaction> proceedWithYankiPayment(YankiWallet fromWallet, String toPhoneNumber,
+  private Mono<Transaction> proceedWithYankiPayment(YankiWallet fromWallet, YankiWallet toWallet,
                                                     BigDecimal paymentAmount, String description) {
-    return findByPhoneNumber(toPhoneNumber)
-      .flatMap(toWallet -> {
+    String toPhoneNumber = toWallet.getPhoneNumber();
+    return Mono.defer(() -> {
         // Verificar si el destinatario tiene tarjeta asociada
         boolean toWalletHasCard = toWallet.getAssociatedCreditId() != null &&
           !toWallet.getAssociatedCreditId().isEmpty();
 
-        // LÓGICA CORREGIDA:
-        // FROM siempre resta (porque no tiene tarjeta en este método)
-        fromWallet.updateBalance(paymentAmount, false);
-
-        // TO solo suma si NO tiene tarjeta
-        if (!toWalletHasCard) {
-          toWallet.updateBalance(paymentAmount, true);
-        }
-
         // Crear transacción principal
         Transaction transaction = Transaction.builder()
           .id(UUID.randomUUID().toString())
@@ -259,53 +478,37 @@ public class YankiWalletService {
           .status(TransactionStatusEnum.COMPLETED)
           .build();
 
-        // Guardar ambos wallets - FROM siempre se guarda
-        List<Mono<YankiWallet>> saveOperations = new ArrayList<>();
-        saveOperations.add(walletRepository.save(fromWallet));
-
-        if (!toWalletHasCard) {
-          saveOperations.add(walletRepository.save(toWallet));
-        }
+        // FROM siempre resta (porque no tiene tarjeta en este método), solo si el saldo
+        // alcanza; TO solo suma y se registra en yanki_transactions si NO tiene tarjeta
+        TransferCommitter.Transfer transfer = TransferCommitter.Transfer.builder()
+          .debitPhoneNumber(fromWallet.getPhoneNumber())
+          .creditPhoneNumber(toWalletHasCard ? null : toPhoneNumber)
+          .amount(paymentAmount)
+          .record(toWalletHasCard ? null
+            : buildTransferRecord(transaction, fromWallet, toWallet))
+          .build();
 
-        return Mono.when(saveOperations)
+        return commitTransfer(transfer)
+          .then(Mono.defer(() ->
+            statusService.record(TransactionStatusRecord.of(transaction, null))))
           .then(Mono.defer(() -> {
-            // SOLO insertar en yanki_transactions si el destinatario NO tiene tarjeta
             if (!toWalletHasCard) {
-              YankiTransaction yankiTransaction = YankiTransaction.builder()
-                .id(UUID.randomUUID().toString())
-                .transactionId(transaction.getId())
-                .amount(paymentAmount)
-                .fromWalletId(fromWallet.getId())
-                .toWalletId(toWallet.getId())
-                .fromPhoneNumber(fromWallet.getPhoneNumber())
-                .toPhoneNumber(toPhoneNumber)
-                .description(description)
-                .type(YankiTransaction.TransactionType.TRANSFER)
-                .status(TransactionStatusEnum.COMPLETED)
-                .transactionDate(LocalDateTime.now())
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
-
-              return yankiTransactionRepository.save(yankiTransaction)
-                .thenReturn(transaction);
-            } else {
-              // Si el destinatario tiene tarjeta, enviar evento de PAGO
-              // para que el dinero llegue a su tarjeta
-              TransactionPaymentRequestEvent paymentEvent = TransactionPaymentRequestEvent.builder()
-                .paymentId(UUID.randomUUID().toString())
-                .creditId(toWallet.getAssociatedCreditId())
-                .amount(paymentAmount)
-                .description(
-                  "Yanki Transfer from " + fromWallet.getPhoneNumber() + ": " + description)
-                .customerId(toWallet.getDocumentNumber())
-                .paymentDate(LocalDateTime.now())
-                .source("YANKI_SERVICE")
-                .build();
-
-              return eventProducer.sendTransactionPaymentRequest(paymentEvent)
-                .thenReturn(transaction);
+              return Mono.just(transaction);
             }
+            // Si el destinatario tiene tarjeta, enviar evento de PAGO
+            // para que el dinero llegue a su tarjeta
+            TransactionPaymentRequestEvent paymentEvent = TransactionPaymentRequestEvent.builder()
+              .paymentId(UUID.randomUUID().toString())
+              .creditId(toWallet.getAssociatedCreditId())
+              .amount(paymentAmount)
+              .description(
+                "Yanki Transfer from " + fromWallet.getPhoneNumber() + ": " + description)
+              .customerId(toWallet.getDocumentNumber())
+              .paymentDate(LocalDateTime.now())
+              .source("YANKI_SERVICE")
+              .build();
+
+            return publishPaymentRequest(paymentEvent).thenReturn(transaction);
           }));
       });
   }
@@ -342,11 +545,11 @@ public class YankiWalletService {
           .source("YANKI_SERVICE")
           .build();
 
-        return eventProducer.sendTransactionConsumptionRequest(consumptionEvent)
-          .then(eventProducer.sendTransactionPaymentRequest(paymentEvent));
+        return publishConsumptionRequest(consumptionEvent)
+          .then(publishPaymentRequest(paymentEvent));
       } else {
         // Solo el remitente tiene tarjeta, solo enviamos consumo
-        return eventProducer.sendTransactionConsumptionRequest(consumptionEvent);
+        return publishConsumptionRequest(consumptionEvent);
       }
     }
     // Si solo el DESTINATARIO tiene tarjeta, enviamos evento de PAGO
@@ -363,15 +566,38 @@ public class YankiWalletService {
         .source("YANKI_SERVICE")
         .build();
 
-      return eventProducer.sendTransactionPaymentRequest(paymentEvent);
+      return publishPaymentRequest(paymentEvent);
     }
 
     // Si ninguno tiene tarjeta, no enviamos eventos Kafka
     return Mono.empty();
   }
 
-  private Mono<String> validateCreditBalanceViaKafka(YankiWallet fromWallet, String toPhoneNumber,
-                                                     BigDecimal paymentAmount, String description) {
+  /**
+   * Publica la solicitud de pago de una transferencia ya confirmada; si Kafka falla, queda
+   * en {@link EventOutbox} para reenviarse y la transferencia sigue siendo COMPLETED.
+   */
+  private Mono<Void> publishPaymentRequest(TransactionPaymentRequestEvent event) {
+    return eventOutbox.publish(KafkaEventProducer.TRANSACTION_PAYMENT_REQUEST_TOPIC,
+      event.getPaymentId(), event);
+  }
+
+  /**
+   * Publica la solicitud de consumo de una transferencia ya confirmada, como
+   * {@link #publishPaymentRequest}.
+   */
+  private Mono<Void> publishConsumptionRequest(TransactionConsumptionRequestEvent event) {
+    return eventOutbox.publish(KafkaEventProducer.TRANSACTION_CONSUMPTION_REQUEST_TOPIC,
+      event.getConsumptionId(), event);
+  }
+
+  /**
+   * Registra un pago pendiente de validación de crédito y prepara la consulta, que se
+   * envía fuera del carril con {@link #sendCreditBalanceInquiry}.
+   */
+  private Mono<CreditBalanceInquiryEvent> validateCreditBalanceViaKafka(
+    YankiWallet fromWallet, String toWalletId, String toPhoneNumber,
+    BigDecimal paymentAmount, String description) {
     String inquiryId = UUID.randomUUID().toString();
     String transactionId = UUID.randomUUID().toString();
 
@@ -387,15 +613,46 @@ public class YankiWalletService {
       .description(description)
       .build();
 
-    // Guardar transacción pendiente
-    PendingTransaction pendingTransaction = new PendingTransaction(
-      fromWallet, toPhoneNumber, paymentAmount, description, LocalDateTime.now(), transactionId
-    );
-    pendingTransactions.put(inquiryId, pendingTransaction);
+    // Guardar transacción pendiente, solo con identificadores e importe
+    PendingTransaction pendingTransaction = PendingTransaction.builder()
+      .inquiryId(inquiryId)
+      .transactionId(transactionId)
+      .fromWalletId(fromWallet.getId())
+      .toWalletId(toWalletId)
+      .fromPhoneNumber(fromWallet.getPhoneNumber())
+      .toPhoneNumber(toPhoneNumber)
+      .amount(paymentAmount)
+      .description(description)
+      .createdAt(LocalDateTime.now())
+      .deadline(Instant.now().plus(pendingTimeouts.getTimeout()))
+      .build();
+
+    // Registrar la transacción pendiente y retornar la consulta a enviar
+    return pendingStore.put(pendingTransaction)
+      .flatMap(stored -> {
+        if (!stored) {
+          return Mono.error(new IllegalStateException(
+            "Too many pending credit validations"));
+        }
+        pendingTimeouts.schedule(pendingTransaction);
+        pendingReplies.register(transactionId);
+        return statusService.record(statusOf(pendingTransaction,
+            TransactionStatusEnum.PENDING, null))
+          .thenReturn(inquiryEvent);
+      });
+  }
 
-    // Enviar consulta por Kafka y retornar el transactionId
-    return eventProducer.sendCreditBalanceInquiry(inquiryEvent)
-      .thenReturn(transactionId);
+  /**
+   * Envía la consulta de crédito de un pago pendiente; si no se puede enviar, descarta
+   * la transacción pendiente.
+   */
+  private Mono<Void> sendCreditBalanceInquiry(CreditBalanceInquiryEvent inquiry) {
+    return eventProducer.sendCreditBalanceInquiry(inquiry)
+      .onErrorResume(error -> {
+        pendingReplies.discard(inquiry.getTransactionId());
+        pendingTimeouts.cancel(inquiry.getInquiryId());
+        return pendingStore.remove(inquiry.getInquiryId()).then(Mono.error(error));
+      });
   }
 
   /**
@@ -404,64 +661,130 @@ public class YankiWalletService {
    * <p>Este método es llamado cuando se recibe una respuesta del sistema de crédito
    * sobre la validación de balance para una transacción pendiente.</p>
    *
+   * <p>El resultado queda en el estado de la transacción ({@link TransactionStatusService})
+   * y se entrega a la petición que lo espera, si la hay.</p>
+   *
+   * <p>La respuesta solo se aplica si la transacción sigue pendiente: las que llegan
+   * después de su caducidad se ignoran, porque la transacción ya quedó como FAILED.</p>
+   *
+   * <p>Solo queda FAILED un pago cuyos cambios no llegaron a confirmarse. Los eventos que
+   * siguen a la confirmación se publican con {@link EventOutbox}, que no falla: si Kafka no
+   * responde, se reenvían más tarde y el pago queda COMPLETED.</p>
+   *
    * @param responseEvent Evento de respuesta con el resultado de la validación
    * @return Mono que completa cuando se procesa la respuesta
    */
   public Mono<Void> processCreditBalanceResponse(CreditBalanceResponseEvent responseEvent) {
-    return Mono.fromRunnable(() -> {
-      String inquiryId = responseEvent.getInquiryId();
-      PendingTransaction pendingTransaction = pendingTransactions.remove(inquiryId);
+    String inquiryId = responseEvent.getInquiryId();
+    return pendingStore.remove(inquiryId)
+      .doOnNext(pendingTransaction -> pendingTimeouts.cancel(inquiryId))
+      .switchIfEmpty(Mono.fromRunnable(() ->
+        log.warn("No pending transaction found for inquiryId: {}", inquiryId)))
+      .flatMap(pendingTransaction -> {
+        if (!responseEvent.getIsValid()) {
+          log.warn("Credit validation failed for inquiryId: {} - Reason: {}",
+            inquiryId, responseEvent.getReason());
+          pendingReplies.fail(pendingTransaction.getTransactionId(), new RuntimeException(
+            "Insufficient credit balance: " + responseEvent.getReason()));
+          return markFailed(pendingTransaction, "Credit validation rejected: "
+            + responseEvent.getReason());
+        }
+        // Si la validación es exitosa, proceder con el pago en el carril del remitente
+        return paymentLanes.submit(pendingTransaction.getFromPhoneNumber(),
+            () -> proceedWithPayment(
+              pendingTransaction.getFromPhoneNumber(),
+              pendingTransaction.getToPhoneNumber(),
+              pendingTransaction.getAmount(),
+              pendingTransaction.getDescription(),
+              pendingTransaction.getTransactionId()))
+          .flatMap(transaction -> {
+            log.info("Payment completed after credit validation - TransactionId: {}",
+              transaction.getId());
+            pendingReplies.complete(transaction.getId(), transaction);
+            return statusService.record(TransactionStatusRecord.of(transaction, null));
+          })
+          // Solo llegan aquí los errores anteriores a la confirmación o de la confirmación
+          .onErrorResume(error -> {
+            log.error("Payment after credit validation failed: {}", error.getMessage());
+            pendingReplies.fail(pendingTransaction.getTransactionId(), error);
+            return markFailed(pendingTransaction, "Payment failed: " + error.getMessage());
+          });
+      });
+  }
 
-      if (pendingTransaction == null) {
-        log.warn("No pending transaction found for inquiryId: {}", inquiryId);
-        return;
-      }
+  /**
+   * Registra como FAILED una transacción pendiente que no llegó a completarse, en el
+   * historial y en su estado.
+   */
+  private Mono<Void> markFailed(PendingTransaction pending, String reason) {
+    LocalDateTime now = LocalDateTime.now();
+    YankiTransaction failed = YankiTransaction.builder()
+      .id(UUID.randomUUID().toString())
+      .transactionId(pending.getTransactionId())
+      .amount(pending.getAmount())
+      .fromWalletId(pending.getFromWalletId())
+      .toWalletId(pending.getToWalletId())
+      .fromPhoneNumber(pending.getFromPhoneNumber())
+      .toPhoneNumber(pending.getToPhoneNumber())
+      .description(pending.getDescription())
+      .type(YankiTransaction.TransactionType.TRANSFER)
+      .status(TransactionStatusEnum.FAILED)
+      .transactionDate(pending.getCreatedAt())
+      .createdAt(now)
+      .updatedAt(now)
+      .build();
+    return transactionRepository.insertRecord(failed)
+      .doOnSuccess(record -> log.info("Transaction {} marked FAILED: {}",
+        pending.getTransactionId(), reason))
+      .onErrorResume(error -> {
+        log.error("Transaction {} not marked FAILED: {}", pending.getTransactionId(),
+          error.getMessage());
+        return Mono.empty();
+      })
+      .then(statusService.record(statusOf(pending, TransactionStatusEnum.FAILED, reason)));
+  }
 
-      if (responseEvent.getIsValid()) {
-        // Si la validación es exitosa, proceder con el pago
-        proceedWithPayment(
-          pendingTransaction.getFromWallet(),
-          pendingTransaction.getToPhoneNumber(),
-          pendingTransaction.getAmount(),
-          pendingTransaction.getDescription()
-        ).subscribe(transaction -> {
-          log.info("Payment completed after credit validation - TransactionId: {}",
-            transaction.getId());
-          // Aquí podrías notificar al usuario que el pago se completó
-        });
-      } else {
-        log.warn("Credit validation failed for inquiryId: {} - Reason: {}",
-          inquiryId, responseEvent.getReason());
-        // Aquí podrías actualizar la transacción a FAILED en la base de datos
-        // y notificar al usuario sobre el fallo
-      }
-    });
+  private static TransactionStatusRecord statusOf(PendingTransaction pending,
+                                                  TransactionStatusEnum status,
+                                                  String reason) {
+    return TransactionStatusRecord.builder()
+      .id(pending.getTransactionId())
+      .fromWalletId(pending.getFromWalletId())
+      .toWalletId(pending.getToWalletId())
+      .fromPhoneNumber(pending.getFromPhoneNumber())
+      .toPhoneNumber(pending.getToPhoneNumber())
+      .amount(pending.getAmount())
+      .description(pending.getDescription())
+      .status(status)
+      .reason(reason)
+      .transactionDate(pending.getCreatedAt())
+      .updatedAt(LocalDateTime.now())
+      .build();
   }
 
-  private Mono<Transaction> proceedWithPayment(YankiWallet fromWallet, String toPhoneNumber,
-                                               BigDecimal paymentAmount, String description) {
-    return findByPhoneNumber(toPhoneNumber)
-      .flatMap(toWallet -> {
+  private Mono<Transaction> proceedWithPayment(String fromPhoneNumber, String toPhoneNumber,
+                                               BigDecimal paymentAmount, String description,
+                                               String transactionId) {
+    // Recargar ambas billeteras juntas: el remitente pudo cambiar durante la validación
+    return findByPhoneNumbers(List.of(fromPhoneNumber, toPhoneNumber))
+      .flatMap(wallets -> {
+        YankiWallet fromWallet = wallets.get(fromPhoneNumber);
+        YankiWallet toWallet = wallets.get(toPhoneNumber);
+        if (fromWallet == null) {
+          return Mono.error(walletNotFound(fromPhoneNumber));
+        }
+        if (toWallet == null) {
+          return Mono.error(walletNotFound(toPhoneNumber));
+        }
         // Verificar si tienen tarjeta
         boolean fromWalletHasNoCard = fromWallet.getAssociatedCreditId() == null ||
           fromWallet.getAssociatedCreditId().isEmpty();
         boolean toWalletHasNoCard = toWallet.getAssociatedCreditId() == null ||
           toWallet.getAssociatedCreditId().isEmpty();
 
-        // LÓGICA CORREGIDA:
-        // FROM solo resta si NO tiene tarjeta
-        if (fromWalletHasNoCard) {
-          fromWallet.updateBalance(paymentAmount, false);
-        }
-
-        // TO solo suma si NO tiene tarjeta
-        if (toWalletHasNoCard) {
-          toWallet.updateBalance(paymentAmount, true);
-        }
-
-        // Crear transacción
+        // Crear transacción con el identificador devuelto como PENDING
         Transaction transaction = Transaction.builder()
-          .id(UUID.randomUUID().toString())
+          .id(transactionId)
           .amount(paymentAmount)
           .fromWalletId(fromWallet.getId())
           .toWalletId(toWallet.getId())
@@ -472,45 +795,90 @@ public class YankiWalletService {
           .status(TransactionStatusEnum.COMPLETED)
           .build();
 
-        // Guardar wallets actualizados
-        List<Mono<YankiWallet>> saveOperations = new ArrayList<>();
-
-        if (fromWalletHasNoCard) {
-          saveOperations.add(walletRepository.save(fromWallet));
-        }
-        if (toWalletHasNoCard) {
-          saveOperations.add(walletRepository.save(toWallet));
-        }
+        // FROM solo resta si NO tiene tarjeta; TO solo suma y se registra en
+        // yanki_transactions si NO tiene tarjeta
+        TransferCommitter.Transfer transfer = TransferCommitter.Transfer.builder()
+          .debitPhoneNumber(fromWalletHasNoCard ? fromPhoneNumber : null)
+          .creditPhoneNumber(toWalletHasNoCard ? toPhoneNumber : null)
+          .amount(paymentAmount)
+          .record(toWalletHasNoCard
+            ? buildTransferRecord(transaction, fromWallet, toWallet) : null)
+          .build();
 
-        return Mono.when(saveOperations)
-          .then(Mono.defer(() -> {
-            // SOLO insertar en yanki_transactions si el destinatario NO tiene tarjeta
-            if (toWalletHasNoCard) {
-              YankiTransaction yankiTransaction = YankiTransaction.builder()
-                .id(UUID.randomUUID().toString())
-                .transactionId(transaction.getId())
-                .amount(paymentAmount)
-                .fromWalletId(fromWallet.getId())
-                .toWalletId(toWallet.getId())
-                .fromPhoneNumber(fromWallet.getPhoneNumber())
-                .toPhoneNumber(toPhoneNumber)
-                .description(description)
-                .type(YankiTransaction.TransactionType.TRANSFER)
-                .status(TransactionStatusEnum.COMPLETED)
-                .transactionDate(LocalDateTime.now())
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
+        return commitTransfer(transfer)
+          .then(sendKafkaEvents(fromWallet, toWallet, paymentAmount, description))
+          .thenReturn(transaction);
+      });
+  }
 
-              return yankiTransactionRepository.save(yankiTransaction)
-                .then(sendKafkaEvents(fromWallet, toWallet, paymentAmount, description))
-                .thenReturn(transaction);
-            } else {
-              return sendKafkaEvents(fromWallet, toWallet, paymentAmount, description)
-                .thenReturn(transaction);
-            }
-          }));
+  /**
+   * Confirma los cambios de la transferencia y después escribe en caché las billeteras
+   * resultantes.
+   */
+  private Mono<TransferCommitter.Result> commitTransfer(TransferCommitter.Transfer transfer) {
+    BigDecimal amount = transfer.getAmount();
+    return transferCommitter.commit(transfer)
+      .switchIfEmpty(Mono.error(() -> new InsufficientBalanceException(amount)))
+      .flatMap(result -> {
+        Mono<YankiWallet> debited = result.getDebited() != null
+          ? cacheService.writeBalanceChange(result.getDebited(), amount.negate())
+          : Mono.empty();
+        Mono<YankiWallet> credited = result.getCredited() != null
+          ? cacheService.writeBalanceChange(result.getCredited(), amount)
+          : Mono.empty();
+        return Mono.when(debited, credited).thenReturn(result);
       });
   }
 
-}
\ No newline at end of file
+  private static YankiTransaction buildTransferRecord(Transaction transaction,
+                                                      YankiWallet fromWallet,
+                                                      YankiWallet toWallet) {
+    return YankiTransaction.builder()
+      .id(UUID.randomUUID().toString())
+      .transactionId(transaction.getId())
+      .amount(transaction.getAmount())
+      .fromWalletId(fromWallet.getId())
+      .toWalletId(toWallet.getId())
+      .fromPhoneNumber(fromWallet.getPhoneNumber())
+      .toPhoneNumber(toWallet.getPhoneNumber())
+      .description(transaction.getDescription())
+      .type(YankiTransaction.TransactionType.TRANSFER)
+      .status(TransactionStatusEnum.COMPLETED)
+      .transactionDate(LocalDateTime.now())
+      .createdAt(LocalDateTime.now())
+      .updatedAt(LocalDateTime.now())
+      .build();
+  }
+
+  private static DuplicateWalletException duplicateOf(YankiWallet wallet,
+                                                      List<YankiWallet> existing) {
+    boolean samePhone = existing.stream()
+      .anyMatch(found -> wallet.getPhoneNumber().equals(found.getPhoneNumber()));
+    return samePhone
+      ? new DuplicateWalletException("phoneNumber", wallet.getPhoneNumber())
+      : new DuplicateWalletException("documentNumber", wallet.getDocumentNumber());
+  }
+
+  private static DuplicateWalletException duplicateOf(YankiWallet wallet,
+                                                      DuplicateKeyException error) {
+    String message = String.valueOf(error.getMessage());
+    return message.contains("documentNumber") && !message.contains("phoneNumber")
+      ? new DuplicateWalletException("documentNumber", wallet.getDocumentNumber())
+      : new DuplicateWalletException("phoneNumber", wallet.getPhoneNumber());
+  }
+
+  private static WalletNotFoundException walletNotFound(String phoneNumber) {
+    return new WalletNotFoundException("Wallet not found with phone number: " + phoneNumber);
+  }
+
+  /**
+   * Pago iniciado en el carril del remitente. {@code inquiry} es la consulta de crédito
+   * que queda por enviar, o null si el pago ya se ejecutó.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static class StartedPayment {
+    private final Transaction transaction;
+    private final CreditBalanceInquiryEvent inquiry;
+  }
+}
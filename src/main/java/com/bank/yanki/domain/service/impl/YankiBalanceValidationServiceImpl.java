@@ -2,6 +2,8 @@ package com.bank.yanki.domain.service.impl;
 
 import com.bank.yanki.application.event.YankiBalanceValidationEvent;
 import com.bank.yanki.application.event.YankiBalanceValidationResponse;
+import com.bank.yanki.domain.exception.WalletNotFoundException;
+import com.bank.yanki.domain.model.WalletBalanceView;
 import com.bank.yanki.domain.model.YankiWallet;
 import com.bank.yanki.domain.service.YankiBalanceValidationService;
 import com.bank.yanki.domain.service.YankiWalletService;
@@ -43,7 +45,7 @@ public class YankiBalanceValidationServiceImpl implements YankiBalanceValidation
     log.info("🔍 Processing Yanki balance validation - ValidationId: {}, Phone: {}, Amount: {}",
       event.getValidationId(), event.getPhoneNumber(), event.getRequiredAmount());
 
-    return walletService.findByPhoneNumber(event.getPhoneNumber())
+    return walletService.findBalanceView(event.getPhoneNumber())
       .switchIfEmpty(Mono.defer(() -> {
         // SOLO se ejecuta si el wallet NO existe
         log.warn("❌ Yanki wallet not found for validation: {} - Phone: {}",
@@ -53,10 +55,17 @@ public class YankiBalanceValidationServiceImpl implements YankiBalanceValidation
         return Mono.empty();
       }))
       .flatMap(wallet -> {
-        log.info("✅ Wallet encontrado - ValidationId: {}, WalletId: {}",
-          event.getValidationId(), wallet.getId());
+        log.info("✅ Wallet encontrado - ValidationId: {}, Phone: {}",
+          event.getValidationId(), wallet.getPhoneNumber());
         return validateWalletBalance(wallet, event);
       })
+      .onErrorResume(WalletNotFoundException.class, ex -> {
+        log.warn("❌ Yanki wallet not found for validation: {} - Phone: {}",
+          event.getValidationId(), event.getPhoneNumber());
+        sendValidationResponse(event, false, "WALLET_NOT_FOUND",
+          "Wallet Yanki no encontrado para el teléfono: " + event.getPhoneNumber());
+        return Mono.empty();
+      })
       .onErrorResume(ex -> {
         log.error("❌ Error processing Yanki balance validation: {} - {}",
           event.getValidationId(), ex.getMessage(), ex);
@@ -70,18 +79,20 @@ public class YankiBalanceValidationServiceImpl implements YankiBalanceValidation
   /**
    * Valida el saldo de una billetera Yanki específica.
    *
-   * @param wallet la billetera a validar
+   * @param wallet la vista de saldo de la billetera a validar
    * @param event el evento de validación original
    * @return un {@link Mono} que completa cuando la validación termina
    */
-  private Mono<Void> validateWalletBalance(YankiWallet wallet, YankiBalanceValidationEvent event) {
+  private Mono<Void> validateWalletBalance(WalletBalanceView wallet,
+                                           YankiBalanceValidationEvent event) {
     return Mono.fromRunnable(() -> {
       log.debug("💰 Validating Yanki wallet balance - Wallet: {}, Balance: {}, Required: {}",
-        wallet.getId(), wallet.getBalance(), event.getRequiredAmount());
+        wallet.getPhoneNumber(), wallet.getBalance(), event.getRequiredAmount());
 
       // Validar que el wallet esté activo
       if (wallet.getStatus() != YankiWallet.YankiWalletStatus.ACTIVE) {
-        log.warn("🚫 Yanki wallet inactive: {} - Status: {}", wallet.getId(), wallet.getStatus());
+        log.warn("🚫 Yanki wallet inactive: {} - Status: {}", wallet.getPhoneNumber(),
+          wallet.getStatus());
         sendValidationResponse(event, false, "WALLET_INACTIVE",
           "El wallet Yanki no está activo. Estado: " + wallet.getStatus());
         return;
@@ -97,7 +108,7 @@ public class YankiBalanceValidationServiceImpl implements YankiBalanceValidation
 
       log.info(
         "💰 Yanki balance validation result - Wallet: {}, Sufficient: {}, Available: {}, Required: {}",
-        wallet.getId(), sufficientBalance, wallet.getBalance(), event.getRequiredAmount());
+        wallet.getPhoneNumber(), sufficientBalance, wallet.getBalance(), event.getRequiredAmount());
 
       sendValidationResponse(event, sufficientBalance, status, message,
         wallet.getBalance().doubleValue());
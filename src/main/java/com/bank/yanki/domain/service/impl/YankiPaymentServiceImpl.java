@@ -2,11 +2,19 @@ package com.bank.yanki.domain.service.impl;
 
 import com.bank.yanki.application.event.YankiPaymentCompletedEvent;
 import com.bank.yanki.application.event.YankiPaymentRequestEvent;
+import com.bank.yanki.domain.exception.DuplicateRequestException;
+import com.bank.yanki.domain.model.TransactionStatusRecord;
 import com.bank.yanki.domain.model.YankiTransaction;
 import com.bank.yanki.domain.model.YankiWallet;
-import com.bank.yanki.domain.repository.YankiTransactionRepository;
 import com.bank.yanki.domain.repository.YankiWalletRepository;
+import com.bank.yanki.domain.service.PaymentLanes;
+import com.bank.yanki.domain.service.TransactionStatusService;
+import com.bank.yanki.domain.service.TransferCommitter;
 import com.bank.yanki.domain.service.YankiPaymentService;
+import com.bank.yanki.domain.service.YankiWalletService;
+import com.bank.yanki.infrastructure.cache.IdempotencyStore;
+import com.bank.yanki.infrastructure.cache.RedisCacheService;
+import com.bank.yanki.infrastructure.cache.RequestCoalescer;
 import com.bank.yanki.infrastructure.messaging.KafkaEventProducer;
 import com.bank.yanki.model.TransactionStatusEnum;
 import java.math.BigDecimal;
@@ -31,8 +39,13 @@ import reactor.core.publisher.Mono;
 public class YankiPaymentServiceImpl implements YankiPaymentService {
 
   private final YankiWalletRepository walletRepository;
-  private final YankiTransactionRepository transactionRepository;
   private final KafkaEventProducer kafkaProducer;
+  private final RequestCoalescer requestCoalescer;
+  private final RedisCacheService cacheService;
+  private final TransferCommitter transferCommitter;
+  private final PaymentLanes paymentLanes;
+  private final IdempotencyStore idempotencyStore;
+  private final TransactionStatusService statusService;
 
   /**
    * Procesa un evento de pago entre billeteras Yanki.
@@ -48,6 +61,16 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
    * </ol>
    * </p>
    *
+   * <p>El pago se ejecuta en el carril de {@link PaymentLanes} del remitente, después de
+   * los pagos anteriores de su billetera.</p>
+   *
+   * <p>Cada {@code paymentId} se procesa una sola vez: una entrega repetida reenvía la
+   * respuesta original guardada en {@link IdempotencyStore} sin modificar las billeteras,
+   * y se descarta si el pago original sigue en curso. Los errores inesperados liberan la
+   * clave para que la siguiente entrega vuelva a intentarlo. Si Redis no responde, o el
+   * {@code paymentId} ya se usó con otro remitente, destinatario o importe, el pago no se
+   * ejecuta y se responde con un fallo.</p>
+   *
    */
   @Override
   public Mono<Void> processYankiPayment(YankiPaymentRequestEvent event) {
@@ -55,9 +78,37 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
       event.getPaymentId(), event.getFromPhoneNumber(), event.getToPhoneNumber(),
       event.getAmount());
 
+    return idempotencyStore.execute("yanki-payment", event.getPaymentId(), fingerprint(event),
+        YankiPaymentCompletedEvent.class,
+        () -> paymentLanes.submit(event.getFromPhoneNumber(), () -> transfer(event)),
+        YankiWalletService::failedBeforeCommit)
+      .onErrorResume(DuplicateRequestException.class, ex -> {
+        log.warn("⏳ Yanki payment already in progress - PaymentId: {}", event.getPaymentId());
+        return Mono.empty();
+      })
+      .onErrorResume(ex -> {
+        log.error("❌ Error processing Yanki payment: {}", ex.getMessage());
+        return paymentResponse(event, false, "Error procesando pago: " + ex.getMessage());
+      })
+      .flatMap(this::sendPaymentResponse);
+  }
+
+  private static String fingerprint(YankiPaymentRequestEvent event) {
+    return event.getFromPhoneNumber() + "|" + event.getToPhoneNumber() + "|"
+      + (event.getAmount() != null
+        ? BigDecimal.valueOf(event.getAmount()).stripTrailingZeros().toPlainString() : null);
+  }
+
+  /**
+   * Valida y ejecuta un pago dentro del carril del remitente.
+   *
+   * @param event evento de pago
+   * @return un {@link Mono} con la respuesta del pago
+   */
+  private Mono<YankiPaymentCompletedEvent> transfer(YankiPaymentRequestEvent event) {
     return Mono.zip(
-      walletRepository.findByPhoneNumber(event.getFromPhoneNumber()),
-      walletRepository.findByPhoneNumber(event.getToPhoneNumber())
+      findWallet(event.getFromPhoneNumber()),
+      findWallet(event.getToPhoneNumber())
     ).flatMap(tuple -> {
       YankiWallet fromWallet = tuple.getT1();
       YankiWallet toWallet = tuple.getT2();
@@ -67,7 +118,7 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
         String errorMsg = "Wallet no encontrado: " +
           (fromWallet == null ? event.getFromPhoneNumber() : event.getToPhoneNumber());
         log.error("❌ {}", errorMsg);
-        return sendPaymentResponse(event, false, errorMsg);
+        return paymentResponse(event, false, errorMsg);
       }
 
       // Validar saldo del remitente
@@ -76,26 +127,36 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
         String errorMsg = String.format("Saldo insuficiente. Disponible: %.2f, Requerido: %.2f",
           fromWallet.getBalance(), amount);
         log.error("❌ {}", errorMsg);
-        return sendPaymentResponse(event, false, errorMsg);
+        return paymentResponse(event, false, errorMsg);
       }
 
       // Procesar la transferencia
       return processTransfer(fromWallet, toWallet, amount, event);
-    }).onErrorResume(ex -> {
-      log.error("❌ Error processing Yanki payment: {}", ex.getMessage());
-      return sendPaymentResponse(event, false, "Error procesando pago: " + ex.getMessage());
     });
   }
 
+  /**
+   * Lee una billetera de MongoDB compartiendo la consulta con otras lecturas concurrentes
+   * del mismo teléfono.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @return un {@link Mono} con una copia propia de la billetera
+   */
+  private Mono<YankiWallet> findWallet(String phoneNumber) {
+    return requestCoalescer.execute(YankiWalletService.walletLookupKey(phoneNumber),
+        () -> walletRepository.findByPhoneNumber(phoneNumber))
+      .map(wallet -> wallet.toBuilder().build());
+  }
+
   /**
    * Procesa la transferencia de fondos entre dos billeteras.
    *
-   * <p>Este método realiza las siguientes operaciones atómicas:
+   * <p>Este método realiza las siguientes operaciones:
    * <ol>
-   *   <li>Actualiza saldo de billetera de origen (resta)</li>
-   *   <li>Actualiza saldo de billetera de destino (suma)</li>
-   *   <li>Crea registro de transacción</li>
-   *   <li>Envía respuesta de confirmación</li>
+   *   <li>Confirma con {@link TransferCommitter} el descuento al remitente (solo si su
+   *   saldo alcanza), el abono al destinatario y el registro de transacción</li>
+   *   <li>Escribe ambas billeteras actualizadas en caché</li>
+   *   <li>Construye la respuesta de confirmación</li>
    * </ol>
    * </p>
    *
@@ -103,36 +164,64 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
    * @param toWallet billetera de destino
    * @param amount monto a transferir
    * @param event evento de pago original
-   * @return un {@link Mono} que completa cuando la transferencia termina
+   * @return un {@link Mono} con la respuesta del pago
    */
-  private Mono<Void> processTransfer(YankiWallet fromWallet, YankiWallet toWallet,
+  private Mono<YankiPaymentCompletedEvent> processTransfer(YankiWallet fromWallet, YankiWallet toWallet,
                                      BigDecimal amount, YankiPaymentRequestEvent event) {
-    // Realizar la transferencia
-    fromWallet.updateBalance(amount, false); // Restar del remitente
-    toWallet.updateBalance(amount, true);    // Sumar al destinatario
-
-    return walletRepository.save(fromWallet)
-      .then(walletRepository.save(toWallet))
-      .then(createTransactionRecord(fromWallet, toWallet, amount, event))
-      .then(sendPaymentResponse(event, true, "Pago Yanki procesado exitosamente"))
+    TransferCommitter.Transfer transfer = TransferCommitter.Transfer.builder()
+      .debitPhoneNumber(fromWallet.getPhoneNumber())
+      .creditPhoneNumber(toWallet.getPhoneNumber())
+      .amount(amount)
+      .record(buildTransactionRecord(fromWallet, toWallet, amount, event))
+      .build();
+
+    return transferCommitter.commit(transfer)
+      .flatMap(result -> completeTransfer(result, amount, event))
+      .switchIfEmpty(Mono.defer(() -> {
+        // El saldo cambió entre la lectura y el descuento
+        String errorMsg = String.format("Saldo insuficiente. Disponible: %.2f, Requerido: %.2f",
+          fromWallet.getBalance(), amount);
+        log.error("❌ {}", errorMsg);
+        return paymentResponse(event, false, errorMsg);
+      }));
+  }
+
+  /**
+   * Escribe en caché las billeteras de una transferencia confirmada, guarda su estado y
+   * construye la confirmación del pago.
+   *
+   * @param result resultado de la transferencia confirmada
+   * @param amount monto transferido
+   * @param event evento de pago original
+   * @return un {@link Mono} con la respuesta del pago
+   */
+  private Mono<YankiPaymentCompletedEvent> completeTransfer(TransferCommitter.Result result, BigDecimal amount,
+                                      YankiPaymentRequestEvent event) {
+    log.info("📝 Transaction record created - TransactionId: {}",
+      result.getRecord().getTransactionId());
+    return Mono.when(
+        cacheService.writeBalanceChange(result.getDebited(), amount.negate()),
+        cacheService.writeBalanceChange(result.getCredited(), amount),
+        statusService.record(TransactionStatusRecord.of(result.getRecord())))
+      .then(paymentResponse(event, true, "Pago Yanki procesado exitosamente"))
       .doOnSuccess(
         v -> log.info("✅ Yanki payment completed - PaymentId: {}", event.getPaymentId()));
   }
 
   /**
-   * Crea un registro de transacción en la base de datos.
+   * Construye el registro de transacción de un pago.
    *
    * @param fromWallet billetera de origen
    * @param toWallet billetera de destino
    * @param amount monto transferido
    * @param event evento de pago original
-   * @return un {@link Mono} que contiene la transacción creada
+   * @return la transacción a registrar
    */
-  private Mono<YankiTransaction> createTransactionRecord(YankiWallet fromWallet,
+  private static YankiTransaction buildTransactionRecord(YankiWallet fromWallet,
                                                          YankiWallet toWallet,
                                                          BigDecimal amount,
                                                          YankiPaymentRequestEvent event) {
-    YankiTransaction transaction = YankiTransaction.builder()
+    return YankiTransaction.builder()
       .id(UUID.randomUUID().toString())
       .transactionId(event.getPaymentId())
       .amount(amount)
@@ -147,36 +236,41 @@ public class YankiPaymentServiceImpl implements YankiPaymentService {
       .createdAt(LocalDateTime.now())
       .updatedAt(LocalDateTime.now())
       .build();
-
-    return transactionRepository.save(transaction)
-      .doOnSuccess(
-        t -> log.info("📝 Transaction record created - TransactionId: {}", t.getTransactionId()));
   }
 
   /**
-   * Envía una respuesta de procesamiento de pago.
+   * Construye una respuesta de procesamiento de pago.
    *
    * @param event evento de pago original
    * @param success indica si el pago fue exitoso
    * @param message mensaje descriptivo del resultado
-   * @return un {@link Mono} que completa cuando se envía la respuesta
+   * @return un {@link Mono} con la respuesta
    */
-  private Mono<Void> sendPaymentResponse(YankiPaymentRequestEvent event, boolean success,
-                                         String message) {
-    YankiPaymentCompletedEvent response = YankiPaymentCompletedEvent.builder()
+  private static Mono<YankiPaymentCompletedEvent> paymentResponse(
+    YankiPaymentRequestEvent event, boolean success, String message) {
+    return Mono.just(YankiPaymentCompletedEvent.builder()
       .paymentId(event.getPaymentId())
       .requestId(event.getRequestId())
       .success(success)
       .message(message)
       .timestamp(System.currentTimeMillis())
-      .build();
+      .build());
+  }
 
+  /**
+   * Envía una respuesta de procesamiento de pago.
+   *
+   * @param response la respuesta a enviar
+   * @return un {@link Mono} que completa cuando se envía la respuesta
+   */
+  private Mono<Void> sendPaymentResponse(YankiPaymentCompletedEvent response) {
     return kafkaProducer.sendYankiPaymentResponse(response)
       .doOnSuccess(v -> {
-        if (success) {
-          log.info("✅ Yanki payment response sent - PaymentId: {}", event.getPaymentId());
+        if (response.isSuccess()) {
+          log.info("✅ Yanki payment response sent - PaymentId: {}", response.getPaymentId());
         } else {
-          log.error("❌ Yanki payment failed response sent - PaymentId: {}", event.getPaymentId());
+          log.error("❌ Yanki payment failed response sent - PaymentId: {}",
+            response.getPaymentId());
         }
       });
   }
@@ -0,0 +1,118 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.domain.model.WalletBalanceView;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.infrastructure.cache.store.WalletCacheStore;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Entradas compactas de saldo en Redis, en {@code wallet:bal:{phone}}.
+ *
+ * <p>Cada entrada es el texto {@code version|estado|saldo}, de unas decenas de bytes
+ * frente al documento completo de la billetera. Como la billetera completa, la escritura
+ * se descarta si Redis ya tiene una versión más reciente.</p>
+ *
+ * <p>Un teléfono sin billetera se registra con la marca {@code absent}, que no tiene
+ * versión: la vista de la billetera creada después la reemplaza siempre.</p>
+ *
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceViewCache {
+
+  private static final String SEPARATOR = "|";
+  private static final String ABSENT_MARKER = "absent";
+  private static final RedisScript<Long> SET_IF_NEWER_SCRIPT = RedisScript.of(
+    "local current = redis.call('GET', KEYS[1]) "
+      + "if current then "
+      + "local version = tonumber(string.match(current, '^(%d+)')) "
+      + "if version and version > tonumber(ARGV[1]) then return 0 end "
+      + "end "
+      + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+      + "return 1", Long.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+
+  /**
+   * Lee la vista de saldo de una billetera.
+   *
+   * @param phoneNumber el número de teléfono de la billetera
+   * @return Mono con la vista, o vacío si no está en caché; una marca de ausencia se
+   *     devuelve como una vista con el id {@link WalletCacheStore#ABSENT_MARKER_ID}
+   */
+  public Mono<WalletBalanceView> get(String phoneNumber) {
+    return redisTemplate.opsForValue().get(balanceKey(phoneNumber))
+      .map(value -> decode(phoneNumber, value));
+  }
+
+  /**
+   * Guarda la vista de saldo salvo que la caché tenga una versión más reciente.
+   *
+   * @param view la vista a guardar
+   * @param ttl tiempo de vida de la entrada
+   * @return Mono que emite true si se guardó
+   */
+  public Mono<Boolean> putIfNewer(WalletBalanceView view, Duration ttl) {
+    return Mono.defer(() -> redisTemplate.execute(SET_IF_NEWER_SCRIPT,
+        List.of(balanceKey(view.getPhoneNumber())),
+        List.of(Long.toString(view.currentVersion()), encode(view),
+          Long.toString(ttl.toMillis())))
+      .next()
+      .map(result -> result == 1L));
+  }
+
+  /**
+   * Registra que no existe billetera para el teléfono, solo si la clave no existe.
+   *
+   * @param phoneNumber el número de teléfono sin billetera
+   * @param ttl tiempo de vida de la marca
+   * @return Mono que emite true si se registró la marca
+   */
+  public Mono<Boolean> putAbsentMarker(String phoneNumber, Duration ttl) {
+    return redisTemplate.opsForValue()
+      .setIfAbsent(balanceKey(phoneNumber), ABSENT_MARKER, ttl);
+  }
+
+  /**
+   * Elimina la vista de saldo de una billetera.
+   *
+   * @param phoneNumber el número de teléfono de la billetera
+   * @return Mono que emite el número de claves eliminadas
+   */
+  public Mono<Long> delete(String phoneNumber) {
+    return redisTemplate.delete(balanceKey(phoneNumber));
+  }
+
+  private static String encode(WalletBalanceView view) {
+    return view.currentVersion() + SEPARATOR
+      + (view.getStatus() != null ? view.getStatus().name() : "") + SEPARATOR
+      + (view.getBalance() != null ? view.getBalance().toPlainString() : "");
+  }
+
+  private static WalletBalanceView decode(String phoneNumber, String value) {
+    if (ABSENT_MARKER.equals(value)) {
+      return WalletBalanceView.builder()
+        .id(WalletCacheStore.ABSENT_MARKER_ID)
+        .phoneNumber(phoneNumber)
+        .build();
+    }
+    String[] parts = value.split("\\" + SEPARATOR, -1);
+    return WalletBalanceView.builder()
+      .phoneNumber(phoneNumber)
+      .version(Long.parseLong(parts[0]))
+      .status(parts[1].isEmpty() ? null : YankiWallet.YankiWalletStatus.valueOf(parts[1]))
+      .balance(parts[2].isEmpty() ? null : new BigDecimal(parts[2]))
+      .build();
+  }
+
+  private static String balanceKey(String phoneNumber) {
+    return "wallet:bal:" + phoneNumber;
+  }
+}
@@ -0,0 +1,88 @@
+package com.bank.yanki.infrastructure.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom en memoria, seguro entre hilos y sin bloqueos.
+ *
+ * <p>{@link #mightContain} nunca da falsos negativos para las claves añadidas; la tasa de
+ * falsos positivos se acerca a la indicada mientras no se superen las claves
+ * esperadas.</p>
+ *
+ */
+final class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final int bitCount;
+  private final int hashCount;
+
+  /**
+   * Construye un filtro dimensionado para las claves esperadas.
+   *
+   * @param expectedKeys número de claves esperadas
+   * @param falsePositiveRate tasa de falsos positivos deseada
+   */
+  BloomFilter(int expectedKeys, double falsePositiveRate) {
+    long optimalBits = (long) Math.ceil(
+      -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bitCount = (int) Math.max(64, Math.min(optimalBits, Integer.MAX_VALUE - 63));
+    this.hashCount = Math.max(1,
+      (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+    this.bits = new AtomicLongArray((bitCount + 63) / 64);
+  }
+
+  /**
+   * Añade una clave al filtro.
+   *
+   * @param key la clave
+   */
+  void put(String key) {
+    long hash = hash(key);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int index = 0; index < hashCount; index++) {
+      int bit = Math.floorMod(first + index * second, bitCount);
+      int word = bit >>> 6;
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * Indica si la clave pudo añadirse al filtro.
+   *
+   * @param key la clave
+   * @return false si la clave nunca se añadió; true si probablemente se añadió
+   */
+  boolean mightContain(String key) {
+    long hash = hash(key);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int index = 0; index < hashCount; index++) {
+      int bit = Math.floorMod(first + index * second, bitCount);
+      if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * FNV-1a de 64 bits sobre los bytes UTF-8 de la clave, con mezcla final.
+   */
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte value : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= value;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,227 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.infrastructure.cache.store.WalletCacheStore;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Presupuesto de tiempo y circuit breaker para las operaciones sobre Redis.
+ *
+ * <p>Cada llamada a Redis se limita a {@code app.cache.timeout} y pasa por un circuit
+ * breaker. Si la llamada falla, expira o el circuito está abierto, las lecturas se
+ * tratan como fallo de caché (la billetera se busca en MongoDB) y las escrituras se
+ * descartan, de modo que una caché degradada nunca hace más lento el servicio que no
+ * tener caché.</p>
+ *
+ * <p>Los teléfonos cuya escritura tras un cambio en base de datos se descartó se anotan
+ * como pendientes de invalidar y sus entradas se eliminan de Redis en cuanto el circuito
+ * vuelve a estar cerrado, para no servir después un saldo anterior al descartado. Los
+ * rellenos de la caché tras una lectura ({@link #fill}) no se anotan: lo que queda en
+ * Redis no es más antiguo que lo descartado.</p>
+ *
+ * <p>Métricas: estado y llamadas del circuito ({@code resilience4j.circuitbreaker.*}),
+ * transiciones ({@code yanki.cache.circuit.transitions}), operaciones que evitaron la
+ * caché ({@code yanki.cache.bypass}) e invalidaciones pendientes
+ * ({@code yanki.cache.invalidations.pending}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class CacheCircuitBreaker {
+
+  static final String CIRCUIT_BREAKER_NAME = "redis-cache";
+
+  private final CircuitBreaker circuitBreaker;
+  private final WalletCacheStore cacheStore;
+  private final BalanceViewCache balanceViewCache;
+  private final MeterRegistry meterRegistry;
+  private final Set<String> pendingInvalidations = ConcurrentHashMap.newKeySet();
+  private final Duration timeout;
+  private final int maxPendingInvalidations;
+
+  /**
+   * Construye el circuit breaker con la configuración indicada.
+   *
+   * @param cacheStore almacén de billeteras, usado para las invalidaciones pendientes
+   * @param balanceViewCache vistas de saldo, usadas para las invalidaciones pendientes
+   * @param meterRegistry registro de métricas
+   * @param timeout tiempo máximo de cada llamada a Redis
+   * @param failureRateThreshold porcentaje de fallos que abre el circuito
+   * @param slidingWindowSize número de llamadas consideradas para la tasa de fallos
+   * @param minimumCalls llamadas mínimas antes de evaluar la tasa de fallos
+   * @param openDuration tiempo que el circuito permanece abierto
+   * @param halfOpenCalls llamadas de prueba permitidas con el circuito semiabierto
+   * @param maxPendingInvalidations máximo de teléfonos pendientes de invalidar
+   */
+  public CacheCircuitBreaker(
+    WalletCacheStore cacheStore,
+    BalanceViewCache balanceViewCache,
+    MeterRegistry meterRegistry,
+    @Value("${app.cache.timeout:100ms}") Duration timeout,
+    @Value("${app.cache.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+    @Value("${app.cache.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+    @Value("${app.cache.circuit-breaker.minimum-calls:20}") int minimumCalls,
+    @Value("${app.cache.circuit-breaker.open-duration:10s}") Duration openDuration,
+    @Value("${app.cache.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+    @Value("${app.cache.circuit-breaker.max-pending-invalidations:10000}")
+    int maxPendingInvalidations) {
+    this.cacheStore = cacheStore;
+    this.balanceViewCache = balanceViewCache;
+    this.meterRegistry = meterRegistry;
+    this.timeout = timeout;
+    this.maxPendingInvalidations = maxPendingInvalidations;
+
+    CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+      .failureRateThreshold(failureRateThreshold)
+      .slidingWindowSize(slidingWindowSize)
+      .minimumNumberOfCalls(minimumCalls)
+      .waitDurationInOpenState(openDuration)
+      .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+      .automaticTransitionFromOpenToHalfOpenEnabled(true)
+      .build();
+    CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+    this.circuitBreaker = registry.circuitBreaker(CIRCUIT_BREAKER_NAME);
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    meterRegistry.gaugeCollectionSize("yanki.cache.invalidations.pending", Tags.empty(),
+      pendingInvalidations);
+
+    circuitBreaker.getEventPublisher().onStateTransition(event -> {
+      CircuitBreaker.StateTransition transition = event.getStateTransition();
+      meterRegistry.counter("yanki.cache.circuit.transitions",
+        "from", transition.getFromState().name(),
+        "to", transition.getToState().name()).increment();
+      log.warn("Redis cache circuit breaker: {} -> {}", transition.getFromState(),
+        transition.getToState());
+      if (transition.getToState() == CircuitBreaker.State.CLOSED) {
+        flushPendingInvalidations();
+      }
+    });
+  }
+
+  /**
+   * Ejecuta una lectura sobre Redis con presupuesto de tiempo y circuit breaker.
+   *
+   * @param call la lectura a ejecutar
+   * @param fallback resultado a devolver si la lectura no se puede completar
+   * @param <T> tipo del resultado
+   * @return Mono con el resultado de la lectura o el de respaldo
+   */
+  public <T> Mono<T> read(Mono<T> call, Mono<T> fallback) {
+    return guard(call)
+      .onErrorResume(error -> {
+        recordBypass("read", error);
+        return fallback;
+      });
+  }
+
+  /**
+   * Ejecuta una escritura sobre Redis que sigue a un cambio en base de datos, con
+   * presupuesto de tiempo y circuit breaker.
+   *
+   * <p>Si no se completa, el teléfono queda pendiente de invalidar.</p>
+   *
+   * @param phoneNumber el teléfono de la billetera escrita
+   * @param call la escritura a ejecutar
+   * @param droppedValue resultado a devolver si la escritura se descarta
+   * @param <T> tipo del resultado
+   * @return Mono con el resultado de la escritura o {@code droppedValue}
+   */
+  public <T> Mono<T> write(String phoneNumber, Mono<T> call, T droppedValue) {
+    return guard(call)
+      .onErrorResume(error -> {
+        recordBypass("write", error);
+        addPendingInvalidation(phoneNumber);
+        return Mono.just(droppedValue);
+      });
+  }
+
+  /**
+   * Ejecuta un relleno de la caché con datos leídos de base de datos, con presupuesto de
+   * tiempo y circuit breaker.
+   *
+   * <p>A diferencia de {@link #write}, si no se completa el teléfono no queda pendiente
+   * de invalidar.</p>
+   *
+   * @param call la escritura a ejecutar
+   * @param droppedValue resultado a devolver si la escritura se descarta
+   * @param <T> tipo del resultado
+   * @return Mono con el resultado de la escritura o {@code droppedValue}
+   */
+  public <T> Mono<T> fill(Mono<T> call, T droppedValue) {
+    return guard(call)
+      .onErrorResume(error -> {
+        recordBypass("fill", error);
+        return Mono.just(droppedValue);
+      });
+  }
+
+  /**
+   * Reintenta las invalidaciones pendientes mientras el circuito está cerrado.
+   */
+  @Scheduled(fixedDelayString = "${app.cache.circuit-breaker.invalidation-retry:PT10S}")
+  public void retryPendingInvalidations() {
+    if (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) {
+      flushPendingInvalidations();
+    }
+  }
+
+  private <T> Mono<T> guard(Mono<T> call) {
+    return call
+      .timeout(timeout)
+      .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+  }
+
+  private void recordBypass(String operation, Throwable error) {
+    String reason = error instanceof CallNotPermittedException ? "open"
+      : error instanceof TimeoutException ? "timeout" : "error";
+    meterRegistry.counter("yanki.cache.bypass", "operation", operation, "reason", reason)
+      .increment();
+    if (!(error instanceof CallNotPermittedException)) {
+      log.warn("Redis cache {} bypassed ({}): {}", operation, reason, error.getMessage());
+    }
+  }
+
+  private void addPendingInvalidation(String phoneNumber) {
+    if (pendingInvalidations.size() >= maxPendingInvalidations) {
+      meterRegistry.counter("yanki.cache.invalidations.dropped").increment();
+      log.warn("Pending cache invalidations full, dropping phone: {}", phoneNumber);
+      return;
+    }
+    pendingInvalidations.add(phoneNumber);
+  }
+
+  private void flushPendingInvalidations() {
+    if (pendingInvalidations.isEmpty()) {
+      return;
+    }
+    List<String> phones = new ArrayList<>(pendingInvalidations);
+    pendingInvalidations.removeAll(phones);
+    Flux.fromIterable(phones)
+      .flatMap(phone -> guard(cacheStore.delete(phone).then(balanceViewCache.delete(phone)))
+        .onErrorResume(error -> {
+          pendingInvalidations.add(phone);
+          return Mono.empty();
+        }), 16)
+      .then()
+      .doOnSuccess(result -> log.info("Pending cache invalidations flushed: {}", phones.size()))
+      .subscribe();
+  }
+}
@@ -0,0 +1,216 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.domain.model.HotKeySnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registro de los números de teléfono más consultados (hot keys).
+ *
+ * <p>Los accesos se cuentan en memoria y se vuelcan periódicamente a un sorted set de
+ * Redis ({@code {wallet:hot}}) compartido por todas las instancias, a través de un sorted
+ * set por instancia con la misma etiqueta hash, de modo que ambos quedan en el mismo slot
+ * de Redis Cluster. Una vez por intervalo de volcado, y no una vez por instancia, las
+ * puntuaciones anteriores se multiplican por un factor de decaimiento: la instancia que
+ * obtiene la concesión {@code {wallet:hot}:decay} lo aplica en su volcado. Así la lista
+ * refleja los accesos recientes al mismo ritmo sea cual sea el número de instancias, y
+ * solo se conservan las claves mejor puntuadas.</p>
+ *
+ * <p>Cada {@code app.cache.hot-keys.persist-interval} la lista se copia en MongoDB
+ * ({@link HotKeySnapshot}). Si Redis la pierde, {@link #topKeys} la recupera de esa copia
+ * y la vuelve a escribir en Redis, conservando el orden.</p>
+ *
+ * <p>La lista se usa al arrancar para precargar las cachés ({@link WalletCacheWarmer}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class HotKeyTracker {
+
+  static final String HOT_KEYS_KEY = "{wallet:hot}";
+  static final String DECAY_LEASE_KEY = HOT_KEYS_KEY + ":decay";
+  static final String SNAPSHOT_ID = "wallet:hot";
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final String deltaKey;
+  private final String nodeId;
+  private volatile ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+  @Value("${app.cache.hot-keys.max-keys:5000}")
+  private int maxKeys;
+
+  @Value("${app.cache.hot-keys.max-tracked:50000}")
+  private int maxTracked;
+
+  @Value("${app.cache.hot-keys.decay:0.5}")
+  private double decay;
+
+  @Value("${app.cache.hot-keys.flush-interval:PT60S}")
+  private Duration flushInterval;
+
+  /**
+   * Construye el registro de hot keys.
+   *
+   * @param redisTemplate plantilla Redis de cadenas
+   * @param mongoTemplate plantilla de MongoDB, donde se copia la lista
+   * @param localCache caché local, de la que se toma el identificador de nodo
+   * @param meterRegistry registro de métricas
+   */
+  public HotKeyTracker(ReactiveStringRedisTemplate redisTemplate,
+                       ReactiveMongoTemplate mongoTemplate, LocalWalletCache localCache,
+                       MeterRegistry meterRegistry) {
+    this.redisTemplate = redisTemplate;
+    this.mongoTemplate = mongoTemplate;
+    this.nodeId = localCache.getNodeId();
+    this.deltaKey = HOT_KEYS_KEY + ":delta:" + nodeId;
+    meterRegistry.gauge("yanki.cache.hotkeys.tracked", Tags.empty(), this,
+      tracker -> tracker.counts.size());
+  }
+
+  /**
+   * Registra un acceso a la billetera del teléfono indicado.
+   *
+   * <p>Si ya se están siguiendo demasiados teléfonos distintos en el intervalo actual,
+   * los nuevos se ignoran hasta el siguiente volcado.</p>
+   *
+   * @param phoneNumber el número de teléfono consultado
+   */
+  public void record(String phoneNumber) {
+    LongAdder counter = counts.get(phoneNumber);
+    if (counter == null) {
+      if (counts.size() >= maxTracked) {
+        return;
+      }
+      counter = counts.computeIfAbsent(phoneNumber, key -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  /**
+   * Recupera los teléfonos más consultados, de mayor a menor puntuación.
+   *
+   * <p>Si la lista no está en Redis o Redis no responde, se lee de la copia en
+   * MongoDB.</p>
+   *
+   * @param limit número máximo de teléfonos a devolver
+   * @return Flux con los números de teléfono
+   */
+  public Flux<String> topKeys(int limit) {
+    return redisTemplate.opsForZSet()
+      .reverseRange(HOT_KEYS_KEY, Range.closed(0L, (long) limit - 1))
+      .collectList()
+      .onErrorResume(error -> {
+        log.warn("Error reading hot keys from Redis: {}", error.getMessage());
+        return Mono.just(List.of());
+      })
+      .flatMapMany(keys -> keys.isEmpty() ? restore(limit) : Flux.fromIterable(keys));
+  }
+
+  /**
+   * Copia en MongoDB la lista de Redis, si no está vacía.
+   */
+  @Scheduled(fixedDelayString = "${app.cache.hot-keys.persist-interval:PT5M}",
+    initialDelayString = "${app.cache.hot-keys.persist-interval:PT5M}")
+  public void persist() {
+    redisTemplate.opsForZSet()
+      .reverseRange(HOT_KEYS_KEY, Range.closed(0L, (long) maxKeys - 1))
+      .collectList()
+      .filter(keys -> !keys.isEmpty())
+      .flatMap(keys -> mongoTemplate.save(HotKeySnapshot.builder()
+        .id(SNAPSHOT_ID)
+        .phoneNumbers(keys)
+        .updatedAt(Instant.now())
+        .build()))
+      .doOnSuccess(saved -> log.debug("Hot keys persisted: {}",
+        saved != null ? saved.getPhoneNumbers().size() : 0))
+      .onErrorResume(error -> {
+        log.warn("Error persisting hot keys: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .subscribe();
+  }
+
+  /**
+   * Vuelca los accesos contados a Redis y recorta la lista a las claves mejor puntuadas.
+   *
+   * <p>El decaimiento de las puntuaciones anteriores solo se aplica si esta instancia
+   * obtiene la concesión del intervalo; las demás suman sus accesos sin decaimiento.</p>
+   */
+  @Scheduled(fixedDelayString = "${app.cache.hot-keys.flush-interval:PT60S}")
+  public void flush() {
+    Map<String, LongAdder> snapshot = counts;
+    counts = new ConcurrentHashMap<>();
+    List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>(snapshot.size());
+    snapshot.forEach((phone, counter) ->
+      tuples.add(ZSetOperations.TypedTuple.of(phone, (double) counter.sum())));
+
+    redisTemplate.opsForValue().setIfAbsent(DECAY_LEASE_KEY, nodeId, flushInterval)
+      .defaultIfEmpty(false)
+      .flatMap(decayed -> {
+        if (tuples.isEmpty()) {
+          // Sin accesos que sumar, solo se aplica el decaimiento si toca a esta instancia
+          return decayed
+            ? redisTemplate.opsForZSet().unionAndStore(HOT_KEYS_KEY, List.of(),
+              HOT_KEYS_KEY, Aggregate.SUM, Weights.of(decay))
+            : Mono.just(0L);
+        }
+        return redisTemplate.opsForZSet().addAll(deltaKey, tuples)
+          .then(redisTemplate.opsForZSet().unionAndStore(HOT_KEYS_KEY, List.of(deltaKey),
+            HOT_KEYS_KEY, Aggregate.SUM, Weights.of(decayed ? decay : 1, 1)))
+          .then(redisTemplate.opsForZSet().removeRange(HOT_KEYS_KEY,
+            Range.closed(0L, (long) -maxKeys - 1)))
+          .then(redisTemplate.delete(deltaKey));
+      })
+      .doOnSuccess(result -> log.debug("Hot keys flushed: {}", tuples.size()))
+      .onErrorResume(error -> {
+        log.warn("Error flushing hot keys: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .subscribe();
+  }
+
+  /**
+   * Lee la lista de la copia en MongoDB y la vuelve a escribir en Redis, con puntuaciones
+   * decrecientes que conservan su orden.
+   */
+  private Flux<String> restore(int limit) {
+    return mongoTemplate.findById(SNAPSHOT_ID, HotKeySnapshot.class)
+      .filter(snapshot -> snapshot.getPhoneNumbers() != null
+        && !snapshot.getPhoneNumbers().isEmpty())
+      .flatMapMany(snapshot -> {
+        List<String> keys = snapshot.getPhoneNumbers();
+        List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>(keys.size());
+        for (int index = 0; index < keys.size(); index++) {
+          tuples.add(ZSetOperations.TypedTuple.of(keys.get(index),
+            (double) (keys.size() - index)));
+        }
+        log.info("Hot keys restored from MongoDB: {}", keys.size());
+        return redisTemplate.opsForZSet().addAll(HOT_KEYS_KEY, tuples)
+          .onErrorResume(error -> {
+            log.warn("Error restoring hot keys to Redis: {}", error.getMessage());
+            return Mono.empty();
+          })
+          .thenMany(Flux.fromIterable(keys).take(limit));
+      });
+  }
+}
@@ -0,0 +1,385 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.domain.exception.DuplicateRequestException;
+import com.bank.yanki.domain.exception.IdempotencyKeyReuseException;
+import com.bank.yanki.domain.exception.IdempotencyUnavailableException;
+import com.bank.yanki.domain.exception.IdempotentRequestFailedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registro de claves de idempotencia en Redis, en {@code idem:{ámbito}:{clave}}.
+ *
+ * <p>La primera petición con una clave la reclama con {@code SET NX} y una marca de
+ * procesamiento propia que caduca en {@code app.idempotency.pending-ttl}; mientras la
+ * operación sigue en curso, incluida la espera en su carril, la marca se renueva cada
+ * tercio de ese plazo. Al terminar, la marca se reemplaza por el resultado, que se
+ * conserva {@code app.idempotency.ttl}. Las repeticiones reciben ese resultado sin volver
+ * a ejecutar la operación, o {@link DuplicateRequestException} mientras la original sigue
+ * en curso. Si la operación no produce resultado, o falla con un error que el llamador
+ * declara anterior a cualquier cambio, la clave se libera y puede reintentarse. Cualquier
+ * otro error, o la cancelación de la petición, puede llegar con las billeteras ya
+ * modificadas: el error se guarda como resultado y las repeticiones reciben
+ * {@link IdempotentRequestFailedException} con su mensaje, sin volver a ejecutar la
+ * operación.</p>
+ *
+ * <p>La clave se asocia a la huella de la petición original. Una repetición con la misma
+ * clave y otra huella, por ejemplo con otro importe o destinatario, falla con
+ * {@link IdempotencyKeyReuseException} en lugar de recibir el resultado original.</p>
+ *
+ * <p>Un filtro de Bloom local recuerda las claves vistas por esta instancia. Una clave
+ * que el filtro no conoce, el caso habitual, se reclama directamente con una sola
+ * llamada; una que puede conocer se lee antes, para responder a la repetición sin
+ * escribir. El filtro se renueva cada {@code ttl}, conservando la generación anterior.
+ * Si Redis no responde, la operación no se ejecuta y falla con
+ * {@link IdempotencyUnavailableException}: el filtro de una instancia no sabe qué claves
+ * procesaron las demás ni las anteriores a un reinicio.</p>
+ *
+ * <p>Métricas: resultados repetidos ({@code yanki.idempotency.replayed}), repeticiones
+ * en curso ({@code yanki.idempotency.in-progress}), claves reutilizadas
+ * ({@code yanki.idempotency.mismatch}), peticiones rechazadas sin Redis
+ * ({@code yanki.idempotency.unavailable}) y resultados no guardados porque la marca ya no
+ * era propia ({@code yanki.idempotency.lost-claims}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  private static final String PENDING_PREFIX = "pending:";
+  private static final String DONE_PREFIX = "done:";
+  private static final String FAILED_PREFIX = "failed:";
+  private static final String CANCELLED = "Request cancelled before its outcome was known";
+  private static final char SEPARATOR = ':';
+  private static final RedisScript<Long> COMPLETE_SCRIPT = RedisScript.of(
+    "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+      + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+      + "return 1 "
+      + "end "
+      + "return 0", Long.class);
+  private static final RedisScript<Long> REFRESH_SCRIPT = RedisScript.of(
+    "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+      + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+      + "end "
+      + "return 0", Long.class);
+  private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+    "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+      + "return redis.call('DEL', KEYS[1]) "
+      + "end "
+      + "return 0", Long.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final Duration ttl;
+  private final Duration pendingTtl;
+  private final int expectedKeys;
+  private final double falsePositiveRate;
+  private volatile BloomFilter currentKeys;
+  private volatile BloomFilter previousKeys;
+  private volatile long generationStart = System.nanoTime();
+
+  /**
+   * Construye el registro con la configuración indicada.
+   *
+   * @param redisTemplate plantilla Redis de cadenas
+   * @param objectMapper serializador de los resultados
+   * @param meterRegistry registro de métricas
+   * @param ttl tiempo que se conserva el resultado de una clave
+   * @param pendingTtl tiempo que se reserva una clave mientras se procesa
+   * @param expectedKeys claves esperadas por generación del filtro de Bloom
+   * @param falsePositiveRate tasa de falsos positivos del filtro de Bloom
+   */
+  public IdempotencyStore(
+    ReactiveStringRedisTemplate redisTemplate,
+    ObjectMapper objectMapper,
+    MeterRegistry meterRegistry,
+    @Value("${app.idempotency.ttl:24h}") Duration ttl,
+    @Value("${app.idempotency.pending-ttl:30s}") Duration pendingTtl,
+    @Value("${app.idempotency.bloom.expected-keys:100000}") int expectedKeys,
+    @Value("${app.idempotency.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.ttl = ttl;
+    this.pendingTtl = pendingTtl;
+    this.expectedKeys = expectedKeys;
+    this.falsePositiveRate = falsePositiveRate;
+    this.currentKeys = new BloomFilter(expectedKeys, falsePositiveRate);
+    this.previousKeys = new BloomFilter(expectedKeys, falsePositiveRate);
+  }
+
+  /**
+   * Ejecuta la operación una sola vez por clave y repite su resultado a las peticiones
+   * con la misma clave.
+   *
+   * @param scope ámbito de la clave, que separa los orígenes de las peticiones
+   * @param key clave de idempotencia; si es null o vacía la operación se ejecuta siempre
+   * @param fingerprint datos de la petición que deben coincidir en las repeticiones
+   * @param type tipo del resultado, para leerlo de Redis
+   * @param operation proveedor de la operación
+   * @param retryable errores de la operación anteriores a cualquier cambio, que liberan la
+   *     clave
+   * @param <T> tipo del resultado
+   * @return Mono con el resultado original, {@link DuplicateRequestException} si la
+   *     petición original sigue en curso, {@link IdempotencyKeyReuseException} si la clave
+   *     se usó con otra petición, {@link IdempotentRequestFailedException} si la petición
+   *     original falló, o {@link IdempotencyUnavailableException} si Redis no responde
+   */
+  public <T> Mono<T> execute(String scope, String key, String fingerprint, Class<T> type,
+                            Supplier<Mono<T>> operation, Predicate<Throwable> retryable) {
+    if (key == null || key.isBlank()) {
+      return Mono.defer(operation);
+    }
+    String redisKey = "idem:" + scope + ":" + key;
+    String hash = hash(fingerprint);
+    return Mono.defer(() -> {
+      boolean seen = mightHaveSeen(redisKey);
+      remember(redisKey);
+      Mono<Claim> claim = seen
+        ? redisTemplate.opsForValue().get(redisKey)
+          .map(Claim::existing)
+          .switchIfEmpty(Mono.defer(() -> claim(redisKey, hash)))
+        : claim(redisKey, hash);
+      return claim
+        .onErrorMap(error -> {
+          log.warn("Idempotency store unavailable, rejecting key {}: {}", key,
+            error.getMessage());
+          meterRegistry.counter("yanki.idempotency.unavailable", "scope", scope).increment();
+          return new IdempotencyUnavailableException(key, error);
+        })
+        .flatMap(current -> current.token != null
+          ? run(redisKey, current.token, operation, retryable)
+          : replay(scope, key, hash, current.value, type));
+    });
+  }
+
+  private Mono<Claim> claim(String redisKey, String hash) {
+    String token = PENDING_PREFIX + hash + SEPARATOR + UUID.randomUUID();
+    return redisTemplate.opsForValue().setIfAbsent(redisKey, token, pendingTtl)
+      .flatMap(acquired -> acquired
+        ? Mono.just(Claim.acquired(token))
+        : redisTemplate.opsForValue().get(redisKey)
+          .map(Claim::existing)
+          // La clave caducó entre ambas llamadas
+          .switchIfEmpty(Mono.defer(() -> claim(redisKey, hash))));
+  }
+
+  private <T> Mono<T> run(String redisKey, String token, Supplier<Mono<T>> operation,
+                          Predicate<Throwable> retryable) {
+    AtomicBoolean settled = new AtomicBoolean();
+    return Mono.using(() -> keepClaimed(redisKey, token), claimed -> Mono.defer(operation),
+        Disposable::dispose)
+      .doOnSuccess(result -> settled.set(true))
+      .doOnError(error -> settled.set(true))
+      .flatMap(result -> complete(redisKey, token, result).thenReturn(result))
+      .switchIfEmpty(release(redisKey, token).then(Mono.empty()))
+      .onErrorResume(error -> (retryable.test(error) ? release(redisKey, token)
+        : fail(redisKey, token, String.valueOf(error.getMessage())))
+        .then(Mono.error(error)))
+      // Cancelada en curso, la operación pudo cambiar las billeteras sin guardar el resultado
+      .doOnCancel(() -> {
+        if (!settled.get()) {
+          fail(redisKey, token, CANCELLED).subscribe();
+        }
+      });
+  }
+
+  /**
+   * Renueva la marca de procesamiento mientras la operación sigue en curso, para que no
+   * caduque aunque la operación espere en su carril más de {@code pending-ttl}.
+   */
+  private Disposable keepClaimed(String redisKey, String token) {
+    return Flux.interval(pendingTtl.dividedBy(3))
+      .concatMap(tick -> redisTemplate.execute(REFRESH_SCRIPT, List.of(redisKey),
+          List.of(token, Long.toString(pendingTtl.toMillis())))
+        .onErrorResume(error -> {
+          log.warn("Idempotency key {} not refreshed: {}", redisKey, error.getMessage());
+          return Mono.empty();
+        }))
+      .subscribe();
+  }
+
+  private <T> Mono<T> replay(String scope, String key, String hash, String value,
+                             Class<T> type) {
+    Stored stored = Stored.parse(value);
+    if (stored.hash != null && !stored.hash.equals(hash)) {
+      meterRegistry.counter("yanki.idempotency.mismatch", "scope", scope).increment();
+      return Mono.error(new IdempotencyKeyReuseException(key));
+    }
+    if (stored.pending) {
+      meterRegistry.counter("yanki.idempotency.in-progress", "scope", scope).increment();
+      return Mono.error(new DuplicateRequestException(key));
+    }
+    if (stored.failed) {
+      meterRegistry.counter("yanki.idempotency.replayed", "scope", scope).increment();
+      log.info("Replaying failure for idempotency key {}", key);
+      return Mono.error(new IdempotentRequestFailedException(stored.payload));
+    }
+    meterRegistry.counter("yanki.idempotency.replayed", "scope", scope).increment();
+    log.info("Replaying result for idempotency key {}", key);
+    return Mono.fromCallable(() -> objectMapper.readValue(stored.payload, type));
+  }
+
+  /**
+   * Reemplaza la marca de procesamiento por el resultado; los fallos solo se registran.
+   */
+  private Mono<Void> complete(String redisKey, String token, Object result) {
+    String value;
+    try {
+      value = DONE_PREFIX + Stored.parse(token).hash + SEPARATOR
+        + objectMapper.writeValueAsString(result);
+    } catch (JsonProcessingException e) {
+      log.warn("Idempotent result for {} not serializable: {}", redisKey, e.getMessage());
+      return release(redisKey, token);
+    }
+    return store(redisKey, token, value);
+  }
+
+  /**
+   * Reemplaza la marca de procesamiento por el error de una operación que pudo modificar
+   * las billeteras; los fallos solo se registran.
+   */
+  private Mono<Void> fail(String redisKey, String token, String message) {
+    return store(redisKey, token,
+      FAILED_PREFIX + Stored.parse(token).hash + SEPARATOR + message);
+  }
+
+  private Mono<Void> store(String redisKey, String token, String value) {
+    return redisTemplate.execute(COMPLETE_SCRIPT, List.of(redisKey),
+        List.of(token, value, Long.toString(ttl.toMillis())))
+      .doOnNext(stored -> {
+        if (stored == 0) {
+          meterRegistry.counter("yanki.idempotency.lost-claims").increment();
+          log.warn("Idempotent result for {} not stored: the claim expired or was taken",
+            redisKey);
+        }
+      })
+      .then()
+      .onErrorResume(error -> {
+        log.warn("Idempotent result for {} not stored: {}", redisKey, error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  /**
+   * Libera la clave si sigue reservada por esta petición; los fallos solo se registran.
+   */
+  private Mono<Void> release(String redisKey, String token) {
+    return redisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), List.of(token))
+      .then()
+      .onErrorResume(error -> {
+        log.warn("Idempotency key {} not released: {}", redisKey, error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  private static String hash(String fingerprint) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(
+        String.valueOf(fingerprint).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private boolean mightHaveSeen(String redisKey) {
+    rotateIfExpired();
+    return currentKeys.mightContain(redisKey) || previousKeys.mightContain(redisKey);
+  }
+
+  private void remember(String redisKey) {
+    currentKeys.put(redisKey);
+  }
+
+  /**
+   * Renueva el filtro cada {@code ttl}; la generación anterior cubre las claves que aún
+   * pueden tener resultado en Redis.
+   */
+  private void rotateIfExpired() {
+    if (System.nanoTime() - generationStart < ttl.toNanos()) {
+      return;
+    }
+    synchronized (this) {
+      if (System.nanoTime() - generationStart >= ttl.toNanos()) {
+        previousKeys = currentKeys;
+        currentKeys = new BloomFilter(expectedKeys, falsePositiveRate);
+        generationStart = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * Estado de una clave: reclamada con {@code token} o con {@code value} ya guardado.
+   */
+  private static final class Claim {
+    private final String token;
+    private final String value;
+
+    private Claim(String token, String value) {
+      this.token = token;
+      this.value = value;
+    }
+
+    private static Claim acquired(String token) {
+      return new Claim(token, null);
+    }
+
+    private static Claim existing(String value) {
+      return new Claim(null, value);
+    }
+  }
+
+  /**
+   * Valor guardado de una clave: marca de procesamiento, resultado o error, con la huella
+   * de la petición que la reclamó. Los valores anteriores a las huellas no la tienen.
+   */
+  private static final class Stored {
+    private static final int HASH_LENGTH = 64;
+
+    private final boolean pending;
+    private final boolean failed;
+    private final String hash;
+    private final String payload;
+
+    private Stored(boolean pending, boolean failed, String hash, String payload) {
+      this.pending = pending;
+      this.failed = failed;
+      this.hash = hash;
+      this.payload = payload;
+    }
+
+    private static Stored parse(String value) {
+      boolean pending = value.startsWith(PENDING_PREFIX);
+      boolean failed = value.startsWith(FAILED_PREFIX);
+      String rest = value.substring(pending ? PENDING_PREFIX.length()
+        : failed ? FAILED_PREFIX.length() : DONE_PREFIX.length());
+      if (rest.length() > HASH_LENGTH && rest.charAt(HASH_LENGTH) == SEPARATOR
+        && rest.substring(0, HASH_LENGTH).chars().allMatch(Character::isLetterOrDigit)) {
+        return new Stored(pending, failed, rest.substring(0, HASH_LENGTH),
+          rest.substring(HASH_LENGTH + 1));
+      }
+      return new Stored(pending, failed, null, rest);
+    }
+  }
+}
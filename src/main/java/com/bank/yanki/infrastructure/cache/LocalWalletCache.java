@@ -0,0 +1,106 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché en memoria (L1) para billeteras Yanki.
+ *
+ * <p>Se ubica delante de Redis para evitar un viaje de red en los números de teléfono
+ * más consultados. Está acotada por tamaño y por TTL, y sus estadísticas (aciertos,
+ * fallos y evicciones) se exponen en Micrometer bajo el nombre de caché
+ * {@code wallet-l1}.</p>
+ *
+ * <p>Las billeteras se copian al almacenar y al leer, de modo que las modificaciones
+ * que realizan los flujos de pago sobre la instancia recibida nunca alteran el
+ * contenido de la caché.</p>
+ *
+ */
+@Slf4j
+@Component
+public class LocalWalletCache {
+
+  static final String CACHE_NAME = "wallet-l1";
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Cache<String, YankiWallet> cache;
+
+  /**
+   * Construye la caché local con los límites configurados.
+   *
+   * @param maxSize número máximo de billeteras en memoria
+   * @param ttl tiempo de vida de cada entrada desde su escritura
+   * @param meterRegistry registro de métricas donde se publican las estadísticas
+   */
+  public LocalWalletCache(@Value("${app.cache.local.max-size:10000}") long maxSize,
+                          @Value("${app.cache.local.ttl:30s}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(ttl)
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    log.info("Local wallet cache initialized - MaxSize: {}, TTL: {}, Node: {}",
+      maxSize, ttl, nodeId);
+  }
+
+  /**
+   * Recupera una copia de la billetera almacenada.
+   *
+   * @param phoneNumber el número de teléfono usado como clave
+   * @return una copia de la billetera, o null si no está en caché
+   */
+  public YankiWallet get(String phoneNumber) {
+    YankiWallet wallet = cache.getIfPresent(phoneNumber);
+    return wallet != null ? wallet.toBuilder().build() : null;
+  }
+
+  /**
+   * Almacena una copia de la billetera.
+   *
+   * @param phoneNumber el número de teléfono usado como clave
+   * @param wallet la billetera a almacenar
+   */
+  public void put(String phoneNumber, YankiWallet wallet) {
+    cache.put(phoneNumber, wallet.toBuilder().build());
+  }
+
+  /**
+   * Almacena una copia de la billetera solo si no hay una versión más reciente.
+   *
+   * @param phoneNumber el número de teléfono usado como clave
+   * @param wallet la billetera a almacenar
+   */
+  public void putIfNewer(String phoneNumber, YankiWallet wallet) {
+    cache.asMap().merge(phoneNumber, wallet.toBuilder().build(),
+      (current, candidate) ->
+        candidate.currentVersion() >= current.currentVersion() ? candidate : current);
+  }
+
+  /**
+   * Elimina la billetera de la caché local.
+   *
+   * @param phoneNumber el número de teléfono usado como clave
+   */
+  public void invalidate(String phoneNumber) {
+    cache.invalidate(phoneNumber);
+  }
+
+  /**
+   * Identificador de esta instancia, usado para ignorar las invalidaciones propias.
+   *
+   * @return el identificador del nodo
+   */
+  public String getNodeId() {
+    return nodeId;
+  }
+}
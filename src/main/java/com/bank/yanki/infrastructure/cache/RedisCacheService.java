@@ -1,12 +1,29 @@
 package com.bank.yanki.infrastructure.cache;
 
+import com.bank.yanki.application.event.WalletUpdatedEvent;
+import com.bank.yanki.domain.exception.WalletNotFoundException;
+import com.bank.yanki.domain.model.WalletBalanceView;
 import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.infrastructure.cache.store.WalletCacheStore;
+import com.bank.yanki.infrastructure.messaging.KafkaEventProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 /**
  * Servicio de caché para billeteras Yanki utilizando Redis.
@@ -17,63 +34,447 @@ import reactor.core.publisher.Mono;
  * <p>Utiliza Reactive Redis Template para operaciones no bloqueantes y
  * serialización JSON de las billeteras.</p>
  *
+ * <p>Delante de Redis se ubica una caché en memoria ({@link LocalWalletCache}) que
+ * se consulta primero. Las invalidaciones entre nodos se propagan mediante el topic
+ * {@code yanki.wallet.updated}. Los aciertos, fallos y evicciones de Redis se publican
+ * con los mismos nombres de métrica que la caché local, etiquetados como
+ * {@code wallet-redis}.</p>
+ *
+ * <p>Los teléfonos sin billetera se registran con una marca de ausencia de TTL corto
+ * en la misma clave que usaría la billetera, de modo que al crearla la escritura
+ * reemplaza la marca en una única operación.</p>
+ *
+ * <p>Cada billetera se guarda junto a su versión y la escritura se descarta si Redis ya
+ * tiene una versión más reciente. Así, tras un pago se escriben directamente las
+ * billeteras guardadas (write-through) sin que una lectura concurrente más antigua pueda
+ * sobrescribirlas. El formato en Redis lo define el {@link WalletCacheStore} activo.</p>
+ *
+ * <p>El TTL de cada escritura se reduce en una fracción aleatoria ({@code app.cache.ttl-jitter})
+ * para que las billeteras cacheadas a la vez no expiren a la vez. Además, las lecturas
+ * cercanas a la expiración pueden refrescar la entrada por adelantado (XFetch): con una
+ * probabilidad que crece al acercarse el vencimiento y con el tiempo medio de carga desde
+ * MongoDB, se lanza una única recarga asíncrona mientras se sigue sirviendo el valor
+ * cacheado.</p>
+ *
+ * <p>Junto a cada billetera se guarda su vista de saldo ({@link BalanceViewCache}), que
+ * las validaciones de saldo leen sin transferir la billetera completa. Ambas entradas se
+ * escriben y eliminan a la vez.</p>
+ *
+ * <p>Todas las llamadas a Redis pasan por {@link CacheCircuitBreaker}: si Redis no
+ * responde a tiempo o el circuito está abierto, las lecturas se tratan como fallo de
+ * caché y las escrituras se descartan.</p>
+ *
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RedisCacheService {
 
-  private static final Duration WALLET_TTL = Duration.ofHours(1);
-  private final ReactiveRedisTemplate<String, YankiWallet> redisTemplate;
+  private static final String REDIS_CACHE_NAME = "wallet-redis";
+  private static final String BALANCE_CACHE_NAME = "wallet-balance-redis";
+  private static final double LOAD_TIME_SMOOTHING = 0.2;
+  private final WalletCacheStore cacheStore;
+  private final LocalWalletCache localCache;
+  private final KafkaEventProducer eventProducer;
+  private final MeterRegistry meterRegistry;
+  private final RequestCoalescer requestCoalescer;
+  private final CacheCircuitBreaker circuitBreaker;
+  private final BalanceViewCache balanceViewCache;
+
+  @Value("${app.cache.negative-ttl:30s}")
+  private Duration negativeTtl;
+
+  @Value("${app.cache.ttl:1h}")
+  private Duration walletTtl;
+
+  @Value("${app.cache.ttl-jitter:0.1}")
+  private double ttlJitter;
+
+  @Value("${app.cache.early-refresh.enabled:true}")
+  private boolean earlyRefreshEnabled;
+
+  @Value("${app.cache.early-refresh.beta:1.0}")
+  private double earlyRefreshBeta;
+
+  @Value("${app.cache.early-refresh.initial-load-time:50ms}")
+  private Duration initialLoadTime;
+
+  private volatile double loadTimeMillis = -1;
 
   /**
-   * Almacena una billetera en caché Redis.
+   * Almacena en caché Redis una billetera leída de base de datos.
+   *
+   * <p>La escritura se descarta si la caché ya contiene una versión más reciente de la
+   * billetera. Si la billetera acaba de cambiar en base de datos debe usarse
+   * {@link #writeThrough(YankiWallet)}.</p>
    *
    * @param phoneNumber El número de teléfono usado como clave
    * @param wallet La billetera a almacenar
-   * @return Mono que emite true si se almacenó correctamente
+   * @return Mono que emite true si se almacenó, o false si la caché tenía una versión
+   *     más reciente
    */
   public Mono<Boolean> cacheWallet(String phoneNumber, YankiWallet wallet) {
-    String key = "wallet:" + phoneNumber;
-    return redisTemplate.opsForValue()
-      .set(key, wallet, WALLET_TTL)
+    return putWallet(phoneNumber, wallet, false);
+  }
+
+  /**
+   * Almacena una billetera en Redis. Si la escritura sigue a un cambio en base de datos y
+   * se descarta, el teléfono queda pendiente de invalidar ({@link CacheCircuitBreaker}).
+   */
+  private Mono<Boolean> putWallet(String phoneNumber, YankiWallet wallet,
+                                  boolean afterChange) {
+    return Mono.defer(() -> {
+      localCache.putIfNewer(phoneNumber, wallet);
+      Duration ttl = jitteredTtl();
+      Mono<Boolean> put = cacheStore.putIfNewer(wallet, ttl)
+        .zipWith(balanceViewCache.putIfNewer(WalletBalanceView.of(wallet), ttl),
+          (stored, viewStored) -> stored);
+      return afterChange ? circuitBreaker.write(phoneNumber, put, false)
+        : circuitBreaker.fill(put, false);
+    })
+      .doOnSuccess(stored -> {
+        if (Boolean.TRUE.equals(stored)) {
+          meterRegistry.counter("cache.puts", "cache", REDIS_CACHE_NAME).increment();
+        }
+        log.debug("Wallet cached for phone: {} - Stored: {}", phoneNumber, stored);
+      })
+      .doOnError(error ->
+        log.error("Error caching wallet: {}", error.getMessage())
+      );
+  }
+
+  /**
+   * Registra en caché que no existe billetera para el teléfono.
+   *
+   * <p>La marca solo se escribe si la clave no existe, para no ocultar una billetera
+   * creada mientras se realizaba la consulta a base de datos.</p>
+   *
+   * @param phoneNumber El número de teléfono usado como clave
+   * @return Mono que emite true si se registró la marca de ausencia
+   */
+  public Mono<Boolean> cacheMissingWallet(String phoneNumber) {
+    return circuitBreaker.fill(cacheStore.putAbsentMarker(phoneNumber, negativeTtl), false)
       .doOnSuccess(result ->
-        log.debug("Wallet cached for phone: {}", phoneNumber)
+        log.debug("Missing wallet cached for phone: {}", phoneNumber)
       )
       .doOnError(error ->
-        log.error("Error caching wallet: {}", error.getMessage())
+        log.error("Error caching missing wallet: {}", error.getMessage())
       );
   }
 
+  /**
+   * Escribe en caché una billetera recién guardada y notifica a las demás instancias.
+   *
+   * <p>Debe usarse cuando la billetera cambió en base de datos, para que la siguiente
+   * lectura no tenga que ir a MongoDB y los otros nodos descarten la copia que mantienen
+   * en su caché local. La escritura pasa por {@link CacheCircuitBreaker#write}: si no se
+   * completa, por error, plazo agotado o circuito abierto, el teléfono queda pendiente de
+   * invalidar y su entrada se elimina de Redis en cuanto vuelve a responder, de modo que
+   * no queda un saldo obsoleto. El error nunca se propaga al flujo de negocio.</p>
+   *
+   * @param wallet La billetera actualizada
+   * @return Mono que emite la misma billetera recibida
+   */
+  public Mono<YankiWallet> writeThrough(YankiWallet wallet) {
+    String phoneNumber = wallet.getPhoneNumber();
+    return putWallet(phoneNumber, wallet, true)
+      .then(publishWalletUpdated(wallet.getId(), phoneNumber))
+      .onErrorResume(error -> Mono.empty())
+      .thenReturn(wallet);
+  }
+
+  /**
+   * Escribe en caché una billetera cuyo saldo acaba de cambiar en un pago.
+   *
+   * <p>Equivale a {@link #writeThrough(YankiWallet)}, incluida la invalidación pendiente
+   * si la escritura no se completa, pero permite al formato de caché aplicar solo la
+   * variación del saldo en lugar de reescribir la billetera completa.</p>
+   *
+   * @param wallet La billetera guardada, con el saldo resultante
+   * @param delta La variación aplicada al saldo (negativa si es un cargo)
+   * @return Mono que emite la misma billetera recibida
+   */
+  public Mono<YankiWallet> writeBalanceChange(YankiWallet wallet, BigDecimal delta) {
+    String phoneNumber = wallet.getPhoneNumber();
+    return Mono.defer(() -> {
+      localCache.putIfNewer(phoneNumber, wallet);
+      Duration ttl = jitteredTtl();
+      return circuitBreaker.write(phoneNumber, cacheStore.applyBalanceChange(wallet, delta, ttl)
+        .zipWith(balanceViewCache.putIfNewer(WalletBalanceView.of(wallet), ttl),
+          (stored, viewStored) -> stored), false);
+    })
+      .doOnSuccess(stored -> {
+        if (Boolean.TRUE.equals(stored)) {
+          meterRegistry.counter("cache.puts", "cache", REDIS_CACHE_NAME).increment();
+        }
+      })
+      .then(publishWalletUpdated(wallet.getId(), phoneNumber))
+      .onErrorResume(error -> Mono.empty())
+      .thenReturn(wallet);
+  }
+
   /**
    * Recupera una billetera del caché Redis.
    *
+   * <p>Consulta primero la caché local; si no la encuentra, consulta Redis y
+   * almacena el resultado en la caché local.</p>
+   *
    * @param phoneNumber El número de teléfono usado como clave
-   * @return Mono que emite la billetera si existe en caché, o empty si no existe
+   * @return Mono que emite la billetera si existe en caché, empty si no existe, o
+   *     error {@link WalletNotFoundException} si hay una marca de ausencia vigente
    */
   public Mono<YankiWallet> getCachedWallet(String phoneNumber) {
-    String key = "wallet:" + phoneNumber;
-    return redisTemplate.opsForValue()
-      .get(key)
-      .doOnSuccess(wallet -> {
-        if (wallet != null) {
+    return getCachedWallet(phoneNumber, null);
+  }
+
+  /**
+   * Recupera una billetera del caché Redis, refrescándola por adelantado si está
+   * próxima a expirar.
+   *
+   * <p>Cuando la entrada leída de Redis está cerca de su expiración, se decide de forma
+   * probabilística (XFetch) si recargarla. La recarga se ejecuta en segundo plano, una
+   * sola vez por teléfono aunque varias lecturas la soliciten, y la lectura actual
+   * devuelve el valor cacheado sin esperar. La entrada y su tiempo de vida restante se
+   * leen en una sola operación de Redis.</p>
+   *
+   * @param phoneNumber El número de teléfono usado como clave
+   * @param reloader Proveedor de la carga desde base de datos; null desactiva el refresco
+   * @return Mono que emite la billetera si existe en caché, empty si no existe, o
+   *     error {@link WalletNotFoundException} si hay una marca de ausencia vigente
+   */
+  public Mono<YankiWallet> getCachedWallet(String phoneNumber,
+                                           Supplier<Mono<YankiWallet>> reloader) {
+    return Mono.defer(() -> {
+      YankiWallet localWallet = localCache.get(phoneNumber);
+      if (localWallet != null) {
+        log.debug("Wallet local cache hit for phone: {}", phoneNumber);
+        return Mono.just(localWallet);
+      }
+      Mono<YankiWallet> cached = earlyRefreshEnabled && reloader != null
+        ? cacheStore.getWithTimeToLive(phoneNumber)
+          .doOnNext(entry -> {
+            if (!isMissingMarker(entry.getT1()) && shouldRefreshEarly(entry.getT2())) {
+              refreshInBackground(phoneNumber, reloader);
+            }
+          })
+          .map(Tuple2::getT1)
+        : cacheStore.get(phoneNumber);
+      return circuitBreaker.read(cached, Mono.empty())
+        .doOnSuccess(wallet -> meterRegistry.counter("cache.gets", "cache", REDIS_CACHE_NAME,
+          "result", wallet != null ? "hit" : "miss").increment())
+        .flatMap(wallet -> {
+          if (isMissingMarker(wallet)) {
+            log.debug("Missing wallet cache hit for phone: {}", phoneNumber);
+            return Mono.error(
+              new WalletNotFoundException("Wallet not found with phone number: " + phoneNumber));
+          }
           log.debug("Wallet cache hit for phone: {}", phoneNumber);
+          localCache.putIfNewer(phoneNumber, wallet);
+          return Mono.just(wallet);
+        });
+    });
+  }
+
+  /**
+   * Recupera la vista de saldo de una billetera.
+   *
+   * <p>Si la billetera completa está en la caché local, la vista se obtiene de ella sin
+   * consultar Redis.</p>
+   *
+   * @param phoneNumber El número de teléfono de la billetera
+   * @return Mono que emite la vista si existe en caché, empty si no existe, o error
+   *     {@link WalletNotFoundException} si hay una marca de ausencia vigente
+   */
+  public Mono<WalletBalanceView> getCachedBalanceView(String phoneNumber) {
+    return Mono.defer(() -> {
+      YankiWallet localWallet = localCache.get(phoneNumber);
+      if (localWallet != null) {
+        return Mono.just(WalletBalanceView.of(localWallet));
+      }
+      return circuitBreaker.read(balanceViewCache.get(phoneNumber), Mono.empty())
+        .doOnSuccess(view -> meterRegistry.counter("cache.gets", "cache", BALANCE_CACHE_NAME,
+          "result", view != null ? "hit" : "miss").increment())
+        .flatMap(view -> WalletCacheStore.ABSENT_MARKER_ID.equals(view.getId())
+          ? Mono.error(
+            new WalletNotFoundException("Wallet not found with phone number: " + phoneNumber))
+          : Mono.just(view));
+    });
+  }
+
+  /**
+   * Registra en la caché de saldos que no existe billetera para el teléfono.
+   *
+   * <p>Usa el mismo tiempo de vida corto que la marca de la billetera completa; la vista
+   * de una billetera creada después reemplaza la marca.</p>
+   *
+   * @param phoneNumber El número de teléfono usado como clave
+   * @return Mono que emite true si se registró la marca de ausencia
+   */
+  public Mono<Boolean> cacheMissingBalanceView(String phoneNumber) {
+    return circuitBreaker.fill(balanceViewCache.putAbsentMarker(phoneNumber, negativeTtl), false)
+      .doOnError(error ->
+        log.error("Error caching missing balance view: {}", error.getMessage())
+      );
+  }
+
+  /**
+   * Almacena la vista de saldo de una billetera leída de base de datos.
+   *
+   * @param view La vista a almacenar
+   * @return Mono que emite true si se almacenó
+   */
+  public Mono<Boolean> cacheBalanceView(WalletBalanceView view) {
+    return circuitBreaker.fill(balanceViewCache.putIfNewer(view, jitteredTtl()), false);
+  }
+
+  /**
+   * Recupera varias billeteras del caché en un solo viaje a Redis.
+   *
+   * <p>Las que no están en la caché local se leen con un único {@code MGET}. El mapa
+   * resultante distingue tres casos por teléfono: un valor presente es un acierto, un
+   * {@link Optional#empty()} es una marca de ausencia vigente y la falta de entrada es
+   * un fallo de caché.</p>
+   *
+   * @param phoneNumbers Los números de teléfono a recuperar
+   * @return Mono que emite el mapa de teléfono a billetera en caché
+   */
+  public Mono<Map<String, Optional<YankiWallet>>> getCachedWallets(
+    Collection<String> phoneNumbers) {
+    return Mono.defer(() -> {
+      Map<String, Optional<YankiWallet>> result = new HashMap<>();
+      List<String> remotePhones = new ArrayList<>();
+      for (String phoneNumber : phoneNumbers) {
+        YankiWallet localWallet = localCache.get(phoneNumber);
+        if (localWallet != null) {
+          result.put(phoneNumber, Optional.of(localWallet));
+        } else {
+          remotePhones.add(phoneNumber);
         }
-      });
+      }
+      if (remotePhones.isEmpty()) {
+        return Mono.just(result);
+      }
+      return circuitBreaker.read(cacheStore.multiGet(remotePhones), Mono.empty())
+        .map(wallets -> {
+          for (int i = 0; i < remotePhones.size(); i++) {
+            String phoneNumber = remotePhones.get(i);
+            YankiWallet wallet = wallets.get(i);
+            meterRegistry.counter("cache.gets", "cache", REDIS_CACHE_NAME,
+              "result", wallet != null ? "hit" : "miss").increment();
+            if (wallet == null) {
+              continue;
+            }
+            if (isMissingMarker(wallet)) {
+              result.put(phoneNumber, Optional.empty());
+            } else {
+              localCache.putIfNewer(phoneNumber, wallet);
+              result.put(phoneNumber, Optional.of(wallet));
+            }
+          }
+          log.debug("Wallet cache multi-get for {} phones - Resolved: {}",
+            remotePhones.size(), result.size());
+          return result;
+        })
+        .defaultIfEmpty(result);
+    });
   }
 
   /**
    * Elimina una billetera del caché Redis.
    *
+   * <p>También la elimina de la caché local y notifica a las demás instancias
+   * para que hagan lo mismo.</p>
+   *
    * @param phoneNumber El número de teléfono usado como clave
    * @return Mono que emite true si se eliminó correctamente
    */
   public Mono<Boolean> evictWalletCache(String phoneNumber) {
-    String key = "wallet:" + phoneNumber;
-    return redisTemplate.delete(key)
-      .map(count -> count > 0)
-      .doOnSuccess(result ->
-        log.debug("Wallet cache evicted for phone: {}", phoneNumber)
-      );
+    localCache.invalidate(phoneNumber);
+    return circuitBreaker.write(phoneNumber,
+        cacheStore.delete(phoneNumber)
+          .zipWith(balanceViewCache.delete(phoneNumber), (wallets, views) -> wallets > 0),
+        false)
+      .doOnSuccess(result -> {
+        meterRegistry.counter("cache.evictions", "cache", REDIS_CACHE_NAME).increment();
+        log.debug("Wallet cache evicted for phone: {}", phoneNumber);
+      })
+      .flatMap(result -> publishWalletUpdated(null, phoneNumber).thenReturn(result));
+  }
+
+  /**
+   * Invalida la copia local de una billetera modificada por otra instancia.
+   *
+   * @param event El evento de actualización recibido
+   */
+  public void onRemoteWalletUpdated(WalletUpdatedEvent event) {
+    if (localCache.getNodeId().equals(event.getSourceNode())) {
+      return;
+    }
+    localCache.invalidate(event.getPhoneNumber());
+    log.debug("Local wallet cache invalidated by node {} for phone: {}",
+      event.getSourceNode(), event.getPhoneNumber());
+  }
+
+  /**
+   * Decide si refrescar una entrada según el criterio XFetch: se refresca cuando
+   * {@code -carga * beta * ln(aleatorio)} alcanza el tiempo de vida restante.
+   */
+  private boolean shouldRefreshEarly(Duration remaining) {
+    long remainingMillis = remaining.toMillis();
+    if (remainingMillis <= 0) {
+      return false;
+    }
+    double loadTime = loadTimeMillis >= 0 ? loadTimeMillis : initialLoadTime.toMillis();
+    double gap = -loadTime * earlyRefreshBeta
+      * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+    return gap >= remainingMillis;
+  }
+
+  private void refreshInBackground(String phoneNumber, Supplier<Mono<YankiWallet>> reloader) {
+    requestCoalescer.execute("refresh:" + phoneNumber, () -> Mono.defer(() -> {
+      long start = System.nanoTime();
+      return reloader.get()
+        .doOnSuccess(wallet -> recordLoadTime(System.nanoTime() - start));
+    })
+      .flatMap(wallet -> cacheWallet(phoneNumber, wallet)))
+      .subscribe(
+        stored -> {
+          meterRegistry.counter("yanki.cache.refresh.early").increment();
+          log.debug("Wallet cache refreshed early for phone: {}", phoneNumber);
+        },
+        error -> log.warn("Error refreshing wallet cache early: {}", error.getMessage()));
+  }
+
+  private void recordLoadTime(long nanos) {
+    double millis = nanos / 1_000_000.0;
+    double current = loadTimeMillis;
+    loadTimeMillis = current < 0
+      ? millis
+      : current + LOAD_TIME_SMOOTHING * (millis - current);
+  }
+
+  private Duration jitteredTtl() {
+    if (ttlJitter <= 0) {
+      return walletTtl;
+    }
+    long millis = walletTtl.toMillis();
+    long jitter = (long) (millis * Math.min(ttlJitter, 1.0)
+      * ThreadLocalRandom.current().nextDouble());
+    return Duration.ofMillis(Math.max(millis - jitter, 1));
+  }
+
+  private boolean isMissingMarker(YankiWallet wallet) {
+    return WalletCacheStore.ABSENT_MARKER_ID.equals(wallet.getId());
+  }
+
+  private Mono<Void> publishWalletUpdated(String walletId, String phoneNumber) {
+    WalletUpdatedEvent event = WalletUpdatedEvent.builder()
+      .walletId(walletId)
+      .phoneNumber(phoneNumber)
+      .sourceNode(localCache.getNodeId())
+      .updatedAt(LocalDateTime.now())
+      .build();
+    return eventProducer.sendWalletUpdatedEvent(event)
+      .onErrorResume(error -> Mono.empty());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package com.bank.yanki.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Deduplicador de cargas concurrentes (single-flight).
+ *
+ * <p>Cuando varias peticiones solicitan la misma clave mientras su carga está en curso,
+ * todas se suscriben a una única ejecución del cargador y reciben el mismo resultado.
+ * La entrada se elimina al terminar la carga, por lo que los errores no se
+ * memorizan y la siguiente petición vuelve a intentar.</p>
+ *
+ * <p>{@link #executeAll} hace lo mismo para varias claves a la vez: se une a las cargas
+ * en curso y resuelve las demás con una sola ejecución del cargador por lotes, a la que
+ * pueden unirse las peticiones de una sola clave.</p>
+ *
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+  private final ConcurrentHashMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+  private final Counter coalescedCounter;
+
+  /**
+   * Construye el deduplicador registrando sus métricas.
+   *
+   * @param meterRegistry registro de métricas
+   */
+  public RequestCoalescer(MeterRegistry meterRegistry) {
+    this.coalescedCounter = meterRegistry.counter("yanki.lookup.coalesced");
+    meterRegistry.gaugeMapSize("yanki.lookup.inflight", Tags.empty(), inFlight);
+  }
+
+  /**
+   * Ejecuta el cargador para la clave, o se une a la carga que ya está en curso.
+   *
+   * @param key clave de deduplicación
+   * @param loader proveedor de la carga a ejecutar si no hay una en curso
+   * @param <T> tipo del resultado
+   * @return Mono compartido con el resultado de la carga
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Mono<T> execute(String key, Supplier<Mono<T>> loader) {
+    return Mono.defer(() -> {
+      boolean[] created = new boolean[1];
+      Mono<?>[] load = new Mono<?>[1];
+      Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+        created[0] = true;
+        // Solo elimina su propia entrada, nunca la de una carga posterior
+        load[0] = loader.get()
+          .doFinally(signal -> inFlight.remove(k, load[0]))
+          .cache();
+        return load[0];
+      });
+      if (!created[0]) {
+        coalescedCounter.increment();
+        log.debug("Joined in-flight load for key: {}", key);
+      }
+      return shared;
+    });
+  }
+
+  /**
+   * Ejecuta el cargador por lotes para los identificadores sin carga en curso y se une a
+   * las cargas en curso de los demás.
+   *
+   * @param ids identificadores a cargar
+   * @param keyOf clave de deduplicación de cada identificador
+   * @param loader cargador de los identificadores sin carga en curso; devuelve los
+   *     resultados encontrados por identificador
+   * @param <T> tipo de cada resultado
+   * @return Mono con los resultados encontrados por identificador
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Mono<Map<String, T>> executeAll(Collection<String> ids,
+                                             Function<String, String> keyOf,
+                                             Function<List<String>, Mono<Map<String, T>>> loader) {
+    return Mono.defer(() -> {
+      Map<String, Mono<T>> results = new LinkedHashMap<>();
+      Map<String, Sinks.One<T>> owned = new LinkedHashMap<>();
+      for (String id : new LinkedHashSet<>(ids)) {
+        Sinks.One<T> sink = Sinks.one();
+        Mono<T> placeholder = sink.asMono();
+        Mono<?> existing = inFlight.putIfAbsent(keyOf.apply(id), placeholder);
+        if (existing == null) {
+          owned.put(id, sink);
+          results.put(id, placeholder);
+        } else {
+          coalescedCounter.increment();
+          results.put(id, (Mono<T>) existing);
+        }
+      }
+      Mono<Void> load = owned.isEmpty() ? Mono.empty()
+        : loader.apply(new ArrayList<>(owned.keySet()))
+          .defaultIfEmpty(Map.of())
+          .doOnNext(loaded -> owned.forEach((id, sink) -> {
+            T value = loaded.get(id);
+            if (value == null) {
+              sink.tryEmitEmpty();
+            } else {
+              sink.tryEmitValue(value);
+            }
+          }))
+          .doOnError(error -> owned.values().forEach(sink -> sink.tryEmitError(error)))
+          .doFinally(signal -> owned.forEach((id, sink) -> {
+            inFlight.remove(keyOf.apply(id), results.get(id));
+            // Si se cancela la carga, las peticiones unidas no deben quedar esperando
+            sink.tryEmitError(new CancellationException("Batch load cancelled"));
+          }))
+          .onErrorResume(error -> Mono.empty())
+          .then();
+      return load.then(Flux.fromIterable(results.entrySet())
+        .flatMap(entry -> entry.getValue().map(value -> Map.entry(entry.getKey(), value)))
+        .collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    });
+  }
+}
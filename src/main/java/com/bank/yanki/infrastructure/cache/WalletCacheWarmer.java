@@ -0,0 +1,75 @@
+package com.bank.yanki.infrastructure.cache;
+
+import com.bank.yanki.domain.repository.YankiWalletRepository;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Precarga de las billeteras más consultadas al arrancar la instancia.
+ *
+ * <p>Lee la lista de hot keys ({@link HotKeyTracker}), carga las billeteras desde
+ * MongoDB en lotes paralelos con una consulta {@code $in} por lote y las escribe en
+ * Redis y en la caché local.</p>
+ *
+ * <p>Se ejecuta como {@link ApplicationRunner}: Spring Boot no marca la aplicación como
+ * lista para recibir tráfico (readiness) hasta que termina, por lo que la instancia
+ * no entra en el balanceo con la caché vacía. La espera está acotada por un plazo
+ * máximo; si se agota, se arranca con lo que se haya cargado.</p>
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletCacheWarmer implements ApplicationRunner {
+
+  private final HotKeyTracker hotKeyTracker;
+  private final YankiWalletRepository walletRepository;
+  private final RedisCacheService cacheService;
+
+  @Value("${app.cache.warmup.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.cache.warmup.max-keys:5000}")
+  private int maxKeys;
+
+  @Value("${app.cache.warmup.batch-size:200}")
+  private int batchSize;
+
+  @Value("${app.cache.warmup.parallelism:4}")
+  private int parallelism;
+
+  @Value("${app.cache.warmup.deadline:30s}")
+  private Duration deadline;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) {
+      return;
+    }
+    long start = System.nanoTime();
+    AtomicLong warmed = new AtomicLong();
+    hotKeyTracker.topKeys(maxKeys)
+      .buffer(batchSize)
+      .flatMap(batch -> walletRepository.findByPhoneNumberIn(batch)
+        .flatMap(wallet -> cacheService.cacheWallet(wallet.getPhoneNumber(), wallet)
+          .onErrorResume(error -> Mono.just(false)))
+        .doOnNext(stored -> warmed.incrementAndGet()), parallelism)
+      .then()
+      .timeout(deadline)
+      .doOnSuccess(result -> log.info("Wallet cache warmed: {} wallets in {} ms",
+        warmed.get(), Duration.ofNanos(System.nanoTime() - start).toMillis()))
+      .onErrorResume(error -> {
+        log.warn("Wallet cache warm-up stopped after {} wallets: {}", warmed.get(),
+          error.getMessage());
+        return Mono.empty();
+      })
+      .block();
+  }
+}
@@ -0,0 +1,151 @@
+package com.bank.yanki.infrastructure.cache.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Serializador compacto de claves Redis.
+ *
+ * <p>Los prefijos conocidos se sustituyen por un byte de etiqueta y, cuando el sufijo es
+ * un número de teléfono ({@code +} opcional seguido de dígitos), los dígitos se empaquetan
+ * a razón de dos por byte. Así, {@code wallet:+51987654321} ocupa 8 bytes en lugar de 19.
+ * Cualquier otra clave se guarda como UTF-8 tras una etiqueta cero.</p>
+ *
+ * <p>Los prefijos que terminan en {@code {} abren una etiqueta de hash de Redis Cluster.
+ * La clave serializada conserva las llaves alrededor del sufijo, de modo que las claves
+ * con el mismo teléfono siguen cayendo en el mismo slot; los dígitos empaquetados nunca
+ * producen los bytes de {@code {} ni {@code }}.</p>
+ *
+ * <p>Las etiquetas dependen del orden de {@link #PREFIXES}: los prefijos nuevos solo
+ * deben añadirse al final.</p>
+ *
+ */
+public class CompactKeySerializer implements RedisSerializer<String> {
+
+  static final List<String> PREFIXES =
+    List.of("wallet:", "wallet:v:", "wallet:{", "wallet:v:{");
+  private static final int TAG_RAW = 0;
+  private static final byte OPEN = '{';
+  private static final byte CLOSE = '}';
+
+  @Override
+  public byte[] serialize(String key) throws SerializationException {
+    if (key == null) {
+      return new byte[0];
+    }
+    int prefixIndex = findPrefix(key);
+    if (prefixIndex < 0) {
+      return withTag(TAG_RAW, key.getBytes(StandardCharsets.UTF_8));
+    }
+    String suffix = key.substring(PREFIXES.get(prefixIndex).length());
+    if (!isHashTag(prefixIndex)) {
+      if (isPhoneNumber(suffix)) {
+        return withTag(2 + 2 * prefixIndex, packDigits(suffix));
+      }
+      return withTag(1 + 2 * prefixIndex, suffix.getBytes(StandardCharsets.UTF_8));
+    }
+    String tagged = suffix.endsWith("}") ? suffix.substring(0, suffix.length() - 1) : null;
+    if (tagged != null && isPhoneNumber(tagged)) {
+      byte[] packed = packDigits(tagged);
+      byte[] payload = new byte[packed.length + 2];
+      payload[0] = OPEN;
+      System.arraycopy(packed, 0, payload, 1, packed.length);
+      payload[payload.length - 1] = CLOSE;
+      return withTag(2 + 2 * prefixIndex, payload);
+    }
+    return withTag(1 + 2 * prefixIndex, ("{" + suffix).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public String deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    int tag = bytes[0] & 0xFF;
+    if (tag == TAG_RAW) {
+      return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+    }
+    int prefixIndex = (tag - 1) / 2;
+    if (prefixIndex >= PREFIXES.size()) {
+      throw new SerializationException("Unknown key prefix tag: " + tag);
+    }
+    String prefix = PREFIXES.get(prefixIndex);
+    // Las claves con etiqueta de hash repiten la llave de apertura tras la etiqueta
+    int start = isHashTag(prefixIndex) ? 2 : 1;
+    if (tag % 2 == 0) {
+      return isHashTag(prefixIndex)
+        ? prefix + unpackDigits(bytes, start, bytes.length - 1) + "}"
+        : prefix + unpackDigits(bytes, start, bytes.length);
+    }
+    return prefix + new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8);
+  }
+
+  private static boolean isHashTag(int prefixIndex) {
+    return PREFIXES.get(prefixIndex).endsWith("{");
+  }
+
+  private static int findPrefix(String key) {
+    int best = -1;
+    for (int i = 0; i < PREFIXES.size(); i++) {
+      String prefix = PREFIXES.get(i);
+      if (key.startsWith(prefix)
+        && (best < 0 || prefix.length() > PREFIXES.get(best).length())) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  private static boolean isPhoneNumber(String value) {
+    int start = value.startsWith("+") ? 1 : 0;
+    if (value.length() <= start) {
+      return false;
+    }
+    for (int i = start; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] packDigits(String phone) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(phone.length() / 2 + 2);
+    boolean plus = phone.startsWith("+");
+    out.write(plus ? 1 : 0);
+    String digits = plus ? phone.substring(1) : phone;
+    for (int i = 0; i < digits.length(); i += 2) {
+      int high = digits.charAt(i) - '0' + 1;
+      int low = i + 1 < digits.length() ? digits.charAt(i + 1) - '0' + 1 : 0;
+      out.write((high << 4) | low);
+    }
+    return out.toByteArray();
+  }
+
+  private static String unpackDigits(byte[] bytes, int from, int to) {
+    StringBuilder phone = new StringBuilder((to - from) * 2);
+    if (bytes[from] == 1) {
+      phone.append('+');
+    }
+    for (int i = from + 1; i < to; i++) {
+      int high = (bytes[i] >> 4) & 0x0F;
+      int low = bytes[i] & 0x0F;
+      phone.append((char) ('0' + high - 1));
+      if (low != 0) {
+        phone.append((char) ('0' + low - 1));
+      }
+    }
+    return phone.toString();
+  }
+
+  private static byte[] withTag(int tag, byte[] payload) {
+    byte[] bytes = new byte[payload.length + 1];
+    bytes[0] = (byte) tag;
+    System.arraycopy(payload, 0, bytes, 1, payload.length);
+    return bytes;
+  }
+}
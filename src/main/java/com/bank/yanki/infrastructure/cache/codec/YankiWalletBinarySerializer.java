@@ -0,0 +1,304 @@
+package com.bank.yanki.infrastructure.cache.codec;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Serializador binario compacto y versionado para billeteras Yanki en Redis.
+ *
+ * <p>Formato: un byte de versión, un byte de flags y el cuerpo. Los textos se escriben
+ * con longitud varint y UTF-8, los enums por ordinal, los importes como escala y valor
+ * sin escala (varint si cabe en un long), y las fechas como segundos y nanosegundos UTC.
+ * Cuando el cuerpo supera el umbral configurado se comprime con LZ4, guardando antes su
+ * longitud original.</p>
+ *
+ * <p>Los enums se codifican por ordinal: sus constantes solo deben añadirse al final.
+ * Cualquier otro cambio de formato debe incrementar {@link #FORMAT_VERSION} y mantener
+ * la lectura de las versiones anteriores. La versión 2 añade la versión de la billetera
+ * al final del cuerpo.</p>
+ *
+ */
+public class YankiWalletBinarySerializer implements RedisSerializer<YankiWallet> {
+
+  static final byte FORMAT_VERSION = 2;
+  private static final byte FLAG_LZ4 = 0x01;
+  private static final int HEADER_LENGTH = 2;
+  private static final YankiWallet.DocumentType[] DOCUMENT_TYPES =
+    YankiWallet.DocumentType.values();
+  private static final YankiWallet.YankiWalletStatus[] STATUSES =
+    YankiWallet.YankiWalletStatus.values();
+
+  private final int compressionThreshold;
+  private final LZ4Compressor compressor;
+  private final LZ4FastDecompressor decompressor;
+
+  /**
+   * Crea el serializador.
+   *
+   * @param compressionThreshold tamaño en bytes a partir del cual se comprime el cuerpo;
+   *     un valor menor o igual a cero desactiva la compresión
+   */
+  public YankiWalletBinarySerializer(int compressionThreshold) {
+    LZ4Factory factory = LZ4Factory.fastestInstance();
+    this.compressionThreshold = compressionThreshold;
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.fastDecompressor();
+  }
+
+  @Override
+  public byte[] serialize(YankiWallet wallet) throws SerializationException {
+    if (wallet == null) {
+      return new byte[0];
+    }
+    Writer out = new Writer(160);
+    out.writeByte(FORMAT_VERSION);
+    out.writeByte(0);
+    writeBody(out, wallet);
+    int bodyLength = out.size - HEADER_LENGTH;
+    if (compressionThreshold > 0 && bodyLength > compressionThreshold) {
+      byte[] compressed = compressor.compress(out.buffer, HEADER_LENGTH, bodyLength);
+      if (compressed.length < bodyLength) {
+        Writer packed = new Writer(compressed.length + 8);
+        packed.writeByte(FORMAT_VERSION);
+        packed.writeByte(FLAG_LZ4);
+        packed.writeVarLong(bodyLength);
+        packed.write(compressed, 0, compressed.length);
+        return packed.toByteArray();
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public YankiWallet deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    if (bytes.length < HEADER_LENGTH) {
+      throw new SerializationException("Truncated YankiWallet payload");
+    }
+    byte version = bytes[0];
+    if (version < 1 || version > FORMAT_VERSION) {
+      throw new SerializationException("Unsupported YankiWallet format version: " + version);
+    }
+    try {
+      Reader in = new Reader(bytes, HEADER_LENGTH);
+      if ((bytes[1] & FLAG_LZ4) != 0) {
+        int originalLength = (int) in.readVarLong();
+        in = new Reader(decompressor.decompress(bytes, in.position, originalLength), 0);
+      }
+      return readBody(in, version);
+    } catch (RuntimeException e) {
+      throw new SerializationException("Could not read YankiWallet", e);
+    }
+  }
+
+  private static void writeBody(Writer out, YankiWallet wallet) {
+    out.writeString(wallet.getId());
+    out.writeString(wallet.getDocumentNumber());
+    out.writeEnum(wallet.getDocumentType());
+    out.writeString(wallet.getPhoneNumber());
+    out.writeString(wallet.getImei());
+    out.writeString(wallet.getEmail());
+    out.writeDecimal(wallet.getBalance());
+    out.writeString(wallet.getAssociatedCreditId());
+    out.writeEnum(wallet.getStatus());
+    out.writeDateTime(wallet.getCreatedAt());
+    out.writeDateTime(wallet.getUpdatedAt());
+    out.writeVarLong(wallet.getVersion() == null ? 0 : wallet.getVersion() + 1);
+  }
+
+  private static YankiWallet readBody(Reader in, byte formatVersion) {
+    YankiWallet wallet = YankiWallet.builder()
+      .id(in.readString())
+      .documentNumber(in.readString())
+      .documentType(in.readEnum(DOCUMENT_TYPES))
+      .phoneNumber(in.readString())
+      .imei(in.readString())
+      .email(in.readString())
+      .balance(in.readDecimal())
+      .associatedCreditId(in.readString())
+      .status(in.readEnum(STATUSES))
+      .createdAt(in.readDateTime())
+      .updatedAt(in.readDateTime())
+      .build();
+    if (formatVersion >= 2) {
+      long version = in.readVarLong();
+      wallet.setVersion(version == 0 ? null : version - 1);
+    }
+    return wallet;
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Buffer de escritura que crece según se necesita.
+   */
+  private static final class Writer {
+
+    private byte[] buffer;
+    private int size;
+
+    private Writer(int initialCapacity) {
+      this.buffer = new byte[initialCapacity];
+    }
+
+    private void ensureCapacity(int extra) {
+      if (size + extra > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+      }
+    }
+
+    private void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[size++] = (byte) value;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+      ensureCapacity(length);
+      System.arraycopy(bytes, offset, buffer, size, length);
+      size += length;
+    }
+
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[size++] = (byte) value;
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        writeVarLong(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length + 1L);
+      write(bytes, 0, bytes.length);
+    }
+
+    private void writeEnum(Enum<?> value) {
+      writeByte(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private void writeDecimal(BigDecimal value) {
+      if (value == null) {
+        writeByte(0);
+        return;
+      }
+      writeByte(1);
+      writeVarLong(zigZag(value.scale()));
+      if (value.precision() <= 18) {
+        writeByte(0);
+        writeVarLong(zigZag(value.unscaledValue().longValue()));
+        return;
+      }
+      byte[] unscaled = value.unscaledValue().toByteArray();
+      writeVarLong(unscaled.length);
+      write(unscaled, 0, unscaled.length);
+    }
+
+    private void writeDateTime(LocalDateTime value) {
+      if (value == null) {
+        writeByte(0);
+        return;
+      }
+      writeByte(1);
+      writeVarLong(zigZag(value.toEpochSecond(ZoneOffset.UTC)));
+      writeVarLong(value.getNano());
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+
+  /**
+   * Cursor de lectura sobre un arreglo de bytes.
+   */
+  private static final class Reader {
+
+    private final byte[] buffer;
+    private int position;
+
+    private Reader(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    private int readUnsignedByte() {
+      if (position >= buffer.length) {
+        throw new IllegalStateException("Truncated YankiWallet payload");
+      }
+      return buffer[position++] & 0xFF;
+    }
+
+    private long readVarLong() {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readUnsignedByte();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IllegalStateException("Malformed varint");
+    }
+
+    private String readString() {
+      int length = (int) readVarLong();
+      if (length == 0) {
+        return null;
+      }
+      String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+      position += length - 1;
+      return value;
+    }
+
+    private <E extends Enum<E>> E readEnum(E[] values) {
+      int ordinal = readUnsignedByte();
+      return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    private BigDecimal readDecimal() {
+      if (readUnsignedByte() == 0) {
+        return null;
+      }
+      int scale = (int) unZigZag(readVarLong());
+      int length = (int) readVarLong();
+      if (length == 0) {
+        return BigDecimal.valueOf(unZigZag(readVarLong()), scale);
+      }
+      byte[] unscaled = Arrays.copyOfRange(buffer, position, position + length);
+      position += length;
+      return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private LocalDateTime readDateTime() {
+      if (readUnsignedByte() == 0) {
+        return null;
+      }
+      long seconds = unZigZag(readVarLong());
+      int nanos = (int) readVarLong();
+      return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package com.bank.yanki.infrastructure.cache.store;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Layout hash: cada billetera es un hash de Redis en {@code wallet:h:{phone}}.
+ *
+ * <p>El saldo se guarda en unidades mínimas (céntimos) y la versión como un campo más.
+ * Tras un pago, si la versión en caché es justo la anterior a la guardada, un script
+ * Lua aplica la variación con {@code HINCRBY} y actualiza {@code updatedAt} y
+ * {@code version} sin reescribir el resto de campos. En cualquier otro caso se reescribe
+ * el hash completo, siempre que la caché no tenga una versión más reciente.</p>
+ *
+ * <p>Los saldos con más de dos decimales no se pueden representar en unidades mínimas;
+ * esas billeteras no se guardan en caché.</p>
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cache.layout", havingValue = "hash")
+public class HashWalletCacheStore implements WalletCacheStore {
+
+  private static final int MINOR_UNIT_SCALE = 2;
+  private static final String ABSENT_FIELD = "absent";
+  private static final RedisScript<Long> PUT_IF_NEWER_SCRIPT = RedisScript.of(
+    "local current = redis.call('HGET', KEYS[1], 'version') "
+      + "if current and tonumber(current) > tonumber(ARGV[1]) then return 0 end "
+      + "redis.call('DEL', KEYS[1]) "
+      + "redis.call('HSET', KEYS[1], 'version', ARGV[1], unpack(ARGV, 3)) "
+      + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+      + "return 1", Long.class);
+  private static final RedisScript<Long> INCREMENT_BALANCE_SCRIPT = RedisScript.of(
+    "local current = redis.call('HGET', KEYS[1], 'version') "
+      + "if not current or tonumber(current) ~= tonumber(ARGV[1]) then return 0 end "
+      + "redis.call('HINCRBY', KEYS[1], 'balance', ARGV[3]) "
+      + "redis.call('HSET', KEYS[1], 'updatedAt', ARGV[4], 'version', ARGV[2]) "
+      + "redis.call('PEXPIRE', KEYS[1], ARGV[5]) "
+      + "return 1", Long.class);
+  private static final RedisScript<Long> PUT_ABSENT_SCRIPT = RedisScript.of(
+    "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+      + "redis.call('HSET', KEYS[1], '" + ABSENT_FIELD + "', '1') "
+      + "redis.call('PEXPIRE', KEYS[1], ARGV[1]) "
+      + "return 1", Long.class);
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> GET_WITH_TTL_SCRIPT = RedisScript.of(
+    "local fields = redis.call('HGETALL', KEYS[1]) "
+      + "if #fields == 0 then return {} end "
+      + "table.insert(fields, tostring(redis.call('PTTL', KEYS[1]))) "
+      + "return fields", List.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+
+  @Override
+  public Mono<YankiWallet> get(String phoneNumber) {
+    return readHash(phoneNumber).flatMap(Mono::justOrEmpty);
+  }
+
+  /**
+   * Lee el hash y su tiempo de vida con un script que devuelve los campos del hash
+   * seguidos del {@code PTTL}, de modo que un acierto es una sola operación.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Mono<Tuple2<YankiWallet, Duration>> getWithTimeToLive(String phoneNumber) {
+    return redisTemplate.execute(GET_WITH_TTL_SCRIPT, List.of(hashKey(phoneNumber)), List.of())
+      .next()
+      .map(result -> (List<String>) result)
+      .filter(result -> !result.isEmpty())
+      .map(result -> {
+        Map<String, String> fields = new HashMap<>();
+        for (int index = 0; index + 1 < result.size(); index += 2) {
+          fields.put(result.get(index), result.get(index + 1));
+        }
+        Duration ttl = Duration.ofMillis(Long.parseLong(result.get(result.size() - 1)));
+        return Tuples.of(fromHash(phoneNumber, fields), ttl);
+      });
+  }
+
+  @Override
+  public Mono<List<YankiWallet>> multiGet(List<String> phoneNumbers) {
+    // Los HGETALL se envían sin esperar respuesta, por lo que viajan en un mismo pipeline
+    return Flux.fromIterable(phoneNumbers)
+      .flatMapSequential(this::readHash)
+      .map(wallet -> wallet.orElse(null))
+      .collect(ArrayList::new, List::add);
+  }
+
+  @Override
+  public Mono<Boolean> putIfNewer(YankiWallet wallet, Duration ttl) {
+    return Mono.defer(() -> {
+      Long balance = toMinorUnits(wallet.getBalance());
+      if (wallet.getBalance() != null && balance == null) {
+        log.debug("Wallet balance not cacheable in minor units for phone: {}",
+          wallet.getPhoneNumber());
+        return delete(wallet.getPhoneNumber()).thenReturn(false);
+      }
+      List<String> args = new ArrayList<>();
+      args.add(Long.toString(wallet.currentVersion()));
+      args.add(Long.toString(ttl.toMillis()));
+      addField(args, "id", wallet.getId());
+      addField(args, "documentNumber", wallet.getDocumentNumber());
+      addField(args, "documentType", wallet.getDocumentType());
+      addField(args, "phoneNumber", wallet.getPhoneNumber());
+      addField(args, "imei", wallet.getImei());
+      addField(args, "email", wallet.getEmail());
+      addField(args, "balance", balance);
+      addField(args, "associatedCreditId", wallet.getAssociatedCreditId());
+      addField(args, "status", wallet.getStatus());
+      addField(args, "createdAt", wallet.getCreatedAt());
+      addField(args, "updatedAt", wallet.getUpdatedAt());
+      return redisTemplate.execute(PUT_IF_NEWER_SCRIPT,
+          List.of(hashKey(wallet.getPhoneNumber())), args)
+        .next()
+        .map(result -> result == 1L);
+    });
+  }
+
+  @Override
+  public Mono<Boolean> applyBalanceChange(YankiWallet wallet, BigDecimal delta, Duration ttl) {
+    return Mono.defer(() -> {
+      Long deltaMinor = toMinorUnits(delta);
+      long version = wallet.currentVersion();
+      if (deltaMinor == null || version == 0 || wallet.getUpdatedAt() == null) {
+        return putIfNewer(wallet, ttl);
+      }
+      List<String> args = List.of(
+        Long.toString(version - 1),
+        Long.toString(version),
+        Long.toString(deltaMinor),
+        wallet.getUpdatedAt().toString(),
+        Long.toString(ttl.toMillis()));
+      return redisTemplate.execute(INCREMENT_BALANCE_SCRIPT,
+          List.of(hashKey(wallet.getPhoneNumber())), args)
+        .next()
+        .flatMap(result -> result == 1L ? Mono.just(true) : putIfNewer(wallet, ttl));
+    });
+  }
+
+  @Override
+  public Mono<Boolean> putAbsentMarker(String phoneNumber, Duration ttl) {
+    return redisTemplate.execute(PUT_ABSENT_SCRIPT, List.of(hashKey(phoneNumber)),
+        List.of(Long.toString(ttl.toMillis())))
+      .next()
+      .map(result -> result == 1L);
+  }
+
+  @Override
+  public Mono<Long> delete(String phoneNumber) {
+    return redisTemplate.delete(hashKey(phoneNumber));
+  }
+
+  private Mono<Optional<YankiWallet>> readHash(String phoneNumber) {
+    return redisTemplate.<String, String>opsForHash()
+      .entries(hashKey(phoneNumber))
+      .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+      .map(fields -> fields.isEmpty()
+        ? Optional.<YankiWallet>empty()
+        : Optional.of(fromHash(phoneNumber, fields)));
+  }
+
+  private static YankiWallet fromHash(String phoneNumber, Map<String, String> fields) {
+    if (fields.containsKey(ABSENT_FIELD)) {
+      return WalletCacheStore.absentMarker(phoneNumber);
+    }
+    String balance = fields.get("balance");
+    String documentType = fields.get("documentType");
+    String status = fields.get("status");
+    String createdAt = fields.get("createdAt");
+    String updatedAt = fields.get("updatedAt");
+    return YankiWallet.builder()
+      .id(fields.get("id"))
+      .documentNumber(fields.get("documentNumber"))
+      .documentType(documentType != null ? YankiWallet.DocumentType.valueOf(documentType) : null)
+      .phoneNumber(fields.get("phoneNumber"))
+      .imei(fields.get("imei"))
+      .email(fields.get("email"))
+      .balance(balance != null
+        ? BigDecimal.valueOf(Long.parseLong(balance), MINOR_UNIT_SCALE) : null)
+      .associatedCreditId(fields.get("associatedCreditId"))
+      .status(status != null ? YankiWallet.YankiWalletStatus.valueOf(status) : null)
+      .createdAt(createdAt != null ? LocalDateTime.parse(createdAt) : null)
+      .updatedAt(updatedAt != null ? LocalDateTime.parse(updatedAt) : null)
+      .version(Long.parseLong(fields.get("version")))
+      .build();
+  }
+
+  private static void addField(List<String> args, String name, Object value) {
+    if (value != null) {
+      args.add(name);
+      args.add(value instanceof Enum<?> constant ? constant.name() : value.toString());
+    }
+  }
+
+  private static Long toMinorUnits(BigDecimal amount) {
+    if (amount == null) {
+      return null;
+    }
+    try {
+      return amount.setScale(MINOR_UNIT_SCALE).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      return null;
+    }
+  }
+
+  private static String hashKey(String phoneNumber) {
+    return "wallet:h:" + phoneNumber;
+  }
+}
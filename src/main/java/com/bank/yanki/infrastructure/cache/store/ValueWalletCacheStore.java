@@ -0,0 +1,130 @@
+package com.bank.yanki.infrastructure.cache.store;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Layout por defecto: la billetera serializada completa en {@code wallet:{<phone>}}.
+ *
+ * <p>La versión se guarda aparte en {@code wallet:v:{<phone>}} y un script Lua descarta
+ * la escritura si Redis ya tiene una versión más reciente. El teléfono va entre llaves
+ * para que ambas claves compartan slot en Redis Cluster, como exige el script.</p>
+ *
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cache.layout", havingValue = "value", matchIfMissing = true)
+public class ValueWalletCacheStore implements WalletCacheStore {
+
+  private static final RedisScript<Long> SET_IF_NEWER_SCRIPT = RedisScript.of(
+    "local current = redis.call('GET', KEYS[2]) "
+      + "if current and tonumber(current) > tonumber(ARGV[2]) then return 0 end "
+      + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3]) "
+      + "redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3]) "
+      + "return 1", Long.class);
+  private static final RedisScript<byte[]> GET_WITH_TTL_SCRIPT = RedisScript.of(
+    "local value = redis.call('GET', KEYS[1]) "
+      + "if not value then return nil end "
+      + "return tostring(redis.call('PTTL', KEYS[1])) .. ':' .. value", byte[].class);
+  private static final byte TTL_SEPARATOR = ':';
+  private static final RedisElementWriter<byte[]> BYTES_WRITER =
+    RedisElementWriter.from(RedisSerializer.byteArray());
+  private static final RedisElementReader<byte[]> BYTES_READER =
+    RedisElementReader.from(RedisSerializer.byteArray());
+  private static final RedisElementReader<Long> LONG_READER =
+    RedisElementReader.from(new GenericToStringSerializer<>(Long.class));
+
+  private final ReactiveRedisTemplate<String, YankiWallet> redisTemplate;
+
+  @Override
+  public Mono<YankiWallet> get(String phoneNumber) {
+    return redisTemplate.opsForValue().get(walletKey(phoneNumber));
+  }
+
+  /**
+   * Lee la billetera y su tiempo de vida con un script que devuelve
+   * {@code <pttl>:<valor serializado>}, de modo que un acierto es una sola operación.
+   */
+  @Override
+  public Mono<Tuple2<YankiWallet, Duration>> getWithTimeToLive(String phoneNumber) {
+    return redisTemplate.execute(GET_WITH_TTL_SCRIPT, List.of(walletKey(phoneNumber)),
+        List.of(), BYTES_WRITER, BYTES_READER)
+      .next()
+      .map(this::decodeWithTimeToLive);
+  }
+
+  @Override
+  public Mono<List<YankiWallet>> multiGet(List<String> phoneNumbers) {
+    return redisTemplate.opsForValue()
+      .multiGet(phoneNumbers.stream().map(ValueWalletCacheStore::walletKey).toList());
+  }
+
+  @Override
+  public Mono<Boolean> putIfNewer(YankiWallet wallet, Duration ttl) {
+    return Mono.defer(() -> {
+      String phoneNumber = wallet.getPhoneNumber();
+      List<byte[]> args = List.of(
+        ByteUtils.getBytes(redisTemplate.getSerializationContext()
+          .getValueSerializationPair().write(wallet)),
+        toBytes(wallet.currentVersion()),
+        toBytes(ttl.toMillis()));
+      return redisTemplate.execute(SET_IF_NEWER_SCRIPT,
+          List.of(walletKey(phoneNumber), versionKey(phoneNumber)), args,
+          BYTES_WRITER, LONG_READER)
+        .next()
+        .map(result -> result == 1L);
+    });
+  }
+
+  @Override
+  public Mono<Boolean> putAbsentMarker(String phoneNumber, Duration ttl) {
+    return redisTemplate.opsForValue()
+      .setIfAbsent(walletKey(phoneNumber), WalletCacheStore.absentMarker(phoneNumber), ttl);
+  }
+
+  @Override
+  public Mono<Long> delete(String phoneNumber) {
+    return redisTemplate.delete(walletKey(phoneNumber), versionKey(phoneNumber));
+  }
+
+  private Tuple2<YankiWallet, Duration> decodeWithTimeToLive(byte[] result) {
+    int separator = 0;
+    while (result[separator] != TTL_SEPARATOR) {
+      separator++;
+    }
+    long ttlMillis = Long.parseLong(
+      new String(result, 0, separator, StandardCharsets.US_ASCII));
+    YankiWallet wallet = redisTemplate.getSerializationContext().getValueSerializationPair()
+      .read(ByteBuffer.wrap(Arrays.copyOfRange(result, separator + 1, result.length)));
+    return Tuples.of(wallet, Duration.ofMillis(ttlMillis));
+  }
+
+  private static String walletKey(String phoneNumber) {
+    return "wallet:{" + phoneNumber + "}";
+  }
+
+  private static String versionKey(String phoneNumber) {
+    return "wallet:v:{" + phoneNumber + "}";
+  }
+
+  private static byte[] toBytes(long value) {
+    return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+  }
+}
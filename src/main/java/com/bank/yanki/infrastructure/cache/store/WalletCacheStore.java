@@ -0,0 +1,108 @@
+package com.bank.yanki.infrastructure.cache.store;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * Formato de almacenamiento de billeteras en Redis.
+ *
+ * <p>Abstrae cómo se guarda cada billetera para que {@code RedisCacheService} no dependa
+ * del layout. La implementación se elige con {@code app.cache.layout}: {@code value}
+ * (por defecto) guarda la billetera serializada completa, y {@code hash} la guarda como
+ * hash de Redis con el saldo en unidades mínimas, lo que permite actualizar solo los
+ * campos que cambian en un pago.</p>
+ *
+ * <p>Las marcas de ausencia se devuelven como billeteras con el identificador
+ * {@link #ABSENT_MARKER_ID}.</p>
+ *
+ */
+public interface WalletCacheStore {
+
+  /**
+   * Identificador de la billetera que representa una marca de ausencia.
+   */
+  String ABSENT_MARKER_ID = "__absent__";
+
+  /**
+   * Lee una billetera.
+   *
+   * @param phoneNumber el número de teléfono de la billetera
+   * @return Mono con la billetera o la marca de ausencia, o vacío si no está en caché
+   */
+  Mono<YankiWallet> get(String phoneNumber);
+
+  /**
+   * Lee una billetera junto con el tiempo de vida restante de su entrada, en una sola
+   * operación de Redis.
+   *
+   * @param phoneNumber el número de teléfono de la billetera
+   * @return Mono con la billetera o la marca de ausencia y su tiempo restante, negativo
+   *     si la entrada no expira; vacío si no está en caché
+   */
+  Mono<Tuple2<YankiWallet, Duration>> getWithTimeToLive(String phoneNumber);
+
+  /**
+   * Lee varias billeteras en un solo viaje a Redis.
+   *
+   * @param phoneNumbers los números de teléfono a leer
+   * @return Mono con una lista en el mismo orden, con null para las claves ausentes
+   */
+  Mono<List<YankiWallet>> multiGet(List<String> phoneNumbers);
+
+  /**
+   * Guarda la billetera completa salvo que la caché tenga una versión más reciente.
+   *
+   * @param wallet la billetera a guardar
+   * @param ttl tiempo de vida de la entrada
+   * @return Mono que emite true si se guardó
+   */
+  Mono<Boolean> putIfNewer(YankiWallet wallet, Duration ttl);
+
+  /**
+   * Aplica un cambio de saldo a una billetera ya guardada en base de datos.
+   *
+   * <p>La implementación por defecto reescribe la billetera completa.</p>
+   *
+   * @param wallet la billetera guardada, con el saldo y la versión resultantes
+   * @param delta variación del saldo respecto a la versión anterior
+   * @param ttl tiempo de vida de la entrada
+   * @return Mono que emite true si la caché quedó actualizada
+   */
+  default Mono<Boolean> applyBalanceChange(YankiWallet wallet, BigDecimal delta, Duration ttl) {
+    return putIfNewer(wallet, ttl);
+  }
+
+  /**
+   * Registra la marca de ausencia si la clave no existe.
+   *
+   * @param phoneNumber el número de teléfono sin billetera
+   * @param ttl tiempo de vida de la marca
+   * @return Mono que emite true si se registró la marca
+   */
+  Mono<Boolean> putAbsentMarker(String phoneNumber, Duration ttl);
+
+  /**
+   * Elimina la billetera o la marca de ausencia.
+   *
+   * @param phoneNumber el número de teléfono de la billetera
+   * @return Mono que emite el número de claves eliminadas
+   */
+  Mono<Long> delete(String phoneNumber);
+
+  /**
+   * Construye la marca de ausencia de un teléfono.
+   *
+   * @param phoneNumber el número de teléfono sin billetera
+   * @return la billetera que representa la marca
+   */
+  static YankiWallet absentMarker(String phoneNumber) {
+    return YankiWallet.builder()
+      .id(ABSENT_MARKER_ID)
+      .phoneNumber(phoneNumber)
+      .build();
+  }
+}
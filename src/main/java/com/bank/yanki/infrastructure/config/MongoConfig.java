@@ -0,0 +1,32 @@
+package com.bank.yanki.infrastructure.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+
+/**
+ * Configuración de MongoDB para el servicio Yanki.
+ *
+ * <p>Registra el gestor de transacciones reactivas, a partir del cual Spring Boot crea
+ * el {@code TransactionalOperator} usado para confirmar transferencias en una sola
+ * transacción multi-documento. Las transacciones solo se usan si
+ * {@code app.payments.transactional-commit} está activo, ya que requieren que MongoDB se
+ * ejecute como replica set.</p>
+ *
+ */
+@Configuration
+public class MongoConfig {
+
+  /**
+   * Configura el gestor de transacciones reactivas de MongoDB.
+   *
+   * @param databaseFactory La fábrica de bases de datos reactiva
+   * @return ReactiveMongoTransactionManager configurado
+   */
+  @Bean
+  public ReactiveMongoTransactionManager reactiveMongoTransactionManager(
+    ReactiveMongoDatabaseFactory databaseFactory) {
+    return new ReactiveMongoTransactionManager(databaseFactory);
+  }
+}
@@ -1,8 +1,11 @@
 package com.bank.yanki.infrastructure.config;
 
 import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.infrastructure.cache.codec.CompactKeySerializer;
+import com.bank.yanki.infrastructure.cache.codec.YankiWalletBinarySerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -19,10 +22,21 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  * <p>Esta clase configura la conexión a Redis y el template reactivo
  * para operaciones con billeteras Yanki.</p>
  *
+ * <p>El formato de las billeteras en caché se elige con {@code app.cache.codec}:
+ * {@code json} (por defecto) o {@code binary}, que usa un formato binario compacto con
+ * compresión LZ4 opcional y claves codificadas en bytes. Ambos formatos usan claves
+ * distintas, por lo que el cambio no requiere limpiar Redis.</p>
+ *
  */
 @Configuration
 public class RedisConfig {
 
+  @Value("${app.cache.codec:json}")
+  private String cacheCodec;
+
+  @Value("${app.cache.codec-compression-threshold:256}")
+  private int compressionThreshold;
+
   /**
    * Configura la conexión reactiva a Redis.
    *
@@ -44,6 +58,14 @@ public class RedisConfig {
   public ReactiveRedisTemplate<String, YankiWallet> reactiveRedisTemplate(
     ReactiveRedisConnectionFactory factory) {
 
+    if ("binary".equalsIgnoreCase(cacheCodec)) {
+      RedisSerializationContext<String, YankiWallet> context = RedisSerializationContext
+        .<String, YankiWallet>newSerializationContext(new CompactKeySerializer())
+        .value(new YankiWalletBinarySerializer(compressionThreshold))
+        .build();
+      return new ReactiveRedisTemplate<>(factory, context);
+    }
+
     // Configurar ObjectMapper con soporte para Java Time
     ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.registerModule(new JavaTimeModule());
@@ -0,0 +1,158 @@
+package com.bank.yanki.infrastructure.messaging;
+
+import com.bank.yanki.domain.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Publicación de los eventos de Kafka que siguen a cambios ya confirmados.
+ *
+ * <p>{@link #publish} envía el evento y reintenta hasta {@code app.events.outbox.send-retries}
+ * veces. Si aun así falla, lo guarda en {@link OutboxEvent} y completa sin error: quien
+ * publica no debe deshacer ni dar por fallida una operación cuyos cambios ya se aplicaron.
+ * Cada {@code app.events.outbox.relay-interval} se reenvían hasta {@code relay-batch}
+ * eventos guardados; cada uno se reclama con una concesión de {@code lease} y se borra al
+ * quedar enviado. La entrega es al menos una vez: un evento puede enviarse de nuevo si la
+ * instancia cae entre el envío y el borrado.</p>
+ *
+ * <p>Métricas: eventos guardados para reenvío ({@code yanki.events.outbox.deferred}) y
+ * reenviados ({@code yanki.events.outbox.relayed}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class EventOutbox {
+
+  private final ReactiveKafkaProducerTemplate<String, Object> kafkaTemplate;
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final Counter deferredCounter;
+  private final Counter relayedCounter;
+  private final AtomicBoolean relaying = new AtomicBoolean();
+
+  @Value("${app.events.outbox.send-retries:2}")
+  private int sendRetries;
+
+  @Value("${app.events.outbox.relay-batch:100}")
+  private int relayBatch;
+
+  @Value("${app.events.outbox.lease:PT1M}")
+  private Duration lease;
+
+  /**
+   * Construye el componente.
+   *
+   * @param kafkaTemplate plantilla reactiva de Kafka
+   * @param mongoTemplate plantilla de MongoDB
+   * @param meterRegistry registro de métricas
+   */
+  public EventOutbox(ReactiveKafkaProducerTemplate<String, Object> kafkaTemplate,
+                     ReactiveMongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.mongoTemplate = mongoTemplate;
+    this.deferredCounter = meterRegistry.counter("yanki.events.outbox.deferred");
+    this.relayedCounter = meterRegistry.counter("yanki.events.outbox.relayed");
+  }
+
+  /**
+   * Publica un evento; si no puede enviarse, lo guarda para reenviarlo más tarde.
+   *
+   * @param topic tópico de destino
+   * @param key clave del mensaje
+   * @param event el evento
+   * @return Mono que completa cuando el evento queda enviado o guardado
+   */
+  public Mono<Void> publish(String topic, String key, Object event) {
+    return kafkaTemplate.send(topic, key, event)
+      .then()
+      .retryWhen(Retry.backoff(sendRetries, Duration.ofMillis(100)))
+      .doOnSuccess(sent -> log.debug("Event sent to {} - Key: {}", topic, key))
+      .onErrorResume(error -> defer(topic, key, event, error));
+  }
+
+  /**
+   * Reenvía los eventos guardados cuyo plazo venció.
+   */
+  @Scheduled(fixedDelayString = "${app.events.outbox.relay-interval:PT10S}")
+  public void relay() {
+    if (!relaying.compareAndSet(false, true)) {
+      return;
+    }
+    Flux.range(0, relayBatch)
+      .concatMap(attempt -> claimNext().flatMap(this::resend).defaultIfEmpty(false))
+      .takeWhile(Boolean::booleanValue)
+      .onErrorResume(error -> {
+        log.error("Event outbox relay failed: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .doFinally(signal -> relaying.set(false))
+      .subscribe();
+  }
+
+  private Mono<Void> defer(String topic, String key, Object event, Throwable cause) {
+    Instant now = Instant.now();
+    OutboxEvent pending = OutboxEvent.builder()
+      .topic(topic)
+      .key(key)
+      .payload(event)
+      .createdAt(now)
+      .nextAttemptAt(now)
+      .build();
+    return mongoTemplate.insert(pending)
+      .doOnSuccess(saved -> {
+        deferredCounter.increment();
+        log.warn("Event to {} deferred after send failure - Key: {}: {}", topic, key,
+          cause.getMessage());
+      })
+      .onErrorResume(error -> {
+        log.error("Event to {} lost - Key: {}: send failed ({}) and not stored ({})", topic,
+          key, cause.getMessage(), error.getMessage());
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  private Mono<OutboxEvent> claimNext() {
+    Instant now = Instant.now();
+    Query due = Query.query(Criteria.where("nextAttemptAt").lte(now))
+      .with(Sort.by("nextAttemptAt"));
+    Update claim = new Update()
+      .set("nextAttemptAt", now.plus(lease))
+      .inc("attempts", 1);
+    return mongoTemplate.findAndModify(due, claim,
+      FindAndModifyOptions.options().returnNew(true), OutboxEvent.class);
+  }
+
+  private Mono<Boolean> resend(OutboxEvent pending) {
+    return kafkaTemplate.send(pending.getTopic(), pending.getKey(), pending.getPayload())
+      .then(mongoTemplate.remove(Query.query(Criteria.where("_id").is(pending.getId())),
+        OutboxEvent.class))
+      .doOnSuccess(removed -> {
+        relayedCounter.increment();
+        log.info("Deferred event relayed to {} - Key: {}", pending.getTopic(),
+          pending.getKey());
+      })
+      .onErrorResume(error -> {
+        log.warn("Deferred event to {} not relayed (attempt {}): {}", pending.getTopic(),
+          pending.getAttempts(), error.getMessage());
+        return Mono.empty();
+      })
+      .thenReturn(true);
+  }
+}
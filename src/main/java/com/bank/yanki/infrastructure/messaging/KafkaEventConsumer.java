@@ -1,11 +1,15 @@
 package com.bank.yanki.infrastructure.messaging;
 
 import com.bank.yanki.application.event.TransactionCreatedEvent;
+import com.bank.yanki.application.event.TransactionStatusChangedEvent;
+import com.bank.yanki.application.event.WalletUpdatedEvent;
 import com.bank.yanki.application.event.YankiBalanceValidationEvent;
 import com.bank.yanki.application.event.YankiBalanceValidationResponse;
 import com.bank.yanki.application.event.YankiPaymentRequestEvent;
+import com.bank.yanki.domain.service.TransactionStatusService;
 import com.bank.yanki.domain.service.YankiBalanceValidationService;
 import com.bank.yanki.domain.service.YankiPaymentService;
+import com.bank.yanki.infrastructure.cache.RedisCacheService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +30,8 @@ public class KafkaEventConsumer {
   private final ObjectMapper objectMapper;
   private final YankiBalanceValidationService yankiBalanceValidationService;
   private final YankiPaymentService yankiPaymentService;
+  private final RedisCacheService cacheService;
+  private final TransactionStatusService statusService;
 
   /**
    * Consume eventos de transacción creada.
@@ -47,17 +53,53 @@ public class KafkaEventConsumer {
   /**
    * Consume eventos de wallet actualizado.
    * Este método procesa eventos que notifican actualizaciones en los wallets,
-   * permitiendo invalidar cachés si es necesario.
+   * invalidando la caché local de esta instancia.
    *
-   * @param walletId El identificador del wallet que fue actualizado
+   * <p>Cada instancia usa su propio grupo de consumidores para que todas reciban
+   * todas las invalidaciones. El grupo se nombra con {@code app.instance-id} o, en su
+   * defecto, con el nombre del host (el del pod en Kubernetes), de modo que un reinicio
+   * reutiliza el grupo en lugar de dejar uno abandonado en el broker.</p>
+   *
+   * @param message El mensaje JSON recibido de Kafka como String
    */
   @KafkaListener(
     topics = "${app.kafka.topics.wallet-updated:yanki.wallet.updated}",
-    groupId = "${spring.kafka.consumer.group-id:yanki-service}"
+    groupId = "${spring.kafka.consumer.group-id:yanki-service}-cache-"
+      + "${app.instance-id:${HOSTNAME:${random.uuid}}}"
+  )
+  public void consumeWalletUpdated(String message) {
+    try {
+      WalletUpdatedEvent event = objectMapper.readValue(message, WalletUpdatedEvent.class);
+      log.debug("Received wallet updated event: {}", event.getPhoneNumber());
+      cacheService.onRemoteWalletUpdated(event);
+    } catch (Exception e) {
+      log.error("❌ Error processing wallet updated event: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Consume cambios de estado de pagos guardados en otras instancias, para entregarlos a
+   * las suscripciones de estado abiertas en esta.
+   *
+   * <p>Como las invalidaciones de caché, usa un grupo de consumidores propio de la
+   * instancia para que todas reciban todos los cambios.</p>
+   *
+   * @param message El mensaje JSON recibido de Kafka como String
+   */
+  @KafkaListener(
+    topics = "${app.kafka.topics.transaction-status:" + KafkaEventProducer.TRANSACTION_STATUS_TOPIC
+      + "}",
+    groupId = "${spring.kafka.consumer.group-id:yanki-service}-status-"
+      + "${app.instance-id:${HOSTNAME:${random.uuid}}}"
   )
-  public void consumeWalletUpdated(String walletId) {
-    log.info("Received wallet updated event: {}", walletId);
-    // Invalidar cache si es necesario
+  public void consumeTransactionStatusChanged(String message) {
+    try {
+      TransactionStatusChangedEvent event =
+        objectMapper.readValue(message, TransactionStatusChangedEvent.class);
+      statusService.onRemoteStatusChanged(event);
+    } catch (Exception e) {
+      log.error("❌ Error processing transaction status changed event: {}", e.getMessage(), e);
+    }
   }
 
   /**
@@ -5,7 +5,9 @@ import com.bank.yanki.application.event.CreditBalanceInquiryEvent;
 import com.bank.yanki.application.event.CreditPaymentRequestEvent;
 import com.bank.yanki.application.event.TransactionConsumptionRequestEvent;
 import com.bank.yanki.application.event.TransactionPaymentRequestEvent;
+import com.bank.yanki.application.event.TransactionStatusChangedEvent;
 import com.bank.yanki.application.event.WalletCreatedEvent;
+import com.bank.yanki.application.event.WalletUpdatedEvent;
 import com.bank.yanki.application.event.YankiBalanceValidationEvent;
 import com.bank.yanki.application.event.YankiBalanceValidationResponse;
 import com.bank.yanki.application.event.YankiPaymentCompletedEvent;
@@ -29,6 +31,11 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class KafkaEventProducer {
 
+  public static final String TRANSACTION_PAYMENT_REQUEST_TOPIC = "transaction.payment.request";
+  public static final String TRANSACTION_CONSUMPTION_REQUEST_TOPIC =
+    "transaction.consumption.request";
+  public static final String TRANSACTION_STATUS_TOPIC = "yanki.transaction.status";
+
   private final ReactiveKafkaProducerTemplate<String, Object> kafkaTemplate;
 
   /**
@@ -48,6 +55,23 @@ public class KafkaEventProducer {
       .then();
   }
 
+  /**
+   * Publica un evento de wallet actualizado.
+   *
+   * @param event El evento de wallet actualizado
+   * @return Mono<Void> que completa cuando el evento es enviado
+   */
+  public Mono<Void> sendWalletUpdatedEvent(WalletUpdatedEvent event) {
+    return kafkaTemplate.send("yanki.wallet.updated", event.getPhoneNumber(), event)
+      .doOnSuccess(result ->
+        log.debug("Wallet updated event sent: {}", event.getPhoneNumber())
+      )
+      .doOnError(error ->
+        log.error("Failed to send wallet updated event: {}", error.getMessage())
+      )
+      .then();
+  }
+
   /**
    * Publica un evento de tarjeta asociada.
    *
@@ -107,7 +131,7 @@ public class KafkaEventProducer {
    * @return Mono<Void> que completa cuando el evento es enviado
    */
   public Mono<Void> sendTransactionPaymentRequest(TransactionPaymentRequestEvent event) {
-    return kafkaTemplate.send("transaction.payment.request", event.getPaymentId(), event)
+    return kafkaTemplate.send(TRANSACTION_PAYMENT_REQUEST_TOPIC, event.getPaymentId(), event)
       .doOnSuccess(result ->
         log.info("Transaction payment request sent - PaymentId: {}, CreditId: {}",
           event.getPaymentId(), event.getCreditId())
@@ -125,7 +149,8 @@ public class KafkaEventProducer {
    * @return Mono<Void> que completa cuando el evento es enviado
    */
   public Mono<Void> sendTransactionConsumptionRequest(TransactionConsumptionRequestEvent event) {
-    return kafkaTemplate.send("transaction.consumption.request", event.getConsumptionId(), event)
+    return kafkaTemplate.send(TRANSACTION_CONSUMPTION_REQUEST_TOPIC, event.getConsumptionId(),
+        event)
       .doOnSuccess(result ->
         log.info("Transaction consumption request sent - ConsumptionId: {}, CreditId: {}",
           event.getConsumptionId(), event.getCreditId())
@@ -188,4 +213,21 @@ public class KafkaEventProducer {
         log.error("❌ Failed to send Yanki payment response: {}", error.getMessage()))
       .then();
   }
-}
\ No newline at end of file
+
+  /**
+   * Publica un cambio de estado de un pago para las demás instancias.
+   *
+   * @param event El evento de cambio de estado
+   * @return Mono<Void> que completa cuando el evento es enviado
+   */
+  public Mono<Void> sendTransactionStatusChanged(TransactionStatusChangedEvent event) {
+    return kafkaTemplate.send(TRANSACTION_STATUS_TOPIC, event.getStatus().getId(), event)
+      .doOnSuccess(result ->
+        log.debug("Transaction status changed event sent: {}", event.getStatus().getId())
+      )
+      .doOnError(error ->
+        log.error("Failed to send transaction status changed event: {}", error.getMessage())
+      )
+      .then();
+  }
+}
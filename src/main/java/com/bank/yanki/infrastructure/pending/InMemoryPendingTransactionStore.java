@@ -0,0 +1,76 @@
+package com.bank.yanki.infrastructure.pending;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Transacciones pendientes en memoria de la instancia.
+ *
+ * <p>La capacidad se reserva antes de insertar, de modo que el límite se respeta con
+ * altas concurrentes. Las transacciones se pierden al reiniciar.</p>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "app.payments.pending.store", havingValue = "memory",
+  matchIfMissing = true)
+public class InMemoryPendingTransactionStore implements PendingTransactionStore {
+
+  private final ConcurrentHashMap<String, PendingTransaction> pending =
+    new ConcurrentHashMap<>();
+  private final AtomicInteger count = new AtomicInteger();
+  private final int capacity;
+
+  /**
+   * Construye el almacenamiento con la capacidad indicada.
+   *
+   * @param capacity máximo de transacciones pendientes
+   */
+  public InMemoryPendingTransactionStore(
+    @Value("${app.payments.pending.capacity:10000}") int capacity) {
+    this.capacity = capacity;
+  }
+
+  @Override
+  public Mono<Boolean> put(PendingTransaction transaction) {
+    return Mono.fromSupplier(() -> {
+      if (count.incrementAndGet() > capacity) {
+        count.decrementAndGet();
+        return false;
+      }
+      if (pending.put(transaction.getInquiryId(), transaction) != null) {
+        count.decrementAndGet();
+      }
+      return true;
+    });
+  }
+
+  @Override
+  public Mono<PendingTransaction> remove(String inquiryId) {
+    return Mono.fromSupplier(() -> {
+      PendingTransaction removed = pending.remove(inquiryId);
+      if (removed != null) {
+        count.decrementAndGet();
+      }
+      return removed;
+    });
+  }
+
+  @Override
+  public Flux<PendingTransaction> removeExpired(Instant now) {
+    return Flux.fromIterable(pending.values())
+      .filter(transaction -> !transaction.getDeadline().isAfter(now))
+      .concatMap(transaction -> remove(transaction.getInquiryId()));
+  }
+
+  @Override
+  public long size() {
+    return count.get();
+  }
+}
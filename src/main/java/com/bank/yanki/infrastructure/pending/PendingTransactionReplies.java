@@ -0,0 +1,168 @@
+package com.bank.yanki.infrastructure.pending;
+
+import com.bank.yanki.domain.model.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Respuestas síncronas de los pagos con validación de crédito.
+ *
+ * <p>Con {@code app.payments.sync-reply.enabled}, el pago pendiente se registra por su
+ * {@code transactionId} antes de enviar la consulta de crédito, y la petición HTTP espera
+ * el resultado hasta {@code app.payments.sync-reply.timeout}. Cuando llega la respuesta
+ * de crédito y el pago termina, el resultado se entrega a la petición en espera; si el
+ * plazo vence antes, la petición responde con la transacción PENDING y el pago continúa
+ * en segundo plano.</p>
+ *
+ * <p>El resultado se conserva aunque llegue antes de que la petición empiece a esperar, y
+ * el registro se elimina al terminar la espera. Los registros que nadie llega a esperar,
+ * porque la petición se canceló o falló antes, se retiran en un barrido cada
+ * {@code app.payments.sync-reply.sweep-interval} una vez superado
+ * {@code app.payments.sync-reply.ttl}. Solo la instancia que recibió la petición
+ * puede completarla; si la respuesta de crédito la consume otra instancia, la petición
+ * responde PENDING al vencer el plazo.</p>
+ *
+ * <p>Métricas: esperas por resultado ({@code yanki.payments.sync-reply}, con
+ * {@code outcome} completed, failed o timeout) y esperas en curso
+ * ({@code yanki.payments.sync-reply.waiting}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class PendingTransactionReplies {
+
+  private final ConcurrentHashMap<String, Reply> waiting = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  @Getter
+  private final boolean enabled;
+  private final Duration timeout;
+  private final Duration ttl;
+
+  /**
+   * Construye el registro con la configuración indicada.
+   *
+   * @param meterRegistry registro de métricas
+   * @param enabled si las peticiones esperan el resultado de la validación de crédito
+   * @param timeout espera máxima antes de responder PENDING
+   * @param ttl antigüedad a partir de la cual se retira un registro que nadie espera
+   */
+  public PendingTransactionReplies(
+    MeterRegistry meterRegistry,
+    @Value("${app.payments.sync-reply.enabled:true}") boolean enabled,
+    @Value("${app.payments.sync-reply.timeout:2s}") Duration timeout,
+    @Value("${app.payments.sync-reply.ttl:1m}") Duration ttl) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.timeout = timeout;
+    this.ttl = ttl;
+    meterRegistry.gaugeMapSize("yanki.payments.sync-reply.waiting", Tags.empty(), waiting);
+  }
+
+  /**
+   * Registra un pago pendiente para que su resultado pueda esperarse; debe llamarse antes
+   * de enviar la consulta de crédito.
+   *
+   * @param transactionId identificador de la transacción pendiente
+   */
+  public void register(String transactionId) {
+    if (enabled) {
+      waiting.put(transactionId, new Reply(Instant.now().plus(ttl)));
+    }
+  }
+
+  /**
+   * Espera el resultado de un pago pendiente registrado.
+   *
+   * @param pending la transacción PENDING, que se devuelve si el plazo vence
+   * @return Mono con la transacción final, el error del pago, o la transacción PENDING
+   */
+  public Mono<Transaction> await(Transaction pending) {
+    String transactionId = pending.getId();
+    Reply reply = waiting.get(transactionId);
+    if (reply == null) {
+      return Mono.just(pending);
+    }
+    return reply.sink.asMono()
+      .doOnNext(transaction -> count("completed"))
+      .doOnError(error -> count("failed"))
+      .timeout(timeout, Mono.fromSupplier(() -> {
+        count("timeout");
+        log.info("No credit reply within {} - TransactionId: {}", timeout, transactionId);
+        return pending;
+      }))
+      .doFinally(signal -> waiting.remove(transactionId, reply));
+  }
+
+  /**
+   * Entrega el resultado de un pago a la petición que lo espera, si la hay.
+   *
+   * @param transactionId identificador de la transacción
+   * @param transaction la transacción final
+   */
+  public void complete(String transactionId, Transaction transaction) {
+    Reply reply = waiting.get(transactionId);
+    if (reply != null) {
+      reply.sink.tryEmitValue(transaction);
+    }
+  }
+
+  /**
+   * Entrega el error de un pago a la petición que lo espera, si la hay.
+   *
+   * @param transactionId identificador de la transacción
+   * @param error el motivo del fallo
+   */
+  public void fail(String transactionId, Throwable error) {
+    Reply reply = waiting.get(transactionId);
+    if (reply != null) {
+      reply.sink.tryEmitError(error);
+    }
+  }
+
+  /**
+   * Elimina el registro de un pago cuya consulta de crédito no llegó a enviarse.
+   *
+   * @param transactionId identificador de la transacción
+   */
+  public void discard(String transactionId) {
+    waiting.remove(transactionId);
+  }
+
+  /**
+   * Retira los registros que superaron su antigüedad máxima sin que nadie los esperara.
+   */
+  @Scheduled(fixedDelayString = "${app.payments.sync-reply.sweep-interval:PT30S}")
+  public void sweep() {
+    Instant now = Instant.now();
+    waiting.entrySet().removeIf(entry -> {
+      boolean stale = entry.getValue().expiresAt.isBefore(now);
+      if (stale) {
+        log.debug("Sync reply never awaited - TransactionId: {}", entry.getKey());
+      }
+      return stale;
+    });
+  }
+
+  private void count(String outcome) {
+    meterRegistry.counter("yanki.payments.sync-reply", "outcome", outcome).increment();
+  }
+
+  private static final class Reply {
+    private final Sinks.One<Transaction> sink = Sinks.one();
+    private final Instant expiresAt;
+
+    private Reply(Instant expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.bank.yanki.infrastructure.pending;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import java.time.Instant;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Almacenamiento de las transacciones pendientes de validación de crédito.
+ *
+ * <p>La implementación se elige con {@code app.payments.pending.store}: {@code memory}
+ * (por defecto) las guarda en la instancia, y {@code redis} las comparte entre
+ * instancias y sobrevive a los reinicios. Ambas admiten como máximo
+ * {@code app.payments.pending.capacity} transacciones.</p>
+ *
+ */
+public interface PendingTransactionStore {
+
+  /**
+   * Guarda una transacción pendiente si queda capacidad.
+   *
+   * @param pending la transacción pendiente
+   * @return Mono que emite true si se guardó, o false si el almacenamiento está lleno
+   */
+  Mono<Boolean> put(PendingTransaction pending);
+
+  /**
+   * Retira una transacción pendiente; solo un llamador la obtiene.
+   *
+   * @param inquiryId identificador de la consulta de crédito
+   * @return Mono con la transacción retirada, o vacío si ya no estaba
+   */
+  Mono<PendingTransaction> remove(String inquiryId);
+
+  /**
+   * Retira las transacciones pendientes cuyo plazo venció.
+   *
+   * @param now instante de referencia
+   * @return Flux con las transacciones retiradas
+   */
+  Flux<PendingTransaction> removeExpired(Instant now);
+
+  /**
+   * Número de transacciones pendientes; en Redis, el último valor observado.
+   *
+   * @return el número de transacciones pendientes
+   */
+  long size();
+}
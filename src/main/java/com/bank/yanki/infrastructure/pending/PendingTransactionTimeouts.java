@@ -0,0 +1,142 @@
+package com.bank.yanki.infrastructure.pending;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Caducidad de las transacciones pendientes de validación de crédito.
+ *
+ * <p>Cada transacción registrada programa su caducidad en un {@link HashedWheelTimer}
+ * con resolución {@code app.payments.pending.tick}, sin una tarea por transacción. Al
+ * vencer el plazo, la transacción se retira del {@link PendingTransactionStore} y, si
+ * la respuesta de crédito no llegó antes, se emite en {@link #expirations()}. Al llegar
+ * la respuesta, {@link #cancel} retira la caducidad del temporizador. Un barrido
+ * cada {@code sweep-interval} retira además las que ninguna instancia programó, como
+ * las guardadas en Redis antes de un reinicio.</p>
+ *
+ * <p>Métricas: transacciones pendientes ({@code yanki.payments.pending.size}) y
+ * caducadas ({@code yanki.payments.pending.timeouts}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class PendingTransactionTimeouts {
+
+  private final PendingTransactionStore pendingStore;
+  private final Counter timeoutCounter;
+  private final HashedWheelTimer timer;
+  private final Map<String, Timeout> scheduled = new ConcurrentHashMap<>();
+  private final Sinks.Many<PendingTransaction> expired =
+    Sinks.many().unicast().onBackpressureBuffer();
+  @Getter
+  private final Duration timeout;
+
+  /**
+   * Construye el temporizador con la configuración indicada.
+   *
+   * @param pendingStore almacenamiento de las transacciones pendientes
+   * @param meterRegistry registro de métricas
+   * @param timeout plazo de una validación de crédito
+   * @param tick resolución del temporizador
+   */
+  public PendingTransactionTimeouts(
+    PendingTransactionStore pendingStore,
+    MeterRegistry meterRegistry,
+    @Value("${app.payments.pending.timeout:30s}") Duration timeout,
+    @Value("${app.payments.pending.tick:100ms}") Duration tick) {
+    this.pendingStore = pendingStore;
+    this.timeout = timeout;
+    this.timeoutCounter = meterRegistry.counter("yanki.payments.pending.timeouts");
+    this.timer = new HashedWheelTimer(new DefaultThreadFactory("pending-timeouts", true),
+      tick.toMillis(), TimeUnit.MILLISECONDS);
+    Gauge.builder("yanki.payments.pending.size", pendingStore,
+        PendingTransactionStore::size)
+      .register(meterRegistry);
+  }
+
+  /**
+   * Programa la caducidad de una transacción pendiente en su plazo.
+   *
+   * @param pending la transacción pendiente, ya guardada
+   */
+  public void schedule(PendingTransaction pending) {
+    long delay = Math.max(0, Duration.between(Instant.now(), pending.getDeadline()).toMillis());
+    scheduled.put(pending.getInquiryId(), timer.newTimeout(
+      handle -> expire(pending.getInquiryId()), delay, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Cancela la caducidad programada de una transacción que ya no está pendiente.
+   *
+   * @param inquiryId identificador de la consulta de crédito
+   */
+  public void cancel(String inquiryId) {
+    Timeout handle = scheduled.remove(inquiryId);
+    if (handle != null) {
+      handle.cancel();
+    }
+  }
+
+  /**
+   * Transacciones retiradas por caducar sin respuesta de crédito.
+   *
+   * @return Flux de las transacciones caducadas; admite un único suscriptor
+   */
+  public Flux<PendingTransaction> expirations() {
+    return expired.asFlux();
+  }
+
+  /**
+   * Retira las transacciones vencidas que no tienen caducidad programada.
+   */
+  @Scheduled(fixedDelayString = "${app.payments.pending.sweep-interval:PT30S}")
+  public void sweep() {
+    pendingStore.removeExpired(Instant.now())
+      .subscribe(this::timedOut,
+        error -> log.warn("Pending transaction sweep failed: {}", error.getMessage()));
+  }
+
+  /**
+   * Detiene el temporizador.
+   */
+  @PreDestroy
+  public void stop() {
+    timer.stop();
+  }
+
+  private void expire(String inquiryId) {
+    scheduled.remove(inquiryId);
+    pendingStore.remove(inquiryId)
+      .subscribe(this::timedOut,
+        error -> log.warn("Pending transaction {} not expired: {}", inquiryId,
+          error.getMessage()));
+  }
+
+  private void timedOut(PendingTransaction pending) {
+    timeoutCounter.increment();
+    log.warn("Credit validation timed out - InquiryId: {}, TransactionId: {}",
+      pending.getInquiryId(), pending.getTransactionId());
+    Sinks.EmitResult result;
+    do {
+      result = expired.tryEmitNext(pending);
+    } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+  }
+}
@@ -0,0 +1,120 @@
+package com.bank.yanki.infrastructure.pending;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Transacciones pendientes en Redis, compartidas entre instancias.
+ *
+ * <p>Cada transacción se guarda como JSON en {@code {pending}:tx:<inquiryId>} y su plazo
+ * en el sorted set {@code {pending}:deadlines}. Alta y retirada son scripts Lua, de modo
+ * que la capacidad se respeta entre instancias y cada transacción se retira una sola
+ * vez. Los scripts tocan la transacción y el sorted set común, por lo que todas las
+ * claves comparten la etiqueta {@code {pending}} y, en Redis Cluster, el mismo slot.</p>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "app.payments.pending.store", havingValue = "redis")
+public class RedisPendingTransactionStore implements PendingTransactionStore {
+
+  static final String KEY_PREFIX = "{pending}:tx:";
+  static final String DEADLINES_KEY = "{pending}:deadlines";
+  private static final int EXPIRED_BATCH = 100;
+  private static final RedisScript<Long> PUT_SCRIPT = RedisScript.of(
+    "if redis.call('ZCARD', KEYS[2]) >= tonumber(ARGV[3]) then return -1 end "
+      + "redis.call('SET', KEYS[1], ARGV[1]) "
+      + "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[4]) "
+      + "return redis.call('ZCARD', KEYS[2])", Long.class);
+  private static final RedisScript<String> REMOVE_SCRIPT = RedisScript.of(
+    "local value = redis.call('GET', KEYS[1]) "
+      + "if not value then return '' end "
+      + "redis.call('DEL', KEYS[1]) "
+      + "redis.call('ZREM', KEYS[2], ARGV[1]) "
+      + "return value", String.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final int capacity;
+  private final AtomicLong size = new AtomicLong();
+
+  /**
+   * Construye el almacenamiento con la capacidad indicada.
+   *
+   * @param redisTemplate plantilla Redis de cadenas
+   * @param objectMapper serializador de las transacciones
+   * @param capacity máximo de transacciones pendientes entre todas las instancias
+   */
+  public RedisPendingTransactionStore(
+    ReactiveStringRedisTemplate redisTemplate,
+    ObjectMapper objectMapper,
+    @Value("${app.payments.pending.capacity:10000}") int capacity) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.capacity = capacity;
+  }
+
+  @Override
+  public Mono<Boolean> put(PendingTransaction pending) {
+    return Mono.fromCallable(() -> objectMapper.writeValueAsString(pending))
+      .flatMap(value -> redisTemplate.execute(PUT_SCRIPT,
+          List.of(KEY_PREFIX + pending.getInquiryId(), DEADLINES_KEY),
+          List.of(value, Long.toString(pending.getDeadline().toEpochMilli()),
+            Integer.toString(capacity), pending.getInquiryId()))
+        .next())
+      .map(result -> {
+        if (result < 0) {
+          return false;
+        }
+        size.set(result);
+        return true;
+      });
+  }
+
+  @Override
+  public Mono<PendingTransaction> remove(String inquiryId) {
+    return redisTemplate.execute(REMOVE_SCRIPT,
+        List.of(KEY_PREFIX + inquiryId, DEADLINES_KEY), List.of(inquiryId))
+      .next()
+      .filter(value -> !value.isEmpty())
+      .map(value -> {
+        size.updateAndGet(current -> Math.max(0, current - 1));
+        return read(value);
+      });
+  }
+
+  @Override
+  public Flux<PendingTransaction> removeExpired(Instant now) {
+    return redisTemplate.opsForZSet()
+      .rangeByScore(DEADLINES_KEY, Range.closed(0.0, (double) now.toEpochMilli()),
+        Limit.limit().count(EXPIRED_BATCH))
+      .concatMap(this::remove)
+      .concatWith(redisTemplate.opsForZSet().size(DEADLINES_KEY)
+        .doOnNext(size::set)
+        .then(Mono.empty()));
+  }
+
+  @Override
+  public long size() {
+    return size.get();
+  }
+
+  private PendingTransaction read(String value) {
+    try {
+      return objectMapper.readValue(value, PendingTransaction.class);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unreadable pending transaction: " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import com.bank.yanki.domain.model.BalanceSnapshot;
+import com.bank.yanki.domain.model.MigrationCheckpoint;
+import com.bank.yanki.domain.model.YankiWallet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Instantánea inicial del saldo de las billeteras anteriores al libro mayor.
+ *
+ * <p>Guarda una {@link BalanceSnapshot} del saldo actual de cada billetera que no tiene
+ * ninguna, punto de partida del libro mayor. Las billeteras se recorren por {@code _id}
+ * en lotes de {@code app.migrations.baseline.batch-size}; cada lote se resuelve en el
+ * servidor con {@code $merge} y el avance se guarda en {@link MigrationCheckpoint}, de
+ * modo que una ejecución interrumpida continúa desde el último lote completo. Al terminar
+ * la migración queda registrada y no vuelve a ejecutarse en ningún arranque.</p>
+ *
+ * <p>Se ejecuta en segundo plano, después de {@link MongoMigrationRunner} y fuera de
+ * {@link MigrationStatus}: los descuentos no esperan a esta migración, y el saldo histórico
+ * de una billetera sin instantánea se informa como desconocido. El {@code $lookup} con
+ * {@code localField} y {@code pipeline} requiere MongoDB 5.0.</p>
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.migrations.enabled", havingValue = "true",
+  matchIfMissing = true)
+public class BalanceBaselineMigration {
+
+  static final String CHECKPOINT_ID = "balance-baseline";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final MigrationStatus migrationStatus;
+  private final String owner = UUID.randomUUID().toString();
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile boolean completed;
+
+  @Value("${app.migrations.baseline.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.migrations.baseline.lease:5m}")
+  private Duration lease;
+
+  /**
+   * Ejecuta o continúa la migración, si no ha terminado y las migraciones de arranque sí.
+   */
+  @Scheduled(fixedDelayString = "${app.migrations.baseline.interval:1m}",
+    initialDelayString = "${app.migrations.baseline.initial-delay:30s}")
+  public void migrate() {
+    if (completed || !migrationStatus.isCompleted() || !running.compareAndSet(false, true)) {
+      return;
+    }
+    acquireLease()
+      .flatMap(checkpoint -> {
+        if (checkpoint.getCompletedAt() != null) {
+          completed = true;
+          return Mono.empty();
+        }
+        return snapshotFrom(checkpoint.getLastId());
+      })
+      .doOnSuccess(processed -> {
+        if (processed != null) {
+          log.info("Baseline balance snapshots completed, wallets processed: {}", processed);
+        }
+      })
+      .onErrorResume(error -> {
+        log.error("Baseline balance snapshots failed: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .doFinally(signal -> running.set(false))
+      .subscribe();
+  }
+
+  private Mono<MigrationCheckpoint> acquireLease() {
+    Instant now = Instant.now();
+    Query available = Query.query(Criteria.where("_id").is(CHECKPOINT_ID)
+      .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("leaseUntil").is(null)));
+    Update update = new Update()
+      .set("leaseOwner", owner)
+      .set("leaseUntil", now.plus(lease));
+    return mongoTemplate.findAndModify(available, update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        MigrationCheckpoint.class)
+      // Otra instancia tiene la concesión vigente
+      .onErrorResume(DuplicateKeyException.class, error -> Mono.empty());
+  }
+
+  private Mono<Long> snapshotFrom(String lastId) {
+    return nextBatch(lastId)
+      .expand(batch -> snapshotBatch(batch)
+        .then(updateCheckpoint(new Update()
+          .set("lastId", batch.get(batch.size() - 1))
+          .inc("processed", batch.size())
+          .set("leaseUntil", Instant.now().plus(lease))))
+        .then(nextBatch(batch.get(batch.size() - 1))))
+      .reduce(0L, (processed, batch) -> processed + batch.size())
+      .flatMap(processed -> updateCheckpoint(new Update()
+          .set("completedAt", Instant.now())
+          .set("leaseUntil", Instant.now()))
+        .doOnSuccess(done -> completed = true)
+        .thenReturn(processed));
+  }
+
+  private Mono<List<String>> nextBatch(String lastId) {
+    Query query = (lastId != null
+      ? Query.query(Criteria.where("_id").gt(lastId)) : new Query())
+      .with(Sort.by(Sort.Direction.ASC, "_id"))
+      .limit(batchSize);
+    query.fields().include("_id");
+    return mongoTemplate.find(query, YankiWallet.class)
+      .map(YankiWallet::getId)
+      .collectList()
+      .filter(ids -> !ids.isEmpty());
+  }
+
+  /**
+   * Guarda la instantánea de las billeteras del lote que no tienen ninguna.
+   *
+   * <p>La agregación no usa el mapeo de la entidad, por lo que los identificadores se
+   * convierten a {@link ObjectId} como los guarda el repositorio.</p>
+   */
+  private Mono<Void> snapshotBatch(List<String> walletIds) {
+    String snapshots = mongoTemplate.getCollectionName(BalanceSnapshot.class);
+    List<Object> ids = walletIds.stream()
+      .map(id -> ObjectId.isValid(id) ? (Object) new ObjectId(id) : id)
+      .toList();
+    Aggregation baseline = Aggregation.newAggregation(
+      Aggregation.match(Criteria.where("_id").in(ids)),
+      Aggregation.stage("{ $lookup: { from: '" + snapshots + "', localField: 'phoneNumber',"
+        + " foreignField: 'phoneNumber', pipeline: [ { $limit: 1 } ], as: 'snapshots' } }"),
+      Aggregation.stage("{ $match: { snapshots: { $size: 0 } } }"),
+      Aggregation.stage("{ $project: { _id: { $concat: [ '$phoneNumber', ':',"
+        + " { $toString: { $ifNull: [ '$version', 0 ] } } ] },"
+        + " walletId: { $toString: '$_id' }, phoneNumber: 1,"
+        + " version: { $ifNull: [ '$version', 0 ] }, balance: 1, asOf: '$$NOW' } }"),
+      Aggregation.stage("{ $merge: { into: '" + snapshots + "', on: '_id',"
+        + " whenMatched: 'keepExisting', whenNotMatched: 'insert' } }"));
+    return mongoTemplate.aggregate(baseline, mongoTemplate.getCollectionName(YankiWallet.class),
+        Document.class)
+      .then();
+  }
+
+  /**
+   * Actualiza el avance mientras esta instancia conserve la concesión.
+   */
+  private Mono<Void> updateCheckpoint(Update update) {
+    Query owned = Query.query(Criteria.where("_id").is(CHECKPOINT_ID)
+      .and("leaseOwner").is(owner));
+    return mongoTemplate.updateFirst(owned, update, MigrationCheckpoint.class)
+      .flatMap(result -> result.getMatchedCount() == 0
+        ? Mono.error(new IllegalStateException("Balance baseline lease lost"))
+        : Mono.<Void>empty());
+  }
+}
@@ -0,0 +1,134 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import com.bank.yanki.domain.model.PendingLedgerWrite;
+import com.bank.yanki.domain.repository.PendingLedgerWriteRepository;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.domain.service.LedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Escritura periódica de las entradas del libro mayor aplazadas por
+ * {@link LedgerService#recordDurably}.
+ *
+ * <p>Cada {@code app.ledger.retry.interval} se reclaman hasta {@code batch} escrituras
+ * pendientes con una concesión de {@code lease}; cada una se escribe con
+ * {@link LedgerService#write}, que no duplica las entradas ya insertadas, junto con el
+ * registro de transacción aplazado, si lo hay, y se borra al quedar escrita. Si falla, se reintenta al vencer la concesión.</p>
+ *
+ * <p>Métricas: escrituras aplazadas completadas ({@code yanki.ledger.replayed}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class LedgerRetryJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final PendingLedgerWriteRepository pendingRepository;
+  private final LedgerService ledgerService;
+  private final YankiTransactionRepository transactionRepository;
+  private final Counter replayedCounter;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  @Value("${app.ledger.retry.batch:100}")
+  private int batch;
+
+  @Value("${app.ledger.retry.lease:PT1M}")
+  private Duration lease;
+
+  /**
+   * Construye el job.
+   *
+   * @param mongoTemplate plantilla de MongoDB
+   * @param pendingRepository repositorio de escrituras aplazadas
+   * @param ledgerService servicio del libro mayor
+   * @param transactionRepository repositorio de transacciones
+   * @param meterRegistry registro de métricas
+   */
+  public LedgerRetryJob(ReactiveMongoTemplate mongoTemplate,
+                        PendingLedgerWriteRepository pendingRepository,
+                        LedgerService ledgerService,
+                        YankiTransactionRepository transactionRepository,
+                        MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.pendingRepository = pendingRepository;
+    this.ledgerService = ledgerService;
+    this.transactionRepository = transactionRepository;
+    this.replayedCounter = meterRegistry.counter("yanki.ledger.replayed");
+  }
+
+  /**
+   * Escribe las entradas aplazadas cuyo plazo venció.
+   */
+  @Scheduled(fixedDelayString = "${app.ledger.retry.interval:PT30S}")
+  public void replay() {
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+    Flux.range(0, batch)
+      .concatMap(attempt -> claimNext().flatMap(this::write).defaultIfEmpty(false))
+      .takeWhile(Boolean::booleanValue)
+      .onErrorResume(error -> {
+        log.error("Ledger retry failed: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .doFinally(signal -> running.set(false))
+      .subscribe();
+  }
+
+  private Mono<PendingLedgerWrite> claimNext() {
+    Instant now = Instant.now();
+    Query due = Query.query(Criteria.where("nextAttemptAt").lte(now))
+      .with(Sort.by("nextAttemptAt"));
+    Update claim = new Update()
+      .set("nextAttemptAt", now.plus(lease))
+      .inc("attempts", 1);
+    return mongoTemplate.findAndModify(due, claim,
+      FindAndModifyOptions.options().returnNew(true), PendingLedgerWrite.class);
+  }
+
+  private Mono<Boolean> write(PendingLedgerWrite pending) {
+    return ledgerService.write(
+        pending.getEntries() != null ? pending.getEntries() : List.of(),
+        pending.getSnapshots() != null ? pending.getSnapshots() : List.of())
+      .then(insertRecord(pending))
+      .then(pendingRepository.deleteById(pending.getId()))
+      .doOnSuccess(deleted -> {
+        replayedCounter.increment();
+        log.info("Deferred ledger entries written: {}", pending.getId());
+      })
+      .onErrorResume(error -> {
+        log.warn("Deferred ledger entries {} not written (attempt {}): {}", pending.getId(),
+          pending.getAttempts(), error.getMessage());
+        return Mono.empty();
+      })
+      .thenReturn(true);
+  }
+
+  private Mono<Void> insertRecord(PendingLedgerWrite pending) {
+    if (pending.getRecord() == null) {
+      return Mono.empty();
+    }
+    return transactionRepository.insertRecord(pending.getRecord())
+      // Un intento anterior ya lo insertó
+      .onErrorResume(DuplicateKeyException.class, error -> Mono.empty())
+      .then();
+  }
+}
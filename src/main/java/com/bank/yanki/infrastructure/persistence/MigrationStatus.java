@@ -0,0 +1,33 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Estado de las migraciones de {@link MongoMigrationRunner}.
+ *
+ * <p>Las operaciones que dependen del formato migrado, como el descuento condicionado al
+ * saldo, consultan {@link #isCompleted()} antes de ejecutarse: hasta que la migración
+ * termina, los saldos guardados como texto no cumplen los filtros numéricos.</p>
+ *
+ */
+@Component
+public class MigrationStatus {
+
+  private volatile boolean completed;
+
+  /**
+   * Indica si las migraciones terminaron o están desactivadas.
+   *
+   * @return true si los datos tienen el formato esperado
+   */
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Marca las migraciones como terminadas.
+   */
+  public void markCompleted() {
+    completed = true;
+  }
+}
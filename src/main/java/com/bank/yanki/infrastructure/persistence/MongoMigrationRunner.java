@@ -0,0 +1,184 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import com.bank.yanki.domain.model.BalanceSnapshot;
+import com.bank.yanki.domain.model.LedgerEntry;
+import com.bank.yanki.domain.model.OutboxEvent;
+import com.bank.yanki.domain.model.PendingLedgerWrite;
+import com.bank.yanki.domain.model.TransactionArchiveChunk;
+import com.bank.yanki.domain.model.TransactionBucket;
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.model.YankiWallet;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Migraciones de datos en MongoDB que se ejecutan al arrancar, incluida la creación de
+ * los índices declarados en las entidades.
+ *
+ * <p>Cada paso es idempotente: solo modifica los documentos que aún no están en el
+ * formato esperado, por lo que puede ejecutarse en todas las instancias y en cada
+ * arranque. Se ejecuta antes que los demás {@link ApplicationRunner} y antes de marcar
+ * la aplicación como lista para recibir tráfico. Al terminar se marca en
+ * {@link MigrationStatus}; hasta entonces los descuentos se rechazan. Si falla o no
+ * termina dentro del plazo, el arranque continúa y la migración se reintenta en segundo
+ * plano cada {@code app.migrations.retry-interval} hasta completarse.</p>
+ *
+ * <p>Las migraciones que recorren colecciones completas, como
+ * {@link BalanceBaselineMigration}, no se ejecutan aquí sino por lotes en segundo plano
+ * una vez terminadas estas.</p>
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoMigrationRunner implements ApplicationRunner {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final MigrationStatus migrationStatus;
+  private volatile Disposable retries;
+
+  @Value("${app.migrations.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.migrations.timeout:30s}")
+  private Duration timeout;
+
+  @Value("${app.migrations.retry-interval:30s}")
+  private Duration retryInterval;
+
+  @Value("${app.transactions.layout:document}")
+  private String transactionLayout;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) {
+      migrationStatus.markCompleted();
+      return;
+    }
+    migrate()
+      .timeout(timeout)
+      .doOnSuccess(done -> migrationStatus.markCompleted())
+      .onErrorResume(error -> {
+        log.error("Mongo migrations failed, debits disabled until they complete: {}",
+          error.getMessage());
+        retryInBackground();
+        return Mono.empty();
+      })
+      .block();
+  }
+
+  /**
+   * Detiene los reintentos pendientes.
+   */
+  @PreDestroy
+  public void stop() {
+    Disposable pending = retries;
+    if (pending != null) {
+      pending.dispose();
+    }
+  }
+
+  private void retryInBackground() {
+    retries = migrate()
+      .timeout(timeout)
+      .doOnError(error -> log.warn("Mongo migrations retry failed: {}", error.getMessage()))
+      .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, retryInterval))
+      .subscribe(null, error -> log.error("Mongo migrations abandoned: {}", error.getMessage()),
+        () -> {
+          migrationStatus.markCompleted();
+          log.info("Mongo migrations completed, debits enabled");
+        });
+  }
+
+  private Mono<Void> migrate() {
+    return migrateWalletBalancesToDecimal()
+      .then(initializeWalletVersions())
+      .then(ensureIndexes(YankiWallet.class))
+      .then(ensureIndexes("bucket".equals(transactionLayout)
+        ? TransactionBucket.class : YankiTransaction.class))
+      .then(ensureIndexes(TransactionArchiveChunk.class))
+      .then(ensureIndexes(LedgerEntry.class))
+      .then(ensureIndexes(BalanceSnapshot.class))
+      .then(ensureIndexes(TransactionStatusRecord.class))
+      .then(ensureIndexes(OutboxEvent.class))
+      .then(ensureIndexes(PendingLedgerWrite.class));
+  }
+
+  /**
+   * Convierte a Decimal128 los saldos guardados como texto, necesario para que los
+   * filtros y {@code $inc} sobre {@code balance} operen numéricamente.
+   *
+   * <p>Se actualiza por nombre de colección y no por entidad: con la entidad, el mapeo
+   * convertiría a Decimal128 el operando de {@code $type}.</p>
+   */
+  private Mono<Void> migrateWalletBalancesToDecimal() {
+    Query legacyBalances = Query.query(
+      Criteria.where("balance").type(JsonSchemaObject.Type.stringType()));
+    AggregationUpdate toDecimal = AggregationUpdate.update()
+      .set("balance").toValue(ConvertOperators.valueOf("balance").convertToDecimal());
+    return mongoTemplate.updateMulti(legacyBalances, toDecimal,
+        mongoTemplate.getCollectionName(YankiWallet.class))
+      .doOnSuccess(result -> log.info("Wallet balances migrated to Decimal128: {}",
+        result.getModifiedCount()))
+      .then();
+  }
+
+  /**
+   * Asigna la versión cero a las billeteras anteriores al campo {@code version}.
+   *
+   * <p>Con {@code @Version}, {@code save()} trataría como nueva una billetera sin versión e
+   * intentaría insertarla de nuevo.</p>
+   */
+  private Mono<Void> initializeWalletVersions() {
+    Query unversioned = Query.query(Criteria.where("version").exists(false));
+    return mongoTemplate.updateMulti(unversioned, new Update().set("version", 0L),
+        mongoTemplate.getCollectionName(YankiWallet.class))
+      .doOnSuccess(result -> log.info("Wallet versions initialized: {}",
+        result.getModifiedCount()))
+      .then();
+  }
+
+  /**
+   * Crea los índices declarados en la entidad que aún no existen.
+   *
+   * <p>Un índice que no se puede crear, por ejemplo uno único con duplicados previos, se
+   * registra como error sin impedir la creación de los demás.</p>
+   */
+  private Mono<Void> ensureIndexes(Class<?> entityType) {
+    IndexResolver resolver =
+      IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+    return Flux.fromIterable(resolver.resolveIndexFor(entityType))
+      .concatMap(index -> mongoTemplate.indexOps(entityType).ensureIndex(index)
+        .onErrorResume(error -> {
+          log.error("Index {} on {} not created: {}", index.getIndexKeys().toJson(),
+            mongoTemplate.getCollectionName(entityType), error.getMessage());
+          return Mono.empty();
+        }))
+      .count()
+      .doOnSuccess(count -> log.info("Indexes ensured on {}: {}",
+        mongoTemplate.getCollectionName(entityType), count))
+      .then();
+  }
+}
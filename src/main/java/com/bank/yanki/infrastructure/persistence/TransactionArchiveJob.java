@@ -0,0 +1,187 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import com.bank.yanki.domain.model.TransactionArchiveCheckpoint;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.infrastructure.persistence.store.TransactionArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Archivado periódico de las transacciones antiguas de {@code yanki_transactions}.
+ *
+ * <p>Cada ejecución mueve al {@link TransactionArchive} las transacciones anteriores a
+ * {@code app.transactions.archive.retention-months} meses. Las transacciones se leen por
+ * {@code _id} en lotes de {@code chunk-size}; hasta {@code parallelism} lotes se archivan
+ * a la vez y cada uno se borra de {@code yanki_transactions} solo después de quedar
+ * guardado en frío.</p>
+ *
+ * <p>El avance se guarda en {@link TransactionArchiveCheckpoint} tras cada lote, en
+ * orden, de modo que una ejecución interrumpida continúa en la siguiente desde el último
+ * lote completo; repetir un lote reemplaza sus bloques. Una concesión con plazo en el
+ * mismo documento evita que dos instancias archiven a la vez.</p>
+ *
+ * <p>Solo aplica al layout {@code document} y está desactivado por defecto
+ * ({@code app.transactions.archive.enabled}).</p>
+ *
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${app.transactions.archive.enabled:false}"
+  + " and '${app.transactions.layout:document}' == 'document'")
+public class TransactionArchiveJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionArchive transactionArchive;
+  private final Counter archivedCounter;
+  private final String owner = UUID.randomUUID().toString();
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  @Value("${app.transactions.archive.retention-months:6}")
+  private int retentionMonths;
+
+  @Value("${app.transactions.archive.chunk-size:1000}")
+  private int chunkSize;
+
+  @Value("${app.transactions.archive.parallelism:4}")
+  private int parallelism;
+
+  @Value("${app.transactions.archive.lease:10m}")
+  private Duration lease;
+
+  /**
+   * Construye el archivado.
+   *
+   * @param mongoTemplate plantilla de MongoDB
+   * @param transactionArchive nivel frío del historial
+   * @param meterRegistry registro de métricas
+   */
+  public TransactionArchiveJob(ReactiveMongoTemplate mongoTemplate,
+                               TransactionArchive transactionArchive,
+                               MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.transactionArchive = transactionArchive;
+    this.archivedCounter = meterRegistry.counter("yanki.transactions.archived");
+  }
+
+  /**
+   * Archiva las transacciones anteriores a la fecha de corte, o continúa la pasada
+   * interrumpida.
+   */
+  @Scheduled(cron = "${app.transactions.archive.cron:0 30 3 * * *}")
+  public void archive() {
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+    acquireLease()
+      .flatMap(this::startOrResume)
+      .flatMap(this::archiveFrom)
+      .doOnSuccess(archived -> {
+        if (archived != null) {
+          log.info("Transactions archived: {}", archived);
+        }
+      })
+      .onErrorResume(error -> {
+        log.error("Transaction archival failed: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .doFinally(signal -> running.set(false))
+      .subscribe();
+  }
+
+  private Mono<TransactionArchiveCheckpoint> acquireLease() {
+    Instant now = Instant.now();
+    Query available = Query.query(Criteria.where("_id").is(TransactionArchive.CHECKPOINT_ID)
+      .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("leaseUntil").is(null)));
+    Update update = new Update()
+      .set("leaseOwner", owner)
+      .set("leaseUntil", now.plus(lease));
+    return mongoTemplate.findAndModify(available, update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        TransactionArchiveCheckpoint.class)
+      // Otra instancia tiene la concesión vigente
+      .onErrorResume(DuplicateKeyException.class, error -> Mono.empty());
+  }
+
+  private Mono<TransactionArchiveCheckpoint> startOrResume(
+    TransactionArchiveCheckpoint checkpoint) {
+    if (checkpoint.getCutoff() != null && checkpoint.getLastId() != null) {
+      log.info("Resuming transaction archival before {} after {}", checkpoint.getCutoff(),
+        checkpoint.getLastId());
+      return Mono.just(checkpoint);
+    }
+    LocalDateTime cutoff = LocalDate.now().minusMonths(retentionMonths).atStartOfDay();
+    if (checkpoint.getCutoff() != null && !cutoff.isAfter(checkpoint.getCutoff())) {
+      return Mono.just(checkpoint);
+    }
+    checkpoint.setCutoff(cutoff);
+    // Las instancias deben ver la nueva fecha de corte antes de que se mueva un registro
+    return updateCheckpoint(new Update().set("cutoff", cutoff))
+      .then(Mono.delay(transactionArchive.getCutoffRefresh()))
+      .thenReturn(checkpoint);
+  }
+
+  private Mono<Long> archiveFrom(TransactionArchiveCheckpoint checkpoint) {
+    Criteria criteria = Criteria.where("transactionDate").lt(checkpoint.getCutoff());
+    if (checkpoint.getLastId() != null) {
+      criteria = criteria.and("_id").gt(checkpoint.getLastId());
+    }
+    Query query = Query.query(criteria)
+      .with(Sort.by(Sort.Direction.ASC, "_id"))
+      .cursorBatchSize(chunkSize);
+    return mongoTemplate.find(query, YankiTransaction.class)
+      .buffer(chunkSize)
+      .flatMapSequential(chunk -> archiveChunk(chunk).thenReturn(chunk), parallelism)
+      .concatMap(chunk -> updateCheckpoint(new Update()
+          .set("lastId", chunk.get(chunk.size() - 1).getId())
+          .inc("archived", chunk.size())
+          .set("leaseUntil", Instant.now().plus(lease)))
+        .thenReturn(chunk.size()))
+      .reduce(0L, Long::sum)
+      .flatMap(archived -> updateCheckpoint(new Update()
+          .unset("lastId")
+          .set("completedAt", Instant.now())
+          .set("leaseUntil", Instant.now()))
+        .thenReturn(archived));
+  }
+
+  private Mono<Void> archiveChunk(List<YankiTransaction> chunk) {
+    List<String> ids = chunk.stream().map(YankiTransaction::getId).toList();
+    return transactionArchive.write(chunk)
+      .then(mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)),
+        YankiTransaction.class))
+      .doOnSuccess(result -> archivedCounter.increment(chunk.size()))
+      .then();
+  }
+
+  /**
+   * Actualiza el estado del archivado mientras esta instancia conserve la concesión.
+   */
+  private Mono<Void> updateCheckpoint(Update update) {
+    Query owned = Query.query(Criteria.where("_id").is(TransactionArchive.CHECKPOINT_ID)
+      .and("leaseOwner").is(owner));
+    return mongoTemplate.updateFirst(owned, update, TransactionArchiveCheckpoint.class)
+      .flatMap(result -> result.getMatchedCount() == 0
+        ? Mono.error(new IllegalStateException("Transaction archive lease lost"))
+        : Mono.<Void>empty());
+  }
+}
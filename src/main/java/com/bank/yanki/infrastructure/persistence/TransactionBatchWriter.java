@@ -0,0 +1,226 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.infrastructure.persistence.store.TransactionStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Escritor por lotes de registros de transacciones Yanki, sobre el
+ * {@link TransactionStore} del layout configurado.
+ *
+ * <p>Los registros se acumulan hasta {@code app.transactions.batch-writer.max-size}
+ * registros o {@code max-delay}, lo que ocurra primero, y cada lote se inserta con una
+ * sola operación bulk no ordenada. Cada llamada a {@link #write} completa cuando su
+ * registro queda insertado, o con el error de ese registro.</p>
+ *
+ * <p>Un registro rechazado por el bulk solo hace fallar a su llamada: el almacenamiento
+ * devuelve los fallos por registro. Si el lote falla entero por otro motivo, sus
+ * registros se insertan uno a uno, de modo que un error del lote no hace fallar a
+ * transferencias cuyo saldo ya cambió; un registro que el lote llegó a insertar se da por
+ * insertado.</p>
+ *
+ * <p>La cola es acotada ({@code capacity}) y los lotes se piden solo cuando hay menos de
+ * {@code concurrency} inserciones en curso. Si la cola está llena, el registro se inserta
+ * directamente, sin esperar al lote, de modo que la memoria no crece bajo picos.</p>
+ *
+ * <p>Métricas: tamaño de los lotes ({@code yanki.transactions.batch.size}), inserciones
+ * directas por cola llena ({@code yanki.transactions.batch.overflow}) y lotes insertados
+ * uno a uno ({@code yanki.transactions.batch.fallback}).</p>
+ *
+ */
+@Slf4j
+@Component
+public class TransactionBatchWriter {
+
+  private static final int FALLBACK_CONCURRENCY = 16;
+
+  private final TransactionStore transactionStore;
+  private final MeterRegistry meterRegistry;
+  private final DistributionSummary batchSizes;
+  private final Sinks.Many<PendingWrite> queue;
+  private final Sinks.Empty<Void> drained = Sinks.empty();
+  private final boolean enabled;
+  private final int maxSize;
+  private final Duration maxDelay;
+  private final int concurrency;
+  private final Duration shutdownTimeout;
+
+  /**
+   * Construye el escritor con la configuración indicada.
+   *
+   * @param transactionStore almacenamiento de los registros
+   * @param meterRegistry registro de métricas
+   * @param enabled si los registros se agrupan en lotes
+   * @param capacity máximo de registros en espera de lote
+   * @param maxSize máximo de registros por lote
+   * @param maxDelay espera máxima de un registro antes de insertar su lote
+   * @param concurrency máximo de lotes insertándose a la vez
+   * @param shutdownTimeout espera máxima para insertar los registros pendientes al apagar
+   */
+  public TransactionBatchWriter(
+    TransactionStore transactionStore,
+    MeterRegistry meterRegistry,
+    @Value("${app.transactions.batch-writer.enabled:true}") boolean enabled,
+    @Value("${app.transactions.batch-writer.capacity:10000}") int capacity,
+    @Value("${app.transactions.batch-writer.max-size:500}") int maxSize,
+    @Value("${app.transactions.batch-writer.max-delay:10ms}") Duration maxDelay,
+    @Value("${app.transactions.batch-writer.concurrency:4}") int concurrency,
+    @Value("${app.transactions.batch-writer.shutdown-timeout:5s}") Duration shutdownTimeout) {
+    this.transactionStore = transactionStore;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.maxSize = maxSize;
+    this.maxDelay = maxDelay;
+    this.concurrency = concurrency;
+    this.shutdownTimeout = shutdownTimeout;
+    this.queue = Sinks.many().unicast()
+      .onBackpressureBuffer(Queues.<PendingWrite>get(capacity).get());
+    this.batchSizes = DistributionSummary.builder("yanki.transactions.batch.size")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Inicia el consumo de la cola.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    queue.asFlux()
+      .bufferTimeout(maxSize, maxDelay, true)
+      .flatMap(this::insertBatch, concurrency)
+      .doFinally(signal -> drained.tryEmitEmpty())
+      .subscribe();
+  }
+
+  /**
+   * Deja de aceptar registros en la cola e inserta los pendientes.
+   */
+  @PreDestroy
+  public void stop() {
+    if (!enabled) {
+      return;
+    }
+    emit(() -> queue.tryEmitComplete());
+    drained.asMono()
+      .timeout(shutdownTimeout)
+      .onErrorResume(error -> {
+        log.warn("Transaction batch writer stopped with pending records");
+        return Mono.empty();
+      })
+      .block();
+  }
+
+  /**
+   * Encola un registro para insertarlo en el siguiente lote.
+   *
+   * @param transaction el registro a insertar
+   * @return Mono con el registro insertado, o con el error de su inserción
+   */
+  public Mono<YankiTransaction> write(YankiTransaction transaction) {
+    if (!enabled) {
+      return transactionStore.insert(transaction);
+    }
+    return Mono.defer(() -> {
+      PendingWrite pending = new PendingWrite(transaction);
+      Sinks.EmitResult result = emit(() -> queue.tryEmitNext(pending));
+      if (result.isFailure()) {
+        meterRegistry.counter("yanki.transactions.batch.overflow").increment();
+        return transactionStore.insert(transaction);
+      }
+      return pending.completion.asMono();
+    });
+  }
+
+  private Mono<Void> insertBatch(List<PendingWrite> batch) {
+    batchSizes.record(batch.size());
+    return transactionStore
+      .insertAll(batch.stream().map(pending -> pending.transaction).toList())
+      .doOnNext(failures -> complete(batch, failures))
+      .onErrorResume(error -> {
+        log.warn("Transaction batch of {} failed, inserting records one by one: {}",
+          batch.size(), error.getMessage());
+        meterRegistry.counter("yanki.transactions.batch.fallback").increment();
+        return Flux.fromIterable(batch)
+          .flatMap(this::insertAlone, FALLBACK_CONCURRENCY)
+          .then(Mono.empty());
+      })
+      .then();
+  }
+
+  /**
+   * Inserta un registro de un lote fallido por separado, con su propio resultado.
+   */
+  private Mono<Void> insertAlone(PendingWrite pending) {
+    return transactionStore.insert(pending.transaction)
+      // El lote pudo insertar el registro antes de fallar
+      .onErrorResume(DuplicateKeyException.class, error -> Mono.just(pending.transaction))
+      .doOnNext(inserted -> pending.succeed())
+      .onErrorResume(error -> {
+        pending.fail(error);
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  private void complete(List<PendingWrite> batch, Map<Integer, String> failures) {
+    if (!failures.isEmpty()) {
+      log.error("Transaction batch of {} inserted with {} failures", batch.size(),
+        failures.size());
+    }
+    // En modo no ordenado solo fallan los registros señalados, el resto quedó insertado
+    for (int index = 0; index < batch.size(); index++) {
+      String failure = failures.get(index);
+      if (failure == null) {
+        batch.get(index).succeed();
+      } else {
+        batch.get(index).fail(new IllegalStateException(
+          "Transaction record not inserted: " + failure));
+      }
+    }
+  }
+
+  /**
+   * Emite en la cola reintentando solo mientras otro hilo está emitiendo a la vez.
+   */
+  private static Sinks.EmitResult emit(Supplier<Sinks.EmitResult> emission) {
+    Sinks.EmitResult result;
+    do {
+      result = emission.get();
+    } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    return result;
+  }
+
+  private static final class PendingWrite {
+    private final YankiTransaction transaction;
+    private final Sinks.One<YankiTransaction> completion = Sinks.one();
+
+    private PendingWrite(YankiTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    private void succeed() {
+      completion.tryEmitValue(transaction);
+    }
+
+    private void fail(Throwable error) {
+      completion.tryEmitError(error);
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import com.bank.yanki.domain.model.TransactionBucket;
+import com.bank.yanki.domain.model.YankiTransaction;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Layout por buckets: documentos por billetera y día en {@code yanki_transaction_buckets},
+ * con hasta {@code app.transactions.bucket.max-entries} entradas cada uno.
+ *
+ * <p>Cada registro se añade con un upsert al bucket del día del remitente y otro al del
+ * destinatario, en una sola operación bulk. El upsert solo elige un bucket con menos
+ * entradas que el máximo; si el del día está lleno, crea otro, de modo que una billetera
+ * muy activa no acerca un documento al límite de 16 MB. Los índices crecen con los
+ * buckets y no con las transacciones, y el historial de una billetera se lee día a día,
+ * del más reciente al más antiguo.</p>
+ *
+ * <p>Las entradas no guardan {@code createdAt} ni {@code updatedAt}: al leerlas se
+ * reconstruyen con la fecha de la transacción. Un registro sin {@code id} o sin
+ * {@code transactionDate} los recibe al insertarse.</p>
+ *
+ * <p>La inserción de un solo registro, usada por los reintentos, omite las entradas que
+ * ya están guardadas, de modo que repetirla tras un bulk parcial no las duplica.</p>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "app.transactions.layout", havingValue = "bucket")
+public class BucketTransactionStore implements TransactionStore {
+
+  private static final Comparator<YankiTransaction> NEWEST_FIRST = Comparator
+    .comparing(YankiTransaction::getTransactionDate,
+      Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+    .thenComparing(YankiTransaction::getId)
+    .reversed();
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final int maxEntries;
+
+  /**
+   * Construye el store.
+   *
+   * @param mongoTemplate plantilla de MongoDB
+   * @param maxEntries entradas máximas por bucket
+   */
+  public BucketTransactionStore(
+    ReactiveMongoTemplate mongoTemplate,
+    @Value("${app.transactions.bucket.max-entries:200}") int maxEntries) {
+    this.mongoTemplate = mongoTemplate;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Inserta un registro, añadiendo solo las entradas que aún no están en sus buckets.
+   *
+   * <p>El {@code $push} del upsert no es idempotente: un reintento tras un bulk fallido,
+   * que pudo aplicar algunos upserts, duplicaría las entradas ya guardadas. Por eso cada
+   * entrada se busca antes de añadirla. Los reintentos de un mismo registro son
+   * sucesivos, por lo que la consulta previa no compite con otra inserción suya.</p>
+   */
+  @Override
+  public Mono<YankiTransaction> insert(YankiTransaction transaction) {
+    return Mono.defer(() -> {
+      YankiTransaction prepared = prepare(transaction);
+      return Flux.just(TransactionBucket.Direction.SENT, TransactionBucket.Direction.RECEIVED)
+        .filter(direction -> phoneNumberOf(prepared, direction) != null)
+        .filterWhen(direction -> mongoTemplate.exists(entryQuery(prepared, direction),
+            TransactionBucket.class)
+          .map(exists -> !exists))
+        .concatMap(direction -> mongoTemplate.upsert(
+          bucketQuery(phoneNumberOf(prepared, direction), prepared),
+          append(prepared, direction), TransactionBucket.class))
+        .then(Mono.just(prepared));
+    });
+  }
+
+  @Override
+  public Mono<Map<Integer, String>> insertAll(List<YankiTransaction> transactions) {
+    return Mono.defer(() -> {
+      ReactiveBulkOperations bulk =
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, TransactionBucket.class);
+      // Posición en la lista de registros de cada upsert del bulk
+      List<Integer> owners = new ArrayList<>();
+      for (int index = 0; index < transactions.size(); index++) {
+        YankiTransaction transaction = prepare(transactions.get(index));
+        if (transaction.getFromPhoneNumber() != null) {
+          bulk.upsert(bucketQuery(transaction.getFromPhoneNumber(), transaction),
+            append(transaction, TransactionBucket.Direction.SENT));
+          owners.add(index);
+        }
+        if (transaction.getToPhoneNumber() != null) {
+          bulk.upsert(bucketQuery(transaction.getToPhoneNumber(), transaction),
+            append(transaction, TransactionBucket.Direction.RECEIVED));
+          owners.add(index);
+        }
+      }
+      if (owners.isEmpty()) {
+        return Mono.just(Map.<Integer, String>of());
+      }
+      return bulk.execute()
+        .map(result -> Map.<Integer, String>of())
+        .onErrorResume(error -> BulkWriteFailures.recover(error, owners::get));
+    });
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromPhoneNumber(String fromPhoneNumber) {
+    return findEntries("phoneNumber", fromPhoneNumber, TransactionBucket.Direction.SENT);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToPhoneNumber(String toPhoneNumber) {
+    return findEntries("phoneNumber", toPhoneNumber, TransactionBucket.Direction.RECEIVED);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromWalletId(String fromWalletId) {
+    return findEntries("walletId", fromWalletId, TransactionBucket.Direction.SENT);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToWalletId(String toWalletId) {
+    return findEntries("walletId", toWalletId, TransactionBucket.Direction.RECEIVED);
+  }
+
+  @Override
+  public Mono<YankiTransaction> findByTransactionId(String transactionId) {
+    Query query = Query.query(Criteria.where("entries.transactionId").is(transactionId));
+    query.fields().include("phoneNumber", "walletId").position("entries", 1);
+    return mongoTemplate.findOne(query, TransactionBucket.class)
+      .filter(bucket -> bucket.getEntries() != null && !bucket.getEntries().isEmpty())
+      .map(bucket -> toTransaction(bucket, bucket.getEntries().get(0)));
+  }
+
+  @Override
+  public Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                            String beforeId, int limit) {
+    boolean keyset = beforeDate != null && beforeId != null;
+    Criteria criteria = Criteria.where("phoneNumber").is(phoneNumber);
+    if (keyset) {
+      criteria = criteria.and("day").lte(dayOf(beforeDate));
+    }
+    Flux<YankiTransaction> history = mongoTemplate.find(Query.query(criteria)
+        .with(Sort.by(Sort.Direction.DESC, "day")), TransactionBucket.class)
+      // Un día puede ocupar varios buckets: sus entradas se ordenan juntas
+      .bufferUntilChanged(TransactionBucket::getDay)
+      .concatMapIterable(day -> day.stream()
+        .flatMap(bucket -> bucket.getEntries().stream()
+          .filter(entry -> !keyset || isBefore(entry, beforeDate, beforeId))
+          .map(entry -> toTransaction(bucket, entry)))
+        .sorted(NEWEST_FIRST)
+        .toList())
+      // Una transferencia a sí mismo tiene dos entradas del mismo día, una tras otra
+      .distinctUntilChanged(YankiTransaction::getId);
+    return limit > 0 ? history.take(limit) : history;
+  }
+
+  private Flux<YankiTransaction> findEntries(String field, String value,
+                                             TransactionBucket.Direction direction) {
+    return mongoTemplate.find(Query.query(Criteria.where(field).is(value))
+        .with(Sort.by(Sort.Direction.DESC, "day")), TransactionBucket.class)
+      .concatMapIterable(bucket -> bucket.getEntries().stream()
+        .filter(entry -> entry.getDirection() == direction)
+        .map(entry -> toTransaction(bucket, entry))
+        .toList());
+  }
+
+  private static YankiTransaction prepare(YankiTransaction transaction) {
+    if (transaction.getId() == null) {
+      transaction.setId(new ObjectId().toHexString());
+    }
+    if (transaction.getTransactionDate() == null) {
+      transaction.setTransactionDate(LocalDateTime.now());
+    }
+    return transaction;
+  }
+
+  /**
+   * Bucket del día con espacio para otra entrada; si no hay ninguno, el upsert lo crea.
+   */
+  private Query bucketQuery(String phoneNumber, YankiTransaction transaction) {
+    return Query.query(Criteria.where("phoneNumber").is(phoneNumber)
+      .and("day").is(dayOf(transaction.getTransactionDate()))
+      .and("count").lt(maxEntries));
+  }
+
+  /**
+   * Bucket del día que ya contiene la entrada del registro en esa dirección.
+   */
+  private static Query entryQuery(YankiTransaction transaction,
+                                  TransactionBucket.Direction direction) {
+    return Query.query(Criteria.where("phoneNumber").is(phoneNumberOf(transaction, direction))
+      .and("day").is(dayOf(transaction.getTransactionDate()))
+      .and("entries").elemMatch(Criteria.where("id").is(transaction.getId())
+        .and("direction").is(direction)));
+  }
+
+  private static String phoneNumberOf(YankiTransaction transaction,
+                                      TransactionBucket.Direction direction) {
+    return direction == TransactionBucket.Direction.SENT ? transaction.getFromPhoneNumber()
+      : transaction.getToPhoneNumber();
+  }
+
+  private static Update append(YankiTransaction transaction,
+                               TransactionBucket.Direction direction) {
+    boolean sent = direction == TransactionBucket.Direction.SENT;
+    String phoneNumber = phoneNumberOf(transaction, direction);
+    String walletId = sent ? transaction.getFromWalletId() : transaction.getToWalletId();
+    TransactionBucket.Entry entry = TransactionBucket.Entry.builder()
+      .id(transaction.getId())
+      .transactionId(transaction.getTransactionId())
+      .direction(direction)
+      .amount(transaction.getAmount())
+      .counterpartPhoneNumber(sent ? transaction.getToPhoneNumber()
+        : transaction.getFromPhoneNumber())
+      .counterpartWalletId(sent ? transaction.getToWalletId() : transaction.getFromWalletId())
+      .description(transaction.getDescription())
+      .type(transaction.getType())
+      .status(transaction.getStatus())
+      .transactionDate(transaction.getTransactionDate())
+      .build();
+    Update update = new Update()
+      .setOnInsert("phoneNumber", phoneNumber)
+      .setOnInsert("day", dayOf(transaction.getTransactionDate()))
+      .push("entries", entry)
+      .inc("count", 1);
+    if (walletId != null) {
+      update.set("walletId", walletId);
+    }
+    return update;
+  }
+
+  private static boolean isBefore(TransactionBucket.Entry entry, LocalDateTime beforeDate,
+                                  String beforeId) {
+    int byDate = entry.getTransactionDate().compareTo(beforeDate);
+    return byDate < 0 || (byDate == 0 && entry.getId().compareTo(beforeId) < 0);
+  }
+
+  private static YankiTransaction toTransaction(TransactionBucket bucket,
+                                                TransactionBucket.Entry entry) {
+    boolean sent = entry.getDirection() == TransactionBucket.Direction.SENT;
+    return YankiTransaction.builder()
+      .id(entry.getId())
+      .transactionId(entry.getTransactionId())
+      .amount(entry.getAmount())
+      .fromPhoneNumber(sent ? bucket.getPhoneNumber() : entry.getCounterpartPhoneNumber())
+      .fromWalletId(sent ? bucket.getWalletId() : entry.getCounterpartWalletId())
+      .toPhoneNumber(sent ? entry.getCounterpartPhoneNumber() : bucket.getPhoneNumber())
+      .toWalletId(sent ? entry.getCounterpartWalletId() : bucket.getWalletId())
+      .description(entry.getDescription())
+      .type(entry.getType())
+      .status(entry.getStatus())
+      .transactionDate(entry.getTransactionDate())
+      .createdAt(entry.getTransactionDate())
+      .updatedAt(entry.getTransactionDate())
+      .build();
+  }
+
+  private static String dayOf(LocalDateTime dateTime) {
+    return dateTime.toLocalDate().toString();
+  }
+}
@@ -0,0 +1,42 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import com.mongodb.MongoBulkWriteException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Traducción de los errores de una operación bulk no ordenada a fallos por registro.
+ *
+ * <p>{@code ReactiveMongoTemplate} traduce el {@link MongoBulkWriteException} del driver a
+ * {@code DuplicateKeyException} o {@code DataIntegrityViolationException}, que lo conservan
+ * como causa; de ahí se leen las operaciones que fallaron.</p>
+ *
+ */
+final class BulkWriteFailures {
+
+  private BulkWriteFailures() {
+  }
+
+  /**
+   * Convierte el error de un bulk en el motivo de fallo de cada registro afectado.
+   *
+   * @param error el error del bulk
+   * @param recordIndex posición en la lista de registros de cada operación del bulk
+   * @return Mono con los fallos por registro, o con el error original si no es un fallo
+   *     parcial del bulk
+   */
+  static Mono<Map<Integer, String>> recover(Throwable error, IntUnaryOperator recordIndex) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoBulkWriteException bulkError) {
+        Map<Integer, String> failures = new HashMap<>();
+        bulkError.getWriteErrors().forEach(failure ->
+          failures.putIfAbsent(recordIndex.applyAsInt(failure.getIndex()),
+            failure.getMessage()));
+        return Mono.just(failures);
+      }
+    }
+    return Mono.error(error);
+  }
+}
@@ -0,0 +1,155 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Layout por defecto: un documento por transacción en {@code yanki_transactions}.
+ *
+ * <p>El historial lee envíos y recepciones con dos consultas sobre sus índices
+ * {@code (phone, transactionDate, _id)} y las intercala en orden, sin ordenar en
+ * memoria.</p>
+ *
+ * <p>Si hay transacciones archivadas, el historial lee primero las posteriores a la fecha
+ * de corte y solo al llegar a ella continúa con las anteriores, intercalando las que
+ * siguen en {@code yanki_transactions} con las de {@link TransactionArchive}. La búsqueda
+ * por identificador de negocio también continúa en el archivo.</p>
+ *
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.transactions.layout", havingValue = "document",
+  matchIfMissing = true)
+public class DocumentTransactionStore implements TransactionStore {
+
+  static final Comparator<YankiTransaction> NEWEST_FIRST = Comparator
+    .comparing(YankiTransaction::getTransactionDate,
+      Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+    .thenComparing(YankiTransaction::getId)
+    .reversed();
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionArchive transactionArchive;
+
+  @Value("${app.transactions.history.batch-size:200}")
+  private int batchSize;
+
+  @Override
+  public Mono<YankiTransaction> insert(YankiTransaction transaction) {
+    return mongoTemplate.insert(transaction);
+  }
+
+  @Override
+  public Mono<Map<Integer, String>> insertAll(List<YankiTransaction> transactions) {
+    return mongoTemplate.bulkOps(BulkMode.UNORDERED, YankiTransaction.class)
+      .insert(transactions)
+      .execute()
+      .map(result -> Map.<Integer, String>of())
+      .onErrorResume(error -> BulkWriteFailures.recover(error, index -> index));
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromPhoneNumber(String fromPhoneNumber) {
+    return findBy("fromPhoneNumber", fromPhoneNumber);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToPhoneNumber(String toPhoneNumber) {
+    return findBy("toPhoneNumber", toPhoneNumber);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByFromWalletId(String fromWalletId) {
+    return findBy("fromWalletId", fromWalletId);
+  }
+
+  @Override
+  public Flux<YankiTransaction> findByToWalletId(String toWalletId) {
+    return findBy("toWalletId", toWalletId);
+  }
+
+  @Override
+  public Mono<YankiTransaction> findByTransactionId(String transactionId) {
+    return mongoTemplate.findOne(Query.query(Criteria.where("transactionId").is(transactionId)),
+        YankiTransaction.class)
+      .switchIfEmpty(Mono.defer(() -> transactionArchive.findByTransactionId(transactionId)));
+  }
+
+  @Override
+  public Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                            String beforeId, int limit) {
+    Flux<YankiTransaction> history = transactionArchive.cutoff()
+      .map(Optional::of)
+      .defaultIfEmpty(Optional.empty())
+      .flatMapMany(cutoff -> cutoff
+        .map(date -> findTiered(phoneNumber, beforeDate, beforeId, limit, date))
+        .orElseGet(() -> findHot(phoneNumber, beforeDate, beforeId, limit)));
+    return limit > 0 ? history.take(limit) : history;
+  }
+
+  private Flux<YankiTransaction> findTiered(String phoneNumber, LocalDateTime beforeDate,
+                                            String beforeId, int limit,
+                                            LocalDateTime cutoff) {
+    boolean pastCutoff = beforeDate != null && beforeId != null && beforeDate.isBefore(cutoff);
+    Flux<YankiTransaction> newer = pastCutoff ? Flux.empty()
+      : findHot(phoneNumber, beforeDate, beforeId, limit)
+        .takeWhile(transaction -> transaction.getTransactionDate() != null
+          && !transaction.getTransactionDate().isBefore(cutoff));
+    // Con la fecha de corte y un _id vacío, la continuación empieza justo antes del corte
+    LocalDateTime olderDate = pastCutoff ? beforeDate : cutoff;
+    String olderId = pastCutoff ? beforeId : "";
+    Flux<YankiTransaction> older = Flux.defer(() -> Flux.mergeComparing(NEWEST_FIRST,
+        findHot(phoneNumber, olderDate, olderId, limit),
+        transactionArchive.findHistory(phoneNumber, olderDate, olderId, limit))
+      // Un lote archivado sigue en yanki_transactions hasta que el archivado lo borra
+      .distinctUntilChanged(YankiTransaction::getId));
+    return newer.concatWith(older);
+  }
+
+  private Flux<YankiTransaction> findHot(String phoneNumber, LocalDateTime beforeDate,
+                                         String beforeId, int limit) {
+    return Flux.mergeComparing(NEWEST_FIRST,
+        findSide("fromPhoneNumber", phoneNumber, beforeDate, beforeId, limit),
+        findSide("toPhoneNumber", phoneNumber, beforeDate, beforeId, limit))
+      // Una transferencia a sí mismo aparece en ambas consultas, una tras otra
+      .distinctUntilChanged(YankiTransaction::getId);
+  }
+
+  private Flux<YankiTransaction> findBy(String field, String value) {
+    return mongoTemplate.find(Query.query(Criteria.where(field).is(value)),
+      YankiTransaction.class);
+  }
+
+  private Flux<YankiTransaction> findSide(String phoneField, String phoneNumber,
+                                          LocalDateTime beforeDate, String beforeId,
+                                          int limit) {
+    Criteria criteria = Criteria.where(phoneField).is(phoneNumber);
+    if (beforeDate != null && beforeId != null) {
+      criteria = criteria.orOperator(
+        Criteria.where("transactionDate").lt(beforeDate),
+        Criteria.where("transactionDate").is(beforeDate).and("_id").lt(beforeId));
+    }
+    Query query = Query.query(criteria)
+      .with(Sort.by(Sort.Direction.DESC, "transactionDate", "_id"))
+      .cursorBatchSize(batchSize);
+    if (limit > 0) {
+      query.limit(limit);
+    }
+    return mongoTemplate.find(query, YankiTransaction.class);
+  }
+}
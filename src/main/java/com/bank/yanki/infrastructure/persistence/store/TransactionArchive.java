@@ -0,0 +1,234 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import com.bank.yanki.domain.model.TransactionArchiveCheckpoint;
+import com.bank.yanki.domain.model.TransactionArchiveChunk;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.mongodb.MongoClientSettings;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.Getter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Nivel frío del historial de transacciones, en {@code yanki_transactions_archive}.
+ *
+ * <p>Las transacciones anteriores a la fecha de corte se guardan en bloques comprimidos
+ * por teléfono y mes ({@link TransactionArchiveChunk}), fuera de los índices de
+ * {@code yanki_transactions}. La fecha de corte se lee del estado del archivado y se
+ * mantiene en memoria durante {@code app.transactions.archive.cutoff-refresh}; el
+ * archivado espera ese plazo tras mover la fecha de corte, de modo que ninguna instancia
+ * lee con una fecha anterior a la de los registros ya movidos.</p>
+ *
+ */
+@Component
+public class TransactionArchive {
+
+  public static final String CHECKPOINT_ID = "transactions";
+
+  private static final String RECORDS_FIELD = "records";
+  private static final DocumentCodec CODEC =
+    new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  @Getter
+  private final Duration cutoffRefresh;
+  private final Mono<LocalDateTime> cutoff;
+
+  /**
+   * Construye el nivel frío con la configuración indicada.
+   *
+   * @param mongoTemplate plantilla de MongoDB
+   * @param cutoffRefresh tiempo que se reutiliza la fecha de corte leída
+   */
+  public TransactionArchive(
+    ReactiveMongoTemplate mongoTemplate,
+    @Value("${app.transactions.archive.cutoff-refresh:60s}") Duration cutoffRefresh) {
+    this.mongoTemplate = mongoTemplate;
+    this.cutoffRefresh = cutoffRefresh;
+    this.cutoff = mongoTemplate.findById(CHECKPOINT_ID, TransactionArchiveCheckpoint.class)
+      .mapNotNull(TransactionArchiveCheckpoint::getCutoff)
+      .cache(value -> cutoffRefresh, error -> Duration.ZERO, () -> cutoffRefresh);
+  }
+
+  /**
+   * Devuelve la fecha antes de la cual las transacciones pueden estar archivadas.
+   *
+   * @return Mono con la fecha de corte, o vacío si nunca se archivó
+   */
+  public Mono<LocalDateTime> cutoff() {
+    return cutoff;
+  }
+
+  /**
+   * Guarda en el nivel frío un lote de transacciones de {@code yanki_transactions}.
+   *
+   * <p>El lote se reparte en un bloque por teléfono y mes. Volver a guardar el mismo lote
+   * reemplaza sus bloques.</p>
+   *
+   * @param records las transacciones del lote, con identificador y fecha
+   * @return Mono que completa cuando los bloques quedan guardados
+   */
+  public Mono<Void> write(List<YankiTransaction> records) {
+    return Mono.defer(() -> {
+      String batchId = records.get(0).getId();
+      Map<String, List<YankiTransaction>> groups = new LinkedHashMap<>();
+      for (YankiTransaction transaction : records) {
+        Stream.of(transaction.getFromPhoneNumber(), transaction.getToPhoneNumber())
+          .filter(phoneNumber -> phoneNumber != null)
+          .distinct()
+          .forEach(phoneNumber -> groups.computeIfAbsent(
+            phoneNumber + ":" + monthOf(transaction.getTransactionDate()),
+            key -> new ArrayList<>()).add(transaction));
+      }
+      ReactiveBulkOperations bulk =
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, TransactionArchiveChunk.class);
+      groups.forEach((key, transactions) -> {
+        TransactionArchiveChunk chunk = toChunk(key + ":" + batchId, transactions);
+        bulk.replaceOne(Query.query(Criteria.where("_id").is(chunk.getId())), chunk,
+          FindAndReplaceOptions.options().upsert());
+      });
+      return bulk.execute().then();
+    });
+  }
+
+  /**
+   * Busca el historial archivado de un teléfono, de la transacción más reciente a la más
+   * antigua.
+   *
+   * <p>Los bloques se leen mes a mes, del más reciente al más antiguo, y solo se
+   * descomprimen los meses que llega a consumir el llamador.</p>
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param beforeDate fecha de la última transacción ya leída, o null desde el inicio
+   * @param beforeId identificador de la última transacción ya leída, o null desde el inicio
+   * @param limit máximo de transacciones a emitir; cero o negativo para no limitar
+   * @return Flux con las transacciones archivadas
+   */
+  public Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                            String beforeId, int limit) {
+    boolean keyset = beforeDate != null && beforeId != null;
+    Criteria criteria = Criteria.where("phoneNumber").is(phoneNumber);
+    if (keyset) {
+      criteria = criteria.and("month").lte(monthOf(beforeDate))
+        .and("fromDate").lte(beforeDate);
+    }
+    Flux<YankiTransaction> history = mongoTemplate.find(Query.query(criteria)
+        .with(Sort.by(Sort.Direction.DESC, "month")), TransactionArchiveChunk.class)
+      .bufferUntilChanged(TransactionArchiveChunk::getMonth)
+      .concatMapIterable(chunks -> chunks.stream()
+        .flatMap(chunk -> decode(chunk.getRecords()).stream())
+        .filter(transaction -> !keyset || isBefore(transaction, beforeDate, beforeId))
+        .sorted(DocumentTransactionStore.NEWEST_FIRST)
+        .toList())
+      .distinctUntilChanged(YankiTransaction::getId);
+    return limit > 0 ? history.take(limit) : history;
+  }
+
+  /**
+   * Busca una transacción archivada por su identificador de negocio.
+   *
+   * @param transactionId identificador de la transacción
+   * @return Mono con la transacción, o vacío si no está archivada
+   */
+  public Mono<YankiTransaction> findByTransactionId(String transactionId) {
+    return mongoTemplate.findOne(
+        Query.query(Criteria.where("transactionIds").is(transactionId)),
+        TransactionArchiveChunk.class)
+      .flatMap(chunk -> Mono.justOrEmpty(decode(chunk.getRecords()).stream()
+        .filter(transaction -> transactionId.equals(transaction.getTransactionId()))
+        .findFirst()));
+  }
+
+  private TransactionArchiveChunk toChunk(String id, List<YankiTransaction> transactions) {
+    YankiTransaction first = transactions.get(0);
+    String phoneNumber = id.substring(0, id.indexOf(':'));
+    LocalDateTime fromDate = first.getTransactionDate();
+    LocalDateTime toDate = first.getTransactionDate();
+    for (YankiTransaction transaction : transactions) {
+      fromDate = transaction.getTransactionDate().isBefore(fromDate)
+        ? transaction.getTransactionDate() : fromDate;
+      toDate = transaction.getTransactionDate().isAfter(toDate)
+        ? transaction.getTransactionDate() : toDate;
+    }
+    return TransactionArchiveChunk.builder()
+      .id(id)
+      .phoneNumber(phoneNumber)
+      .month(monthOf(first.getTransactionDate()))
+      .fromDate(fromDate)
+      .toDate(toDate)
+      .count(transactions.size())
+      .transactionIds(transactions.stream()
+        .map(YankiTransaction::getTransactionId)
+        .filter(transactionId -> transactionId != null)
+        .distinct()
+        .toList())
+      .records(encode(transactions))
+      .build();
+  }
+
+  private byte[] encode(List<YankiTransaction> transactions) {
+    List<Document> documents = new ArrayList<>(transactions.size());
+    transactions.forEach(transaction -> {
+      Document document = new Document();
+      mongoTemplate.getConverter().write(transaction, document);
+      documents.add(document);
+    });
+    ByteBuffer bson = new RawBsonDocument(new Document(RECORDS_FIELD, documents), CODEC)
+      .getByteBuffer().asNIO();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(bson.remaining() / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(bson.array(), bson.arrayOffset() + bson.position(), bson.remaining());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private List<YankiTransaction> decode(byte[] records) {
+    byte[] bson;
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(records))) {
+      bson = gzip.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new RawBsonDocument(bson).decode(CODEC)
+      .getList(RECORDS_FIELD, Document.class).stream()
+      .map(document -> mongoTemplate.getConverter().read(YankiTransaction.class, document))
+      .toList();
+  }
+
+  private static boolean isBefore(YankiTransaction transaction, LocalDateTime beforeDate,
+                                  String beforeId) {
+    int byDate = transaction.getTransactionDate().compareTo(beforeDate);
+    return byDate < 0 || (byDate == 0 && transaction.getId().compareTo(beforeId) < 0);
+  }
+
+  private static String monthOf(LocalDateTime dateTime) {
+    return dateTime.toLocalDate().toString().substring(0, 7);
+  }
+}
@@ -0,0 +1,97 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Formato de almacenamiento de los registros de transacciones en MongoDB.
+ *
+ * <p>Abstrae cómo se guardan los registros para que {@code YankiTransactionRepository}
+ * no dependa del layout. La implementación se elige con {@code app.transactions.layout}:
+ * {@code document} (por defecto) guarda un documento por transacción en
+ * {@code yanki_transactions}, y {@code bucket} agrupa las transacciones de cada
+ * billetera por día en {@code yanki_transaction_buckets}.</p>
+ *
+ * <p>Cambiar de layout no migra los registros existentes: las consultas solo ven los
+ * registros del layout activo.</p>
+ *
+ */
+public interface TransactionStore {
+
+  /**
+   * Inserta un registro.
+   *
+   * <p>Se usa también para reintentar registros de un bulk fallido, que pudo guardarlos
+   * en parte: repetir la inserción de un registro ya guardado no debe duplicarlo, sino
+   * omitirlo o fallar con {@code DuplicateKeyException}.</p>
+   *
+   * @param transaction el registro a insertar
+   * @return Mono con el registro insertado
+   */
+  Mono<YankiTransaction> insert(YankiTransaction transaction);
+
+  /**
+   * Inserta varios registros en una sola operación bulk no ordenada.
+   *
+   * @param transactions los registros a insertar
+   * @return Mono con el motivo de fallo de cada registro no insertado, indexado por su
+   *     posición en la lista; vacío si se insertaron todos
+   */
+  Mono<Map<Integer, String>> insertAll(List<YankiTransaction> transactions);
+
+  /**
+   * Busca las transacciones enviadas por un teléfono.
+   *
+   * @param fromPhoneNumber número de teléfono del remitente
+   * @return Flux con las transacciones enviadas
+   */
+  Flux<YankiTransaction> findByFromPhoneNumber(String fromPhoneNumber);
+
+  /**
+   * Busca las transacciones recibidas por un teléfono.
+   *
+   * @param toPhoneNumber número de teléfono del destinatario
+   * @return Flux con las transacciones recibidas
+   */
+  Flux<YankiTransaction> findByToPhoneNumber(String toPhoneNumber);
+
+  /**
+   * Busca las transacciones enviadas desde una billetera.
+   *
+   * @param fromWalletId identificador de la billetera de origen
+   * @return Flux con las transacciones enviadas
+   */
+  Flux<YankiTransaction> findByFromWalletId(String fromWalletId);
+
+  /**
+   * Busca las transacciones recibidas por una billetera.
+   *
+   * @param toWalletId identificador de la billetera de destino
+   * @return Flux con las transacciones recibidas
+   */
+  Flux<YankiTransaction> findByToWalletId(String toWalletId);
+
+  /**
+   * Busca una transacción por su identificador de negocio.
+   *
+   * @param transactionId identificador de la transacción
+   * @return Mono con la transacción, o vacío si no existe
+   */
+  Mono<YankiTransaction> findByTransactionId(String transactionId);
+
+  /**
+   * Busca el historial de un teléfono, de la transacción más reciente a la más antigua.
+   *
+   * @param phoneNumber número de teléfono de la billetera
+   * @param beforeDate fecha de la última transacción ya leída, o null desde el inicio
+   * @param beforeId identificador de la última transacción ya leída, o null desde el inicio
+   * @param limit máximo de transacciones a emitir; cero o negativo para no limitar
+   * @return Flux con las transacciones enviadas y recibidas
+   */
+  Flux<YankiTransaction> findHistory(String phoneNumber, LocalDateTime beforeDate,
+                                     String beforeId, int limit);
+}
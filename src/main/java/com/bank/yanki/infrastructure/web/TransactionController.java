@@ -0,0 +1,42 @@
+package com.bank.yanki.infrastructure.web;
+
+import com.bank.yanki.api.TransactionsApi;
+import com.bank.yanki.application.mapper.YankiWalletMapper;
+import com.bank.yanki.domain.service.TransactionStatusService;
+import com.bank.yanki.model.TransactionResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controlador REST de consulta de transacciones.
+ *
+ * <p>Implementa la interfaz {@link TransactionsApi} generada por OpenAPI y permite
+ * consultar el estado de un pago con el identificador devuelto al enviarlo.</p>
+ *
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class TransactionController implements TransactionsApi {
+
+  private final TransactionStatusService statusService;
+  private final YankiWalletMapper walletMapper;
+
+  @Override
+  public Mono<ResponseEntity<TransactionResponse>> getTransaction(String transactionId,
+                                                                  ServerWebExchange exchange) {
+    return statusService.findTransaction(transactionId)
+      .map(walletMapper::toTransactionResponse)
+      .map(ResponseEntity::ok)
+      .defaultIfEmpty(ResponseEntity.notFound().build())
+      .doOnError(error -> log.error("Error retrieving transaction {}: {}", transactionId,
+        error.getMessage()))
+      .onErrorResume(error -> Mono.just(
+        ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+  }
+}
@@ -2,20 +2,35 @@ package com.bank.yanki.infrastructure.web;
 
 import com.bank.yanki.api.WalletsApi;
 import com.bank.yanki.application.mapper.YankiWalletMapper;
+import com.bank.yanki.domain.exception.DuplicateRequestException;
+import com.bank.yanki.domain.exception.IdempotencyKeyReuseException;
+import com.bank.yanki.domain.exception.IdempotencyUnavailableException;
+import com.bank.yanki.domain.exception.MigrationPendingException;
+import com.bank.yanki.domain.exception.PaymentLaneFullException;
+import com.bank.yanki.domain.service.LedgerService;
+import com.bank.yanki.domain.service.TransactionHistoryService;
+import com.bank.yanki.domain.service.TransactionStatusService;
 import com.bank.yanki.domain.service.YankiWalletService;
+import com.bank.yanki.model.BalanceAtResponse;
 import com.bank.yanki.model.CardAssociationRequest;
 import com.bank.yanki.model.CardAssociationResponse;
 import com.bank.yanki.model.SendPaymentRequest;
+import com.bank.yanki.model.TransactionPageResponse;
 import com.bank.yanki.model.TransactionResponse;
 import com.bank.yanki.model.TransactionStatusEnum;
+import com.bank.yanki.model.TransactionTypeEnum;
 import com.bank.yanki.model.YankiWalletRequest;
 import com.bank.yanki.model.YankiWalletResponse;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -34,7 +49,12 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class YankiController implements WalletsApi {
 
+  private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
   private final YankiWalletService walletService;
+  private final TransactionHistoryService historyService;
+  private final LedgerService ledgerService;
+  private final TransactionStatusService statusService;
   private final YankiWalletMapper walletMapper;
 
   @Override
@@ -83,6 +103,7 @@ public class YankiController implements WalletsApi {
   @Override
   public Mono<ResponseEntity<TransactionResponse>> sendPayment(
     Mono<SendPaymentRequest> sendPaymentRequest,
+    String idempotencyKey,
     ServerWebExchange exchange) {
 
     return sendPaymentRequest
@@ -90,7 +111,8 @@ public class YankiController implements WalletsApi {
         request.getFromPhoneNumber(),
         request.getToPhoneNumber(),
         request.getAmount(),
-        request.getDescription()
+        request.getDescription(),
+        idempotencyKey
       ))
       .flatMap(transaction -> {
         TransactionResponse response = walletMapper.toTransactionResponse(transaction);
@@ -114,7 +136,15 @@ public class YankiController implements WalletsApi {
       })
       .doOnError(error -> log.error("Error processing payment: {}", error.getMessage()))
       .onErrorResume(error -> {
-        if (error.getMessage().contains("not found")) {
+        if (error instanceof DuplicateRequestException) {
+          return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } else if (error instanceof IdempotencyKeyReuseException) {
+          return Mono.just(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build());
+        } else if (error instanceof IdempotencyUnavailableException
+          || error instanceof MigrationPendingException
+          || error instanceof PaymentLaneFullException) {
+          return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        } else if (error.getMessage().contains("not found")) {
           return Mono.just(ResponseEntity.notFound().build());
         } else if (error.getMessage().contains("insufficient balance") ||
           error.getMessage().contains("Insufficient")) {
@@ -123,4 +153,71 @@ public class YankiController implements WalletsApi {
         return Mono.just(ResponseEntity.badRequest().build());
       });
   }
+
+  @Override
+  public Mono<ResponseEntity<TransactionPageResponse>> getWalletTransactions(
+    String phoneNumber, String cursor, Integer limit, ServerWebExchange exchange) {
+    int pageSize = limit != null ? limit : 20;
+    if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return historyService.findPage(phoneNumber, cursor, pageSize)
+      .map(page -> new TransactionPageResponse()
+        .items(page.getItems().stream()
+          .map(transaction -> walletMapper.toHistoryResponse(transaction, phoneNumber))
+          .toList())
+        .nextCursor(page.getNextCursor()))
+      .map(ResponseEntity::ok)
+      .onErrorResume(error -> {
+        if (error instanceof IllegalArgumentException) {
+          return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+      });
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<TransactionResponse>>> exportWalletTransactions(
+    String phoneNumber, ServerWebExchange exchange) {
+    Flux<TransactionResponse> transactions = historyService.exportHistory(phoneNumber)
+      .map(transaction -> walletMapper.toHistoryResponse(transaction, phoneNumber))
+      .doOnComplete(() -> log.info("Transaction history exported for phone: {}", phoneNumber))
+      .doOnError(error -> log.error("Error exporting transaction history: {}",
+        error.getMessage()));
+    return Mono.just(ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(transactions));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<TransactionResponse>>> streamWalletTransactionUpdates(
+    String phoneNumber, ServerWebExchange exchange) {
+    Flux<TransactionResponse> updates = statusService.changes(phoneNumber)
+      .map(transaction -> walletMapper.toTransactionResponse(transaction)
+        .transactionType(phoneNumber.equals(transaction.getFromPhoneNumber())
+          ? TransactionTypeEnum.SEND : TransactionTypeEnum.RECEIVE))
+      .doOnSubscribe(subscription -> log.info("Transaction updates subscribed for phone: {}",
+        phoneNumber))
+      .doOnCancel(() -> log.info("Transaction updates closed for phone: {}", phoneNumber));
+    return Mono.just(ResponseEntity.ok()
+      .contentType(MediaType.TEXT_EVENT_STREAM)
+      .body(updates));
+  }
+
+  @Override
+  public Mono<ResponseEntity<BalanceAtResponse>> getWalletBalanceAt(
+    String phoneNumber, OffsetDateTime at, ServerWebExchange exchange) {
+    // Las fechas del libro mayor son LocalDateTime.now() en la zona de la JVM
+    return ledgerService.balanceAt(phoneNumber,
+        at.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime())
+      .map(balance -> ResponseEntity.ok(new BalanceAtResponse()
+        .phoneNumber(phoneNumber)
+        .balance(walletMapper.toDouble(balance))
+        .at(at)))
+      .defaultIfEmpty(ResponseEntity.notFound().build())
+      .doOnError(error -> log.error("Error computing balance at {}: {}", at,
+        error.getMessage()))
+      .onErrorResume(error -> Mono.just(
+        ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+  }
 }
@@ -0,0 +1,126 @@
+package com.bank.yanki.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bank.yanki.domain.exception.PaymentLaneFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class PaymentLanesTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private PaymentLanes lanes(int count, int capacity) {
+    return lanes(count, capacity, Duration.ofSeconds(30));
+  }
+
+  private PaymentLanes lanes(int count, int capacity, Duration paymentTimeout) {
+    PaymentLanes lanes = new PaymentLanes(meterRegistry, count, capacity, paymentTimeout);
+    lanes.start();
+    return lanes;
+  }
+
+  @Test
+  void runsThePaymentsOfAWalletOneAtATimeInArrivalOrder() {
+    PaymentLanes lanes = lanes(4, 16);
+    List<String> events = new CopyOnWriteArrayList<>();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<Integer> results = Flux.range(1, 5)
+      .flatMap(index -> lanes.submit("+51900000001", () -> Mono.fromRunnable(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          events.add("start-" + index);
+        })
+        // Los primeros pagos tardan más: sin carril terminarían después de los últimos
+        .then(Mono.delay(Duration.ofMillis(60 - 10L * index)))
+        .then(Mono.fromCallable(() -> {
+          running.decrementAndGet();
+          return index;
+        }))))
+      .collectList()
+      .block(Duration.ofSeconds(5));
+
+    assertThat(results).containsExactly(1, 2, 3, 4, 5);
+    assertThat(events).containsExactly("start-1", "start-2", "start-3", "start-4", "start-5");
+    assertThat(maxRunning).hasValue(1);
+  }
+
+  @Test
+  void runsDifferentLanesInParallel() {
+    PaymentLanes lanes = lanes(2, 16);
+    Sinks.One<String> blocker = Sinks.one();
+    lanes.submit(phoneInLane(0, 2), blocker::asMono).subscribe();
+
+    StepVerifier.create(lanes.submit(phoneInLane(1, 2), () -> Mono.just("other")))
+      .expectNext("other")
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+    blocker.tryEmitValue("done");
+  }
+
+  @Test
+  void rejectsPaymentsBeyondTheLaneCapacity() {
+    PaymentLanes lanes = lanes(1, 8);
+    Sinks.One<String> blocker = Sinks.one();
+    lanes.submit("+51900000001", blocker::asMono).subscribe();
+    for (int queued = 0; queued < 8; queued++) {
+      lanes.submit("+51900000001", () -> Mono.just("queued")).subscribe();
+    }
+
+    StepVerifier.create(lanes.submit("+51900000001", () -> Mono.just("rejected")))
+      .expectError(PaymentLaneFullException.class)
+      .verify(Duration.ofSeconds(5));
+    assertThat(meterRegistry.counter("yanki.payment.lane.rejected").count()).isEqualTo(1);
+    blocker.tryEmitValue("done");
+  }
+
+  @Test
+  void deliversEachOutcomeAndKeepsTheLaneRunningAfterAFailure() {
+    PaymentLanes lanes = lanes(1, 16);
+
+    StepVerifier.create(lanes.submit("+51900000001",
+        () -> Mono.<String>error(new IllegalStateException("boom"))))
+      .verifyErrorMessage("boom");
+    StepVerifier.create(lanes.submit("+51900000001", Mono::<String>empty)).verifyComplete();
+    StepVerifier.create(lanes.submit("+51900000001", () -> Mono.just("next")))
+      .expectNext("next")
+      .verifyComplete();
+    assertThat(meterRegistry.get("yanki.payment.lane.depth").gauge().value()).isZero();
+  }
+
+  @Test
+  void releasesTheLaneWhenAPaymentExceedsItsTimeout() {
+    PaymentLanes lanes = lanes(1, 16, Duration.ofMillis(100));
+    Sinks.One<String> blocker = Sinks.one();
+    Mono<String> slow = lanes.submit("+51900000001", blocker::asMono).cache();
+    slow.subscribe();
+
+    StepVerifier.create(lanes.submit("+51900000001", () -> Mono.just("next")))
+      .expectNext("next")
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+    assertThat(meterRegistry.counter("yanki.payment.lane.timeouts").count()).isEqualTo(1);
+
+    // El pago lento no se cancela y entrega su resultado al terminar
+    blocker.tryEmitValue("late");
+    StepVerifier.create(slow).expectNext("late").verifyComplete();
+  }
+
+  private static String phoneInLane(int lane, int count) {
+    for (int suffix = 0; ; suffix++) {
+      String phone = "+5190000" + suffix;
+      if (Math.floorMod(phone.hashCode(), count) == lane) {
+        return phone;
+      }
+    }
+  }
+}
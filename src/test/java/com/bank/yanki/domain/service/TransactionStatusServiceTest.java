@@ -0,0 +1,66 @@
+package com.bank.yanki.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.application.event.TransactionStatusChangedEvent;
+import com.bank.yanki.domain.model.TransactionStatusRecord;
+import com.bank.yanki.domain.repository.TransactionStatusRepository;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.infrastructure.messaging.KafkaEventProducer;
+import com.bank.yanki.model.TransactionStatusEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class TransactionStatusServiceTest {
+
+  private final TransactionStatusRepository statusRepository =
+    mock(TransactionStatusRepository.class);
+  private final KafkaEventProducer eventProducer = mock(KafkaEventProducer.class);
+  private final TransactionStatusService service = new TransactionStatusService(
+    statusRepository, mock(YankiTransactionRepository.class), eventProducer,
+    new SimpleMeterRegistry());
+
+  private static TransactionStatusRecord completed(String id) {
+    return TransactionStatusRecord.builder()
+      .id(id)
+      .fromPhoneNumber("111")
+      .toPhoneNumber("222")
+      .status(TransactionStatusEnum.COMPLETED)
+      .build();
+  }
+
+  @Test
+  void deliversChangesFromOtherInstancesButNotItsOwnEcho() {
+    ReflectionTestUtils.setField(service, "streamBuffer", 16);
+    AtomicReference<TransactionStatusChangedEvent> sent = new AtomicReference<>();
+    when(statusRepository.save(any(TransactionStatusRecord.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(eventProducer.sendTransactionStatusChanged(any()))
+      .thenAnswer(invocation -> {
+        sent.set(invocation.getArgument(0));
+        return Mono.empty();
+      });
+
+    StepVerifier.create(service.changes("222"))
+      .then(() -> service.record(completed("tx-local")).block())
+      .assertNext(change -> assertThat(change.getId())
+        .isEqualTo("tx-local"))
+      .then(() -> service.onRemoteStatusChanged(sent.get()))
+      .then(() -> service.onRemoteStatusChanged(TransactionStatusChangedEvent.builder()
+        .status(completed("tx-remote"))
+        .sourceNode("other-node")
+        .build()))
+      .assertNext(change -> assertThat(change.getId())
+        .isEqualTo("tx-remote"))
+      .thenCancel()
+      .verify(Duration.ofSeconds(5));
+  }
+}
@@ -0,0 +1,200 @@
+package com.bank.yanki.domain.service;
+
+import com.bank.yanki.domain.model.BalanceSnapshot;
+import com.bank.yanki.domain.model.LedgerEntry;
+import com.bank.yanki.domain.model.TransactionBucket;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.domain.repository.BalanceSnapshotRepository;
+import com.bank.yanki.domain.repository.LedgerEntryRepository;
+import com.bank.yanki.domain.repository.PendingLedgerWriteRepository;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.domain.repository.YankiTransactionRepositoryImpl;
+import com.bank.yanki.domain.repository.YankiWalletRepository;
+import com.bank.yanki.domain.repository.YankiWalletRepositoryImpl;
+import com.bank.yanki.infrastructure.persistence.MigrationStatus;
+import com.bank.yanki.infrastructure.persistence.TransactionBatchWriter;
+import com.bank.yanki.infrastructure.persistence.store.BucketTransactionStore;
+import com.bank.yanki.infrastructure.persistence.store.DocumentTransactionStore;
+import com.bank.yanki.infrastructure.persistence.store.TransactionArchive;
+import com.bank.yanki.infrastructure.persistence.store.TransactionStore;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmark manual que compara la confirmación secuencial de transferencias con la
+ * confirmación en una transacción multi-documento, y las transferencias concurrentes con y
+ * sin el escritor por lotes de registros.
+ *
+ * <p>Mide el tiempo medio por transferencia, los comandos enviados a MongoDB y los
+ * bytes de esos comandos. Necesita un MongoDB en replica set; se ejecuta con
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.bank.yanki.domain.service.TransferCommitBenchmark
+ * -Dexec.args="mongodb://localhost:27017/yanki_bench?replicaSet=rs0 bucket"}; el segundo
+ * argumento, opcional, elige el layout de los registros ({@code document} por
+ * defecto).</p>
+ *
+ */
+public final class TransferCommitBenchmark {
+
+  private static final int WARMUP_TRANSFERS = 500;
+  private static final int MEASURED_TRANSFERS = 5_000;
+  private static final int CONCURRENCY = 64;
+  private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+  private static final AtomicLong COMMANDS = new AtomicLong();
+  private static final AtomicLong COMMAND_BYTES = new AtomicLong();
+
+  private TransferCommitBenchmark() {
+  }
+
+  /**
+   * Ejecuta el benchmark e imprime los resultados por consola.
+   *
+   * @param args URI de conexión a MongoDB, con la base de datos de prueba
+   */
+  public static void main(String[] args) {
+    ConnectionString uri = new ConnectionString(args.length > 0 ? args[0]
+      : "mongodb://localhost:27017/yanki_bench?replicaSet=rs0");
+    CommandListener listener = new CommandListener() {
+      @Override
+      public void commandStarted(CommandStartedEvent event) {
+        COMMANDS.incrementAndGet();
+        COMMAND_BYTES.addAndGet(new RawBsonDocument(event.getCommand(), new BsonDocumentCodec())
+          .getByteBuffer().remaining());
+      }
+    };
+    MongoClient client = MongoClients.create(MongoClientSettings.builder()
+      .applyConnectionString(uri)
+      .addCommandListener(listener)
+      .build());
+    try {
+      ReactiveMongoDatabaseFactory databaseFactory =
+        new SimpleReactiveMongoDatabaseFactory(client, uri.getDatabase());
+      ReactiveMongoTemplate template = new ReactiveMongoTemplate(databaseFactory);
+      boolean buckets = args.length > 1 && "bucket".equals(args[1]);
+      TransactionStore store = buckets
+        ? new BucketTransactionStore(template, 200)
+        : new DocumentTransactionStore(template,
+          new TransactionArchive(template, Duration.ofSeconds(60)));
+      ReactiveMongoRepositoryFactory repositoryFactory =
+        new ReactiveMongoRepositoryFactory(template);
+      YankiWalletRepository walletRepository = repositoryFactory.getRepository(
+        YankiWalletRepository.class,
+        RepositoryFragments.just(new YankiWalletRepositoryImpl(template)));
+      YankiTransactionRepository transactionRepository = repositoryFactory.getRepository(
+        YankiTransactionRepository.class,
+        RepositoryFragments.just(new YankiTransactionRepositoryImpl(store)));
+      LedgerService ledgerService = new LedgerService(
+        repositoryFactory.getRepository(LedgerEntryRepository.class),
+        repositoryFactory.getRepository(BalanceSnapshotRepository.class),
+        repositoryFactory.getRepository(PendingLedgerWriteRepository.class),
+        new SimpleMeterRegistry(), 100, 3);
+      MigrationStatus migrationStatus = new MigrationStatus();
+      migrationStatus.markCompleted();
+      TransactionalOperator operator =
+        TransactionalOperator.create(new ReactiveMongoTransactionManager(databaseFactory));
+
+      template.dropCollection(YankiWallet.class)
+        .then(template.dropCollection(YankiTransaction.class))
+        .then(template.dropCollection(TransactionBucket.class))
+        .then(template.dropCollection(LedgerEntry.class))
+        .then(template.dropCollection(BalanceSnapshot.class))
+        .then(template.createCollection(YankiTransaction.class))
+        .then(template.createCollection(TransactionBucket.class))
+        .then(template.createCollection(LedgerEntry.class))
+        .then(template.createCollection(BalanceSnapshot.class))
+        .then(walletRepository.save(wallet("+51900000001")))
+        .then(walletRepository.save(wallet("+51900000002")))
+        .block();
+
+      TransactionBatchWriter unbatched = batchWriter(store, false);
+      TransactionBatchWriter batched = batchWriter(store, true);
+      batched.start();
+      run("sequential", new TransferCommitter(walletRepository, transactionRepository,
+        unbatched, ledgerService, operator, migrationStatus, false, 3), 1);
+      run("transactional", new TransferCommitter(walletRepository, transactionRepository,
+        unbatched, ledgerService, operator, migrationStatus, true, 3), 1);
+      run("concurrent", new TransferCommitter(walletRepository, transactionRepository,
+        unbatched, ledgerService, operator, migrationStatus, false, 3), CONCURRENCY);
+      run("batched", new TransferCommitter(walletRepository, transactionRepository,
+        batched, ledgerService, operator, migrationStatus, false, 3), CONCURRENCY);
+      batched.stop();
+    } finally {
+      client.close();
+    }
+  }
+
+  private static void run(String name, TransferCommitter committer, int concurrency) {
+    commitAll(committer, WARMUP_TRANSFERS, concurrency);
+    COMMANDS.set(0);
+    COMMAND_BYTES.set(0);
+    long start = System.nanoTime();
+    commitAll(committer, MEASURED_TRANSFERS, concurrency);
+    long elapsed = System.nanoTime() - start;
+
+    System.out.printf("%-13s time=%.1f us/transfer commands=%.2f/transfer bytes=%d/transfer%n",
+      name,
+      elapsed / 1_000.0 / MEASURED_TRANSFERS,
+      (double) COMMANDS.get() / MEASURED_TRANSFERS,
+      COMMAND_BYTES.get() / MEASURED_TRANSFERS);
+  }
+
+  private static void commitAll(TransferCommitter committer, int transfers, int concurrency) {
+    Flux.range(0, transfers)
+      .flatMap(i -> committer.commit(transfer(i)), concurrency)
+      .blockLast();
+  }
+
+  private static TransactionBatchWriter batchWriter(TransactionStore store, boolean enabled) {
+    return new TransactionBatchWriter(store, new SimpleMeterRegistry(), enabled, 10_000,
+      500, Duration.ofMillis(10), 4, Duration.ofSeconds(5));
+  }
+
+  private static TransferCommitter.Transfer transfer(int sequence) {
+    // Alterna el sentido para que ningún saldo se agote
+    boolean forward = sequence % 2 == 0;
+    String from = forward ? "+51900000001" : "+51900000002";
+    String to = forward ? "+51900000002" : "+51900000001";
+    return TransferCommitter.Transfer.builder()
+      .debitPhoneNumber(from)
+      .creditPhoneNumber(to)
+      .amount(AMOUNT)
+      .record(YankiTransaction.builder()
+        .id(UUID.randomUUID().toString())
+        .transactionId(UUID.randomUUID().toString())
+        .amount(AMOUNT)
+        .fromPhoneNumber(from)
+        .toPhoneNumber(to)
+        .type(YankiTransaction.TransactionType.TRANSFER)
+        .build())
+      .build();
+  }
+
+  private static YankiWallet wallet(String phoneNumber) {
+    return YankiWallet.builder()
+      .phoneNumber(phoneNumber)
+      .balance(new BigDecimal("1000.00"))
+      .status(YankiWallet.YankiWalletStatus.ACTIVE)
+      .build();
+  }
+}
@@ -0,0 +1,130 @@
+package com.bank.yanki.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.domain.exception.MigrationPendingException;
+import com.bank.yanki.domain.model.LedgerEntry;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.domain.repository.YankiTransactionRepository;
+import com.bank.yanki.domain.repository.YankiWalletRepository;
+import com.bank.yanki.infrastructure.persistence.MigrationStatus;
+import com.bank.yanki.infrastructure.persistence.TransactionBatchWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class TransferCommitterTest {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("10");
+
+  private final YankiWalletRepository walletRepository = mock(YankiWalletRepository.class);
+  private final TransactionBatchWriter batchWriter = mock(TransactionBatchWriter.class);
+  private final LedgerService ledgerService = mock(LedgerService.class);
+  private final MigrationStatus migrationStatus = new MigrationStatus();
+  private final TransferCommitter committer = new TransferCommitter(walletRepository,
+    mock(YankiTransactionRepository.class), batchWriter, ledgerService,
+    mock(TransactionalOperator.class), migrationStatus, false, 3);
+
+  private final YankiTransaction record = YankiTransaction.builder()
+    .id("r-1")
+    .transactionId("tx-1")
+    .build();
+  private final TransferCommitter.Transfer transfer = TransferCommitter.Transfer.builder()
+    .debitPhoneNumber("111")
+    .creditPhoneNumber("222")
+    .amount(AMOUNT)
+    .record(record)
+    .build();
+
+  private static YankiWallet wallet(String phoneNumber, long version) {
+    return YankiWallet.builder()
+      .id("w-" + phoneNumber)
+      .phoneNumber(phoneNumber)
+      .version(version)
+      .updatedAt(LocalDateTime.now())
+      .build();
+  }
+
+  @BeforeEach
+  void setUp() {
+    migrationStatus.markCompleted();
+    when(walletRepository.debitIfSufficient("111", AMOUNT))
+      .thenReturn(Mono.just(wallet("111", 2)));
+    when(ledgerService.recordDurably(anyList(), anyList())).thenReturn(Mono.empty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void revertsTheDebitWhenTheCreditFails() {
+    when(walletRepository.credit("222", AMOUNT))
+      .thenReturn(Mono.error(new IllegalStateException("down")));
+    when(walletRepository.credit("111", AMOUNT)).thenReturn(Mono.just(wallet("111", 3)));
+
+    StepVerifier.create(committer.commit(transfer)).verifyErrorMessage("down");
+
+    verify(walletRepository).credit("111", AMOUNT);
+    ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+    verify(ledgerService).recordDurably(anyList(), entries.capture());
+    assertThat(entries.getValue()).extracting(LedgerEntry::getReason)
+      .containsExactly(LedgerEntry.Reason.DEBIT, LedgerEntry.Reason.REVERSAL);
+    verify(batchWriter, never()).write(any());
+  }
+
+  @Test
+  void recordFailureAfterTheCreditDefersItAndCommits() {
+    when(walletRepository.credit("222", AMOUNT)).thenReturn(Mono.just(wallet("222", 5)));
+    IllegalStateException failure = new IllegalStateException("batch down");
+    when(batchWriter.write(record)).thenReturn(Mono.error(failure));
+    when(ledgerService.deferRecord(record, failure)).thenReturn(Mono.empty());
+
+    StepVerifier.create(committer.commit(transfer))
+      .assertNext(result -> {
+        assertThat(result.getDebited().getPhoneNumber()).isEqualTo("111");
+        assertThat(result.getCredited().getPhoneNumber()).isEqualTo("222");
+        assertThat(result.getRecord()).isSameAs(record);
+      })
+      .verifyComplete();
+
+    verify(ledgerService).deferRecord(record, failure);
+    verify(ledgerService).recordDurably(anyList(), anyList());
+  }
+
+  @Test
+  void lostWritesAfterTheCreditDoNotFailTheTransfer() {
+    when(walletRepository.credit("222", AMOUNT)).thenReturn(Mono.just(wallet("222", 5)));
+    when(batchWriter.write(record)).thenReturn(Mono.error(new IllegalStateException("down")));
+    when(ledgerService.deferRecord(eq(record), any()))
+      .thenReturn(Mono.error(new IllegalStateException("down")));
+    when(ledgerService.recordDurably(anyList(), anyList()))
+      .thenReturn(Mono.error(new IllegalStateException("down")));
+
+    StepVerifier.create(committer.commit(transfer))
+      .expectNextCount(1)
+      .verifyComplete();
+    verify(walletRepository, never()).credit("111", AMOUNT);
+  }
+
+  @Test
+  void rejectsDebitsUntilMigrationsComplete() {
+    TransferCommitter pending = new TransferCommitter(walletRepository,
+      mock(YankiTransactionRepository.class), batchWriter, ledgerService,
+      mock(TransactionalOperator.class), new MigrationStatus(), false, 3);
+
+    StepVerifier.create(pending.commit(transfer)).verifyError(MigrationPendingException.class);
+    verify(walletRepository, never()).debitIfSufficient(any(), any());
+  }
+}
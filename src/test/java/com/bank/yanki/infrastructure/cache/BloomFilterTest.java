@@ -0,0 +1,35 @@
+package com.bank.yanki.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  private final BloomFilter filter = new BloomFilter(1000, 0.01);
+
+  @Test
+  void neverMissesAnAddedKey() {
+    IntStream.range(0, 1000).forEach(i -> filter.put("added-" + i));
+
+    assertThat(IntStream.range(0, 1000).allMatch(i -> filter.mightContain("added-" + i)))
+      .isTrue();
+  }
+
+  @Test
+  void keepsFalsePositivesNearTheConfiguredRate() {
+    IntStream.range(0, 1000).forEach(i -> filter.put("added-" + i));
+
+    long falsePositives = IntStream.range(0, 10_000)
+      .filter(i -> filter.mightContain("other-" + i))
+      .count();
+
+    assertThat(falsePositives).isLessThan(300);
+  }
+
+  @Test
+  void startsEmpty() {
+    assertThat(filter.mightContain("key")).isFalse();
+  }
+}
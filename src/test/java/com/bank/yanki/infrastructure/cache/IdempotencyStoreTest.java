@@ -0,0 +1,181 @@
+package com.bank.yanki.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.domain.exception.DuplicateRequestException;
+import com.bank.yanki.domain.exception.IdempotencyKeyReuseException;
+import com.bank.yanki.domain.exception.IdempotencyUnavailableException;
+import com.bank.yanki.domain.exception.IdempotentRequestFailedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class IdempotencyStoreTest {
+
+  private final Map<String, String> redis = new ConcurrentHashMap<>();
+  private final AtomicInteger refreshes = new AtomicInteger();
+  private final ReactiveStringRedisTemplate redisTemplate =
+    mock(ReactiveStringRedisTemplate.class);
+  @SuppressWarnings("unchecked")
+  private final ReactiveValueOperations<String, String> values =
+    mock(ReactiveValueOperations.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final IdempotencyStore store = new IdempotencyStore(redisTemplate, new ObjectMapper(),
+    meterRegistry, Duration.ofHours(1), Duration.ofMillis(150), 1000, 0.01);
+  private final AtomicInteger executions = new AtomicInteger();
+
+  private static final Predicate<Throwable> RETRYABLE =
+    error -> error instanceof IllegalArgumentException;
+
+  @BeforeEach
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  void fakeRedis() {
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    when(values.get(anyString()))
+      .thenAnswer(call -> Mono.fromSupplier(() -> redis.get(call.<String>getArgument(0))));
+    when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+      .thenAnswer(call -> Mono.fromCallable(() ->
+        redis.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null));
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+      .thenAnswer(call -> Flux.defer(() -> Flux.just(script(call.getArgument(0),
+        call.getArgument(1), call.getArgument(2)))));
+  }
+
+  private long script(RedisScript<?> script, List<String> keys, List<String> args) {
+    String key = keys.get(0);
+    if (!args.get(0).equals(redis.get(key))) {
+      return 0L;
+    }
+    String source = script.getScriptAsString();
+    if (source.contains("PEXPIRE")) {
+      refreshes.incrementAndGet();
+    } else if (source.contains("DEL")) {
+      redis.remove(key);
+    } else {
+      redis.put(key, args.get(1));
+    }
+    return 1L;
+  }
+
+  private Mono<String> pay(String fingerprint) {
+    return store.execute("send", "key-1", fingerprint, String.class,
+      () -> Mono.fromSupplier(() -> "result-" + executions.incrementAndGet()), RETRYABLE);
+  }
+
+  @Test
+  void runsTheOperationOnceAndReplaysItsResult() {
+    StepVerifier.create(pay("to|10")).expectNext("result-1").verifyComplete();
+    StepVerifier.create(pay("to|10")).expectNext("result-1").verifyComplete();
+
+    assertThat(executions).hasValue(1);
+    assertThat(meterRegistry.counter("yanki.idempotency.replayed", "scope", "send").count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void rejectsAKeyReusedWithAnotherRequest() {
+    StepVerifier.create(pay("to|10")).expectNext("result-1").verifyComplete();
+
+    StepVerifier.create(pay("to|99")).verifyError(IdempotencyKeyReuseException.class);
+    assertThat(executions).hasValue(1);
+  }
+
+  @Test
+  void rejectsARepetitionWhileTheOriginalIsInProgress() {
+    Sinks.One<String> original = Sinks.one();
+    store.execute("send", "key-1", "to|10", String.class, original::asMono, RETRYABLE)
+      .subscribe();
+
+    StepVerifier.create(pay("to|10")).verifyError(DuplicateRequestException.class);
+    StepVerifier.create(pay("to|99")).verifyError(IdempotencyKeyReuseException.class);
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  void releasesTheKeyWhenTheOperationFailsBeforeAnyChange() {
+    StepVerifier.create(store.execute("send", "key-1", "to|10", String.class,
+        () -> Mono.<String>error(new IllegalArgumentException("invalid")), RETRYABLE))
+      .verifyError(IllegalArgumentException.class);
+
+    assertThat(redis).isEmpty();
+    StepVerifier.create(pay("to|10")).expectNext("result-1").verifyComplete();
+  }
+
+  @Test
+  void replaysAFailureThatMayFollowAChange() {
+    StepVerifier.create(store.execute("send", "key-1", "to|10", String.class,
+        () -> Mono.<String>error(new IllegalStateException("boom")), RETRYABLE))
+      .verifyError(IllegalStateException.class);
+
+    StepVerifier.create(pay("to|10"))
+      .verifyErrorSatisfies(error -> assertThat(error)
+        .isInstanceOf(IdempotentRequestFailedException.class)
+        .hasMessage("boom"));
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  void keepsTheKeyOfACancelledOperation() {
+    store.execute("send", "key-1", "to|10", String.class, Mono::<String>never, RETRYABLE)
+      .subscribe()
+      .dispose();
+
+    StepVerifier.create(pay("to|10")).verifyError(IdempotentRequestFailedException.class);
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  void refreshesTheClaimWhileTheOperationWaits() {
+    StepVerifier.create(store.execute("send", "key-1", "to|10", String.class,
+        () -> Mono.just("late").delayElement(Duration.ofMillis(400)), RETRYABLE))
+      .expectNext("late")
+      .verifyComplete();
+
+    assertThat(refreshes.get()).isGreaterThanOrEqualTo(2);
+    assertThat(redis.get("idem:send:key-1")).startsWith("done:");
+  }
+
+  @Test
+  void failsClosedWithoutRunningTheOperationWhenRedisIsDown() {
+    when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+      .thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+
+    StepVerifier.create(pay("to|10")).verifyError(IdempotencyUnavailableException.class);
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  void replaysResultsStoredWithoutFingerprint() {
+    redis.put("idem:send:key-1", "done:\"legacy\"");
+
+    StepVerifier.create(pay("to|99")).expectNext("legacy").verifyComplete();
+  }
+
+  @Test
+  void runsWithoutKey() {
+    StepVerifier.create(store.execute("send", null, "to|10", String.class,
+        () -> Mono.just("direct"), RETRYABLE))
+      .expectNext("direct")
+      .verifyComplete();
+  }
+}
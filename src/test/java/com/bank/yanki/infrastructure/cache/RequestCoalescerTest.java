@@ -0,0 +1,147 @@
+package com.bank.yanki.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class RequestCoalescerTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+  private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+  private Function<List<String>, Mono<Map<String, String>>> batchLoader(
+    Mono<Map<String, String>> result) {
+    return ids -> {
+      batches.add(ids);
+      return result;
+    };
+  }
+
+  /**
+   * Suscribe ya, como haría una petición en curso, y conserva el resultado.
+   */
+  private static <T> Mono<T> inFlight(Mono<T> load) {
+    Mono<T> cached = load.cache();
+    cached.subscribe(value -> { }, error -> { });
+    return cached;
+  }
+
+  private Mono<Map<String, String>> batch(List<String> ids, Mono<Map<String, String>> result) {
+    return coalescer.executeAll(ids, id -> "k:" + id, batchLoader(result));
+  }
+
+  private double inFlightLoads() {
+    return meterRegistry.get("yanki.lookup.inflight").gauge().value();
+  }
+
+  @Test
+  void concurrentLoadsOfAKeyShareOneExecution() {
+    Sinks.One<String> result = Sinks.one();
+    AtomicInteger loads = new AtomicInteger();
+    Supplier<Mono<String>> loader = () -> {
+      loads.incrementAndGet();
+      return result.asMono();
+    };
+
+    Mono<String> first = inFlight(coalescer.execute("k:a", loader));
+    Mono<String> second = inFlight(coalescer.execute("k:a", loader));
+    result.tryEmitValue("A");
+
+    StepVerifier.create(first).expectNext("A").verifyComplete();
+    StepVerifier.create(second).expectNext("A").verifyComplete();
+    assertThat(loads).hasValue(1);
+    assertThat(meterRegistry.counter("yanki.lookup.coalesced").count()).isEqualTo(1);
+    assertThat(inFlightLoads()).isZero();
+  }
+
+  @Test
+  void finishedLoadIsNotReused() {
+    StepVerifier.create(coalescer.execute("k:a", () -> Mono.just("first")))
+      .expectNext("first")
+      .verifyComplete();
+
+    StepVerifier.create(coalescer.execute("k:a", () -> Mono.just("second")))
+      .expectNext("second")
+      .verifyComplete();
+    assertThat(meterRegistry.counter("yanki.lookup.coalesced").count()).isZero();
+  }
+
+  @Test
+  void failedLoadIsNotRemembered() {
+    StepVerifier.create(coalescer.execute("k:a",
+        () -> Mono.<String>error(new IllegalStateException("down"))))
+      .verifyErrorMessage("down");
+
+    StepVerifier.create(coalescer.execute("k:a", () -> Mono.just("retried")))
+      .expectNext("retried")
+      .verifyComplete();
+    assertThat(inFlightLoads()).isZero();
+  }
+
+  @Test
+  void batchLoadsOnlyTheIdsWithoutALoadInFlight() {
+    Sinks.One<String> single = Sinks.one();
+    inFlight(coalescer.execute("k:a", single::asMono));
+
+    Mono<Map<String, String>> batch = inFlight(batch(List.of("a", "b"),
+      Mono.just(Map.of("b", "B"))));
+    single.tryEmitValue("A");
+
+    StepVerifier.create(batch).expectNext(Map.of("a", "A", "b", "B")).verifyComplete();
+    assertThat(batches).containsExactly(List.of("b"));
+    assertThat(meterRegistry.counter("yanki.lookup.coalesced").count()).isEqualTo(1);
+  }
+
+  @Test
+  void singleLoadsJoinABatchInFlight() {
+    Sinks.One<Map<String, String>> result = Sinks.one();
+    Mono<Map<String, String>> batch = inFlight(batch(List.of("a", "b"), result.asMono()));
+
+    Mono<String> single = inFlight(coalescer.execute("k:a", () -> Mono.just("loaded again")));
+    result.tryEmitValue(Map.of("a", "A"));
+
+    StepVerifier.create(single).expectNext("A").verifyComplete();
+    StepVerifier.create(batch).expectNext(Map.of("a", "A")).verifyComplete();
+  }
+
+  @Test
+  void batchFailureReachesEveryWaiterAndIsNotRemembered() {
+    Sinks.One<Map<String, String>> result = Sinks.one();
+    Mono<Map<String, String>> batch = inFlight(batch(List.of("a"), result.asMono()));
+    Mono<String> single = inFlight(coalescer.execute("k:a", () -> Mono.just("unused")));
+
+    result.tryEmitError(new IllegalStateException("down"));
+
+    StepVerifier.create(single).verifyErrorMessage("down");
+    StepVerifier.create(batch).verifyErrorMessage("down");
+    StepVerifier.create(coalescer.execute("k:a", () -> Mono.just("retried")))
+      .expectNext("retried")
+      .verifyComplete();
+  }
+
+  @Test
+  void cancelledBatchReleasesItsWaiters() {
+    Disposable owner = batch(List.of("a"), Mono.never()).subscribe();
+    Mono<String> single = inFlight(coalescer.execute("k:a", () -> Mono.just("unused")));
+
+    owner.dispose();
+
+    StepVerifier.create(single).verifyError(CancellationException.class);
+    StepVerifier.create(coalescer.execute("k:a", () -> Mono.just("retried")))
+      .expectNext("retried")
+      .verifyComplete();
+  }
+}
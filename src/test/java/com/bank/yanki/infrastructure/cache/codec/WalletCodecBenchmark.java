@@ -0,0 +1,73 @@
+package com.bank.yanki.infrastructure.cache.codec;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Benchmark manual que compara el codec JSON actual con el codec binario compacto.
+ *
+ * <p>Mide bytes por valor y por clave, y el tiempo medio de serializar y deserializar
+ * una billetera. Se ejecuta con {@code main} desde el IDE o con
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.bank.yanki.infrastructure.cache.codec.WalletCodecBenchmark}.</p>
+ *
+ */
+public final class WalletCodecBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 200_000;
+  private static final int MEASURED_ITERATIONS = 1_000_000;
+
+  private WalletCodecBenchmark() {
+  }
+
+  /**
+   * Ejecuta el benchmark e imprime los resultados por consola.
+   *
+   * @param args no se utilizan
+   */
+  public static void main(String[] args) {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(new JavaTimeModule());
+    YankiWallet wallet = YankiWallet.builder()
+      .id("507f1f77bcf86cd799439011")
+      .documentNumber("12345678")
+      .documentType(YankiWallet.DocumentType.DNI)
+      .phoneNumber("+51987654321")
+      .imei("490154203237518")
+      .email("usuario@gmail.com")
+      .balance(new BigDecimal("1000.50"))
+      .associatedCreditId("credit_123456789")
+      .status(YankiWallet.YankiWalletStatus.ACTIVE)
+      .createdAt(LocalDateTime.now())
+      .updatedAt(LocalDateTime.now())
+      .build();
+    String key = "wallet:" + wallet.getPhoneNumber();
+
+    run("json", new Jackson2JsonRedisSerializer<>(objectMapper, YankiWallet.class),
+      new StringRedisSerializer(), wallet, key);
+    run("binary", new YankiWalletBinarySerializer(256), new CompactKeySerializer(), wallet, key);
+  }
+
+  private static void run(String name, RedisSerializer<YankiWallet> valueSerializer,
+                          RedisSerializer<String> keySerializer, YankiWallet wallet,
+                          String key) {
+    long sink = 0;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sink += valueSerializer.deserialize(valueSerializer.serialize(wallet)).getEmail().length();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      sink += valueSerializer.deserialize(valueSerializer.serialize(wallet)).getEmail().length();
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("%-6s value=%d bytes key=%d bytes round-trip=%.1f ns/op (sink=%d)%n",
+      name, valueSerializer.serialize(wallet).length, keySerializer.serialize(key).length,
+      (double) elapsed / MEASURED_ITERATIONS, sink);
+  }
+}
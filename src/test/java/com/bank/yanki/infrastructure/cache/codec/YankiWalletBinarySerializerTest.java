@@ -0,0 +1,78 @@
+package com.bank.yanki.infrastructure.cache.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import io.lettuce.core.cluster.SlotHash;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class YankiWalletBinarySerializerTest {
+
+  private static YankiWallet sampleWallet() {
+    return YankiWallet.builder()
+      .id("507f1f77bcf86cd799439011")
+      .documentNumber("12345678")
+      .documentType(YankiWallet.DocumentType.DNI)
+      .phoneNumber("+51987654321")
+      .imei("490154203237518")
+      .email("usuario@gmail.com")
+      .balance(new BigDecimal("1000.50"))
+      .associatedCreditId("credit_123456789")
+      .status(YankiWallet.YankiWalletStatus.ACTIVE)
+      .createdAt(LocalDateTime.of(2024, 10, 26, 10, 30, 0, 123456000))
+      .updatedAt(LocalDateTime.of(2024, 10, 27, 8, 15, 42))
+      .version(7L)
+      .build();
+  }
+
+  @Test
+  void roundTripsAllFields() {
+    YankiWalletBinarySerializer serializer = new YankiWalletBinarySerializer(0);
+    YankiWallet wallet = sampleWallet();
+
+    assertThat(serializer.deserialize(serializer.serialize(wallet))).isEqualTo(wallet);
+  }
+
+  @Test
+  void roundTripsNullFields() {
+    YankiWalletBinarySerializer serializer = new YankiWalletBinarySerializer(0);
+    YankiWallet wallet = YankiWallet.builder().id("__absent__").phoneNumber("999").build();
+
+    assertThat(serializer.deserialize(serializer.serialize(wallet))).isEqualTo(wallet);
+  }
+
+  @Test
+  void roundTripsCompressedPayload() {
+    YankiWalletBinarySerializer serializer = new YankiWalletBinarySerializer(16);
+    YankiWallet wallet = sampleWallet();
+    wallet.setEmail("a".repeat(200) + "@gmail.com");
+
+    byte[] bytes = serializer.serialize(wallet);
+
+    assertThat(bytes[1]).isEqualTo((byte) 1);
+    assertThat(serializer.deserialize(bytes)).isEqualTo(wallet);
+  }
+
+  @Test
+  void compactKeysRoundTrip() {
+    CompactKeySerializer serializer = new CompactKeySerializer();
+
+    for (String key : new String[] {"wallet:+51987654321", "wallet:98765432", "wallet:abc",
+      "wallet:v:+51987654321", "other:key", "wallet:{+51987654321}", "wallet:{abc}",
+      "wallet:v:{98765432}", "wallet:{abc"}) {
+      assertThat(serializer.deserialize(serializer.serialize(key))).isEqualTo(key);
+    }
+    assertThat(serializer.serialize("wallet:+51987654321")).hasSize(8);
+  }
+
+  @Test
+  void compactKeysKeepTheHashTagOfThePhone() {
+    CompactKeySerializer serializer = new CompactKeySerializer();
+
+    assertThat(SlotHash.getSlot(serializer.serialize("wallet:{+51987654321}")))
+      .isEqualTo(SlotHash.getSlot(serializer.serialize("wallet:v:{+51987654321}")));
+    assertThat(serializer.serialize("wallet:{+51987654321}")).hasSize(10);
+  }
+}
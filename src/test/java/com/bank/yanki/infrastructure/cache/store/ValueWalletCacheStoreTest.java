@@ -0,0 +1,57 @@
+package com.bank.yanki.infrastructure.cache.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.domain.model.YankiWallet;
+import com.bank.yanki.infrastructure.cache.codec.YankiWalletBinarySerializer;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ValueWalletCacheStoreTest {
+
+  @SuppressWarnings("unchecked")
+  private final ReactiveRedisTemplate<String, YankiWallet> redisTemplate =
+    mock(ReactiveRedisTemplate.class);
+  private final YankiWalletBinarySerializer serializer = new YankiWalletBinarySerializer(0);
+  private final ValueWalletCacheStore store = new ValueWalletCacheStore(redisTemplate);
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void readsTheWalletAndItsTimeToLiveInOneScript() {
+    YankiWallet wallet = YankiWallet.builder()
+      .id("507f1f77bcf86cd799439011")
+      .phoneNumber("+51987654321")
+      .balance(new BigDecimal("10.50"))
+      .version(3L)
+      .build();
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    result.writeBytes("1500:".getBytes(StandardCharsets.US_ASCII));
+    result.writeBytes(serializer.serialize(wallet));
+    when(redisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext
+      .<String, YankiWallet>newSerializationContext(RedisSerializer.string())
+      .value(serializer)
+      .build());
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList(), any(), any()))
+      .thenReturn(Flux.just(result.toByteArray()));
+
+    StepVerifier.create(store.getWithTimeToLive("+51987654321"))
+      .assertNext(entry -> {
+        assertThat(entry.getT1()).isEqualTo(wallet);
+        assertThat(entry.getT2()).isEqualTo(Duration.ofMillis(1500));
+      })
+      .verifyComplete();
+  }
+}
@@ -0,0 +1,50 @@
+package com.bank.yanki.infrastructure.pending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class InMemoryPendingTransactionStoreTest {
+
+  private final InMemoryPendingTransactionStore store = new InMemoryPendingTransactionStore(2);
+
+  private static PendingTransaction pending(String inquiryId, Instant deadline) {
+    return PendingTransaction.builder().inquiryId(inquiryId).deadline(deadline).build();
+  }
+
+  @Test
+  void rejectsTransactionsBeyondCapacity() {
+    Instant deadline = Instant.now().plusSeconds(30);
+
+    StepVerifier.create(store.put(pending("a", deadline))).expectNext(true).verifyComplete();
+    StepVerifier.create(store.put(pending("b", deadline))).expectNext(true).verifyComplete();
+    StepVerifier.create(store.put(pending("c", deadline))).expectNext(false).verifyComplete();
+    assertThat(store.size()).isEqualTo(2);
+  }
+
+  @Test
+  void removesATransactionOnlyOnce() {
+    store.put(pending("a", Instant.now().plusSeconds(30))).block();
+
+    StepVerifier.create(store.remove("a"))
+      .assertNext(removed -> assertThat(removed.getInquiryId()).isEqualTo("a"))
+      .verifyComplete();
+    StepVerifier.create(store.remove("a")).verifyComplete();
+    assertThat(store.size()).isZero();
+  }
+
+  @Test
+  void removesOnlyExpiredTransactions() {
+    Instant now = Instant.now();
+    store.put(pending("old", now.minusSeconds(1))).block();
+    store.put(pending("new", now.plusSeconds(30))).block();
+
+    StepVerifier.create(store.removeExpired(now))
+      .assertNext(removed -> assertThat(removed.getInquiryId()).isEqualTo("old"))
+      .verifyComplete();
+    assertThat(store.size()).isEqualTo(1);
+  }
+}
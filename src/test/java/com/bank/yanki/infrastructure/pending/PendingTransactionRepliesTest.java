@@ -0,0 +1,58 @@
+package com.bank.yanki.infrastructure.pending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bank.yanki.domain.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class PendingTransactionRepliesTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private PendingTransactionReplies replies(Duration ttl) {
+    return new PendingTransactionReplies(meterRegistry, true, Duration.ofSeconds(1), ttl);
+  }
+
+  private double waiting() {
+    return meterRegistry.get("yanki.payments.sync-reply.waiting").gauge().value();
+  }
+
+  @Test
+  void deliversAResultThatArrivedBeforeTheWait() {
+    PendingTransactionReplies replies = replies(Duration.ofMinutes(1));
+    Transaction pending = Transaction.builder().id("tx-1").build();
+    Transaction completed = Transaction.builder().id("tx-1").description("done").build();
+
+    replies.register("tx-1");
+    replies.complete("tx-1", completed);
+
+    StepVerifier.create(replies.await(pending))
+      .expectNext(completed)
+      .verifyComplete();
+    assertThat(waiting()).isZero();
+  }
+
+  @Test
+  void sweepRemovesRegistrationsNeverAwaited() throws InterruptedException {
+    PendingTransactionReplies replies = replies(Duration.ofMillis(10));
+
+    replies.register("tx-1");
+    Thread.sleep(50);
+    replies.sweep();
+
+    assertThat(waiting()).isZero();
+  }
+
+  @Test
+  void sweepKeepsRecentRegistrations() {
+    PendingTransactionReplies replies = replies(Duration.ofMinutes(1));
+
+    replies.register("tx-1");
+    replies.sweep();
+
+    assertThat(waiting()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,75 @@
+package com.bank.yanki.infrastructure.pending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PendingTransactionTimeoutsTest {
+
+  private final InMemoryPendingTransactionStore store = new InMemoryPendingTransactionStore(10);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final PendingTransactionTimeouts timeouts = new PendingTransactionTimeouts(store,
+    meterRegistry, Duration.ofMillis(100), Duration.ofMillis(10));
+  private final List<String> expired = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  void collectExpirations() {
+    timeouts.expirations().subscribe(pending -> expired.add(pending.getInquiryId()));
+  }
+
+  @AfterEach
+  void stop() {
+    timeouts.stop();
+  }
+
+  private PendingTransaction pending(String inquiryId, Instant deadline) {
+    PendingTransaction pending = PendingTransaction.builder()
+      .inquiryId(inquiryId)
+      .transactionId("tx-" + inquiryId)
+      .deadline(deadline)
+      .build();
+    store.put(pending).block();
+    return pending;
+  }
+
+  @Test
+  void expiresATransactionWithoutResponse() throws InterruptedException {
+    timeouts.schedule(pending("a", Instant.now().plusMillis(50)));
+
+    Thread.sleep(300);
+
+    assertThat(expired).containsExactly("a");
+    assertThat(store.size()).isZero();
+    assertThat(meterRegistry.counter("yanki.payments.pending.timeouts").count()).isEqualTo(1);
+  }
+
+  @Test
+  void doesNotExpireACancelledTransaction() throws InterruptedException {
+    timeouts.schedule(pending("a", Instant.now().plusMillis(50)));
+
+    timeouts.cancel("a");
+    Thread.sleep(300);
+
+    assertThat(expired).isEmpty();
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  void sweepsExpiredTransactionsThatWereNeverScheduled() {
+    pending("old", Instant.now().minusSeconds(1));
+    pending("new", Instant.now().plusSeconds(60));
+
+    timeouts.sweep();
+
+    assertThat(expired).containsExactly("old");
+    assertThat(store.size()).isEqualTo(1);
+  }
+}
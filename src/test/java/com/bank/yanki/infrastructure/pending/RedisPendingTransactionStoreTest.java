@@ -0,0 +1,84 @@
+package com.bank.yanki.infrastructure.pending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.application.dto.PendingTransaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.cluster.SlotHash;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class RedisPendingTransactionStoreTest {
+
+  private final ReactiveStringRedisTemplate redisTemplate =
+    mock(ReactiveStringRedisTemplate.class);
+  private final ObjectMapper objectMapper = new ObjectMapper()
+    .registerModule(new JavaTimeModule());
+  private final RedisPendingTransactionStore store =
+    new RedisPendingTransactionStore(redisTemplate, objectMapper, 2);
+  private final List<List<String>> scriptKeys = new ArrayList<>();
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void scriptReturns(Object result) {
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+      .thenAnswer(call -> {
+        scriptKeys.add(call.getArgument(1));
+        return Flux.just(result);
+      });
+  }
+
+  private static PendingTransaction pending(String inquiryId) {
+    return PendingTransaction.builder()
+      .inquiryId(inquiryId)
+      .transactionId("tx-" + inquiryId)
+      .deadline(Instant.now().plusSeconds(30))
+      .build();
+  }
+
+  @Test
+  void keepsTheKeysOfEachScriptInOneClusterSlot() {
+    scriptReturns(1L);
+    store.put(pending("a")).block();
+    store.put(pending("b")).block();
+
+    assertThat(scriptKeys).hasSize(2).allSatisfy(keys -> assertThat(keys)
+      .extracting(SlotHash::getSlot)
+      .containsOnly(SlotHash.getSlot(RedisPendingTransactionStore.DEADLINES_KEY)));
+  }
+
+  @Test
+  void reportsAFullStore() {
+    scriptReturns(-1L);
+
+    StepVerifier.create(store.put(pending("a"))).expectNext(false).verifyComplete();
+  }
+
+  @Test
+  void readsTheRemovedTransaction() throws Exception {
+    scriptReturns(objectMapper.writeValueAsString(pending("a")));
+
+    StepVerifier.create(store.remove("a"))
+      .assertNext(removed -> assertThat(removed.getTransactionId()).isEqualTo("tx-a"))
+      .verifyComplete();
+    assertThat(scriptKeys.get(0)).extracting(SlotHash::getSlot)
+      .containsOnly(SlotHash.getSlot(RedisPendingTransactionStore.DEADLINES_KEY));
+  }
+
+  @Test
+  void ignoresATransactionAlreadyRemoved() {
+    scriptReturns("");
+
+    StepVerifier.create(store.remove("a")).verifyComplete();
+  }
+}
@@ -0,0 +1,93 @@
+package com.bank.yanki.infrastructure.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.bank.yanki.infrastructure.persistence.store.TransactionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class TransactionBatchWriterTest {
+
+  private final TransactionStore store = mock(TransactionStore.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TransactionBatchWriter writer = new TransactionBatchWriter(store, meterRegistry,
+    true, 100, 3, Duration.ofSeconds(5), 1, Duration.ofSeconds(1));
+
+  @AfterEach
+  void stop() {
+    writer.stop();
+  }
+
+  private static YankiTransaction record(String id) {
+    return YankiTransaction.builder().id(id).transactionId(id).build();
+  }
+
+  private List<Object> writeBatch() {
+    writer.start();
+    return Flux.merge(
+        writeOutcome(record("a")), writeOutcome(record("b")), writeOutcome(record("c")))
+      .collectList()
+      .block(Duration.ofSeconds(5));
+  }
+
+  private Mono<Object> writeOutcome(YankiTransaction transaction) {
+    return writer.write(transaction)
+      .<Object>map(YankiTransaction::getId)
+      .onErrorResume(error -> Mono.just(error.getClass()));
+  }
+
+  @Test
+  void failsOnlyTheRecordsRejectedByTheBulk() {
+    when(store.insertAll(anyList())).thenReturn(Mono.just(Map.of(1, "E11000 duplicate key")));
+
+    List<Object> outcomes = writeBatch();
+
+    assertThat(outcomes).containsExactlyInAnyOrder("a", "c", IllegalStateException.class);
+  }
+
+  @Test
+  void insertsRecordsOneByOneWhenTheWholeBatchFails() {
+    when(store.insertAll(anyList()))
+      .thenReturn(Mono.error(new DataAccessResourceFailureException("connection reset")));
+    when(store.insert(any())).thenAnswer(invocation -> {
+      YankiTransaction transaction = invocation.getArgument(0);
+      return switch (transaction.getId()) {
+        case "a" -> Mono.just(transaction);
+        case "b" -> Mono.error(new DuplicateKeyException("already inserted by the batch"));
+        default -> Mono.error(new DataAccessResourceFailureException("still down"));
+      };
+    });
+
+    List<Object> outcomes = writeBatch();
+
+    assertThat(outcomes)
+      .containsExactlyInAnyOrder("a", "b", DataAccessResourceFailureException.class);
+    assertThat(meterRegistry.counter("yanki.transactions.batch.fallback").count())
+      .isEqualTo(1.0);
+  }
+
+  @Test
+  void insertsDirectlyWhenDisabled() {
+    TransactionBatchWriter direct = new TransactionBatchWriter(store, meterRegistry, false,
+      100, 3, Duration.ofSeconds(5), 1, Duration.ofSeconds(1));
+    when(store.insert(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+    StepVerifier.create(direct.write(record("a")))
+      .assertNext(inserted -> assertThat(inserted.getId()).isEqualTo("a"))
+      .verifyComplete();
+  }
+}
@@ -0,0 +1,55 @@
+package com.bank.yanki.infrastructure.persistence.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bank.yanki.domain.model.TransactionBucket;
+import com.bank.yanki.domain.model.YankiTransaction;
+import com.mongodb.client.result.UpdateResult;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class BucketTransactionStoreTest {
+
+  private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+  private final BucketTransactionStore store = new BucketTransactionStore(mongoTemplate, 200);
+
+  private final YankiTransaction record = YankiTransaction.builder()
+    .id("65a1f0c2e4b0a1b2c3d4e5f6")
+    .transactionId("tx-1")
+    .fromPhoneNumber("111")
+    .toPhoneNumber("222")
+    .amount(BigDecimal.TEN)
+    .transactionDate(LocalDateTime.of(2026, 1, 5, 10, 0))
+    .build();
+
+  @Test
+  void retryAddsOnlyTheEntriesNotYetStored() {
+    when(mongoTemplate.exists(any(Query.class), eq(TransactionBucket.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.<Query>getArgument(0)
+        .getQueryObject().get("phoneNumber").equals("111")));
+    when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(TransactionBucket.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    StepVerifier.create(store.insert(record))
+      .expectNext(record)
+      .verifyComplete();
+
+    ArgumentCaptor<Query> upserted = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate, times(1))
+      .upsert(upserted.capture(), any(Update.class), eq(TransactionBucket.class));
+    assertThat(upserted.getValue().getQueryObject().get("phoneNumber")).isEqualTo("222");
+  }
+}